@@ -20,16 +20,28 @@ import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.netflix.config.DynamicIntProperty;
 import com.netflix.config.DynamicLongProperty;
 import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.config.DynamicStringProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * User: gorzell
@@ -48,6 +60,7 @@ public abstract class AbstractDynamoDbConfigurationSource <T> {
     static final String pollingMaxBackOffMsPropertyName = "com.netflix.config.dynamo.maxPollingBackOffMs";
     static final String pollingMinBackOffMsPropertyName = "com.netflix.config.dynamo.maxPollingBackOffMs";
     static final String maxRetryCountPropertyName = "com.netflix.config.dynamo.maxRetryCount";
+    static final String scanTotalSegmentsPropertyName = "com.netflix.config.dynamo.scanTotalSegments";
 
     //Property defaults
     static final String defaultTable = "archaiusProperties";
@@ -57,6 +70,7 @@ public abstract class AbstractDynamoDbConfigurationSource <T> {
     static final Long defaultMaxBackOffMs = 5 * 1000L;
     static final Long defaultMinBackOffMs = 500L;
     static final Long defaultMaxRetryCount = 100L;
+    static final Integer defaultScanTotalSegments = 1;
 
     //Dynamic Properties
     protected DynamicStringProperty tableName = DynamicPropertyFactory.getInstance()
@@ -73,6 +87,20 @@ public abstract class AbstractDynamoDbConfigurationSource <T> {
             .getLongProperty(pollingMinBackOffMsPropertyName, defaultMinBackOffMs);
     protected DynamicLongProperty maxRetryCount = DynamicPropertyFactory.getInstance()
             .getLongProperty(maxRetryCountPropertyName, defaultMaxRetryCount);
+    protected DynamicIntProperty scanTotalSegments = DynamicPropertyFactory.getInstance()
+            .getIntProperty(scanTotalSegmentsPropertyName, defaultScanTotalSegments);
+
+    // Threads scanning the segments of a table in parallel, shared by all the sources
+    private static final ExecutorService segmentScanExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "dynamoDbSegmentScan-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
 
     protected AmazonDynamoDB dbClient;
 
@@ -134,6 +162,76 @@ public abstract class AbstractDynamoDbConfigurationSource <T> {
         }
     }
 
+    /**
+     * Read all the items of a table that match the scan filter, following the pages of the scan. When
+     * {@value #scanTotalSegmentsPropertyName} is more than 1, the table is split into that many segments that
+     * are scanned in parallel, each on its own thread, and the items are returned in segment order.
+     *
+     * @param table the table to scan
+     * @param scanFilter the conditions on the items to return, or null for all the items
+     * @param attributes the only attributes to read from the items
+     * @return the items
+     */
+    protected List<Map<String, AttributeValue>> scanTable(String table, Map<String, Condition> scanFilter,
+            String... attributes) {
+        int totalSegments = scanTotalSegments.get();
+        if (totalSegments <= 1) {
+            return scanSegment(table, scanFilter, attributes, null, null);
+        }
+        List<Future<List<Map<String, AttributeValue>>>> segments = new ArrayList<Future<List<Map<String, AttributeValue>>>>();
+        for (int i = 0; i < totalSegments; i++) {
+            final Integer segment = i;
+            final Integer total = totalSegments;
+            final String tableToScan = table;
+            final Map<String, Condition> filter = scanFilter;
+            final String[] attributesToGet = attributes;
+            segments.add(segmentScanExecutor.submit(new Callable<List<Map<String, AttributeValue>>>() {
+                @Override
+                public List<Map<String, AttributeValue>> call() {
+                    return scanSegment(tableToScan, filter, attributesToGet, segment, total);
+                }
+            }));
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+        try {
+            for (Future<List<Map<String, AttributeValue>>> segment : segments) {
+                items.addAll(segment.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted scanning table " + table, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to scan table " + table, e.getCause());
+        } finally {
+            for (Future<List<Map<String, AttributeValue>>> segment : segments) {
+                segment.cancel(true);
+            }
+        }
+        return items;
+    }
+
+    private List<Map<String, AttributeValue>> scanSegment(String table, Map<String, Condition> scanFilter,
+            String[] attributes, Integer segment, Integer totalSegments) {
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+        Map<String, AttributeValue> lastKeysEvaluated = null;
+        do {
+            ScanRequest scanRequest = new ScanRequest()
+                    .withTableName(table)
+                    .withAttributesToGet(attributes)
+                    .withScanFilter(scanFilter)
+                    .withSegment(segment)
+                    .withTotalSegments(totalSegments)
+                    .withExclusiveStartKey(lastKeysEvaluated);
+            ScanResult result = dbScanWithThroughputBackOff(scanRequest);
+            items.addAll(result.getItems());
+            lastKeysEvaluated = result.getLastEvaluatedKey();
+        } while (lastKeysEvaluated != null);
+        return items;
+    }
+
     protected abstract Map<String, T> loadPropertiesFromTable(String table);
 
     //TODO Javadoc
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import com.netflix.config.DeploymentContext;
+import com.netflix.config.PropertyWithDeploymentContext;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable index of the properties of a {@link DynamoDbDeploymentContextTableCache} by context key and context
+ * value, so that the properties of one deployment context are found without going through the whole table.
+ * Context values are matched ignoring case.
+ * <p>
+ * When the table is reloaded, the groups of properties that did not change are carried over from the previous index
+ * as the same map instances, so a source can tell whether its properties changed by comparing references. The
+ * version of the index only changes when some property changed.
+ */
+public final class DeploymentContextIndex {
+
+    private static final DeploymentContextIndex EMPTY =
+            new DeploymentContextIndex(Collections.<GroupKey, Map<String, Object>>emptyMap(), 0);
+
+    private final Map<GroupKey, Map<String, Object>> groups;
+    private final long version;
+
+    private DeploymentContextIndex(Map<GroupKey, Map<String, Object>> groups, long version) {
+        this.groups = groups;
+        this.version = version;
+    }
+
+    /**
+     * @return an index without properties, at version 0
+     */
+    public static DeploymentContextIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Index the properties of a table.
+     *
+     * @param properties the properties loaded from the table
+     * @param previous the index of the previous load of the table
+     * @return the new index, or the previous one if no property changed
+     */
+    public static DeploymentContextIndex update(Collection<PropertyWithDeploymentContext> properties,
+            DeploymentContextIndex previous) {
+        Map<GroupKey, Map<String, Object>> groups = new HashMap<GroupKey, Map<String, Object>>();
+        for (PropertyWithDeploymentContext prop : properties) {
+            GroupKey key = new GroupKey(prop.getContextKey(), normalize(prop.getContextValue()));
+            Map<String, Object> group = groups.get(key);
+            if (group == null) {
+                group = new HashMap<String, Object>();
+                groups.put(key, group);
+            }
+            group.put(prop.getPropertyName(), prop.getPropertyValue());
+        }
+        boolean changed = groups.size() != previous.groups.size();
+        for (Map.Entry<GroupKey, Map<String, Object>> entry : groups.entrySet()) {
+            Map<String, Object> previousGroup = previous.groups.get(entry.getKey());
+            if (previousGroup != null && previousGroup.equals(entry.getValue())) {
+                entry.setValue(previousGroup);
+            } else {
+                entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+                changed = true;
+            }
+        }
+        return changed ? new DeploymentContextIndex(groups, previous.version + 1) : previous;
+    }
+
+    /**
+     * @return the version of the index, which is incremented each time a property changes
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the properties defined for exactly one context key and value.
+     *
+     * @param contextKey the context key, or null for the properties without context key
+     * @param contextValue the context value, or null for the properties with the context key but no value
+     * @return an unmodifiable map of property names to values, empty if there are none
+     */
+    public Map<String, Object> getProperties(DeploymentContext.ContextKey contextKey, String contextValue) {
+        Map<String, Object> group = groups.get(new GroupKey(contextKey, normalize(contextValue)));
+        return group == null ? Collections.<String, Object>emptyMap() : group;
+    }
+
+    private static String normalize(String contextValue) {
+        return contextValue == null ? null : contextValue.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static final class GroupKey {
+        private final DeploymentContext.ContextKey contextKey;
+        private final String contextValue;
+
+        GroupKey(DeploymentContext.ContextKey contextKey, String contextValue) {
+            this.contextKey = contextKey;
+            this.contextValue = contextValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return contextKey == other.contextKey
+                    && (contextValue == null ? other.contextValue == null : contextValue.equals(other.contextValue));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (contextKey == null ? 0 : contextKey.hashCode())
+                    + (contextValue == null ? 0 : contextValue.hashCode());
+        }
+    }
+}
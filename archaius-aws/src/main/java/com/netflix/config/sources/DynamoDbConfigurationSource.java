@@ -21,8 +21,9 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ScanRequest;
-import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.netflix.config.DynamicIntProperty;
 import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.config.DynamicStringProperty;
 import com.netflix.config.PollResult;
@@ -30,18 +31,44 @@ import com.netflix.config.PolledConfigurationSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * User: gorzell
  * Date: 8/6/12
  * This source can be used for basic Dynamo support where there is no scoping of the properties.  It assume that you
  * provide a table with just key value pairs and the last value read wins if there are multiple rows with the same key.
+ * <p>
+ * Only the key and value attributes are read from the table. If the items also have a numeric attribute with the
+ * time they were last updated, and its name is set in {@value #updatedAtAttributePropertyName}, the polls are
+ * incremental: they only return the items updated since the latest update seen by the previous poll. Since such polls
+ * cannot see the items deleted from the table, every {@value #fullPollIntervalPropertyName} polls the whole table
+ * is read again. Note that DynamoDB still reads the whole table to apply the filter of an incremental poll, so it
+ * saves the transfer and processing of the unchanged items rather than read capacity.
  */
 public class DynamoDbConfigurationSource extends AbstractDynamoDbConfigurationSource<Object> implements PolledConfigurationSource {
     private static final Logger log = LoggerFactory.getLogger(DynamoDbConfigurationSource.class);
 
+    //Property names
+    static final String updatedAtAttributePropertyName = "com.netflix.config.dynamo.updatedAtAttributeName";
+    static final String fullPollIntervalPropertyName = "com.netflix.config.dynamo.fullPollInterval";
+
+    //Property defaults
+    static final String defaultUpdatedAtAttribute = "";
+    static final Integer defaultFullPollInterval = 10;
+
+    //Dynamic Properties
+    protected DynamicStringProperty updatedAtAttributeName = DynamicPropertyFactory.getInstance()
+            .getStringProperty(updatedAtAttributePropertyName, defaultUpdatedAtAttribute);
+    protected DynamicIntProperty fullPollInterval = DynamicPropertyFactory.getInstance()
+            .getIntProperty(fullPollIntervalPropertyName, defaultFullPollInterval);
+
+    private final AtomicInteger pollsSinceFullPoll = new AtomicInteger();
+
     public DynamoDbConfigurationSource() {
         super();
     }
@@ -71,27 +98,55 @@ public class DynamoDbConfigurationSource extends AbstractDynamoDbConfigurationSo
     }
 
     @Override
-    protected synchronized Map<String, Object> loadPropertiesFromTable(String table) {
-        Map<String, Object> propertyMap = new HashMap<String, Object>();
-        Map<String, AttributeValue> lastKeysEvaluated = null;
-        do {
-            ScanRequest scanRequest = new ScanRequest()
-                    .withTableName(table)
-                    .withExclusiveStartKey(lastKeysEvaluated);
-            ScanResult result = dbScanWithThroughputBackOff(scanRequest);
-            for (Map<String, AttributeValue> item : result.getItems()) {
-                propertyMap.put(item.get(keyAttributeName.get()).getS(), item.get(valueAttributeName.get()).getS());
-            }
-            lastKeysEvaluated = result.getLastEvaluatedKey();
-        } while (lastKeysEvaluated != null);
-        return propertyMap;
+    protected Map<String, Object> loadPropertiesFromTable(String table) {
+        return toProperties(scanTable(table, null, keyAttributeName.get(), valueAttributeName.get()));
     }
 
     @Override
     public PollResult poll(boolean initial, Object checkPoint) throws Exception {
         String table = tableName.get();
-        Map<String, Object> map = loadPropertiesFromTable(table);
-        log.info("Successfully polled Dynamo for a new configuration based on table:" + table);
-        return PollResult.createFull(map);
+        String updatedAt = updatedAtAttributeName.get();
+        if (updatedAt == null || updatedAt.length() == 0) {
+            Map<String, Object> map = loadPropertiesFromTable(table);
+            log.info("Successfully polled Dynamo for a new configuration based on table:" + table);
+            return PollResult.createFull(map);
+        }
+        boolean full = initial || !(checkPoint instanceof Long)
+                || pollsSinceFullPoll.incrementAndGet() >= fullPollInterval.get();
+        Map<String, Condition> scanFilter = null;
+        if (!full) {
+            scanFilter = Collections.singletonMap(updatedAt, new Condition()
+                    .withComparisonOperator(ComparisonOperator.GE)
+                    .withAttributeValueList(new AttributeValue().withN(checkPoint.toString())));
+        }
+        List<Map<String, AttributeValue>> items = scanTable(table, scanFilter,
+                keyAttributeName.get(), valueAttributeName.get(), updatedAt);
+        Long latestUpdate = full ? null : (Long) checkPoint;
+        for (Map<String, AttributeValue> item : items) {
+            AttributeValue itemUpdatedAt = item.get(updatedAt);
+            if (itemUpdatedAt != null && itemUpdatedAt.getN() != null) {
+                long time = Long.parseLong(itemUpdatedAt.getN());
+                if (latestUpdate == null || time > latestUpdate) {
+                    latestUpdate = time;
+                }
+            }
+        }
+        Map<String, Object> map = toProperties(items);
+        if (full) {
+            pollsSinceFullPoll.set(0);
+            log.info("Successfully polled Dynamo for a new configuration based on table:" + table);
+            return PollResult.createFull(map, latestUpdate);
+        }
+        // items updated at the time of the check point are read again, as others may have been updated in the same millisecond
+        log.debug("Polled Dynamo for " + map.size() + " properties updated since " + checkPoint + " in table:" + table);
+        return PollResult.createIncremental(null, map, null, latestUpdate);
+    }
+
+    private Map<String, Object> toProperties(List<Map<String, AttributeValue>> items) {
+        Map<String, Object> propertyMap = new HashMap<String, Object>();
+        for (Map<String, AttributeValue> item : items) {
+            propertyMap.put(item.get(keyAttributeName.get()).getS(), item.get(valueAttributeName.get()).getS());
+        }
+        return propertyMap;
     }
 }
@@ -17,9 +17,14 @@ package com.netflix.config.sources;
 
 import com.netflix.config.*;
 import org.apache.commons.configuration.AbstractConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * User: gorzell
@@ -28,12 +33,36 @@ import java.util.Map;
  * More advanced Dynamo source that allows you to filter the results based on the current deployment context values.
  * Rather than polling dynamo itself this class reads a cache that you have to setup separately.  If you used a combined
  * configuration you can cascade these sources to so that certain contexts override others.
+ * <p>
+ * The properties for the context are read from the {@link DeploymentContextIndex} of the cache, and the polls after the
+ * first one only return what changed since the previous poll.
+ * <p>
+ * This source is also a {@link WatchedConfigurationSource}: used with a {@link DynamicWatchedConfiguration}, it
+ * subscribes to the cache, which pushes each new table as soon as it is loaded, and its listeners receive the changes
+ * for the context without waiting for a second polling interval. A change of the deployment context value is seen at
+ * the next load of the table.
  */
-public class DynamoDbDeploymentContextConfigurationSource implements PolledConfigurationSource {
+public class DynamoDbDeploymentContextConfigurationSource implements PolledConfigurationSource, WatchedConfigurationSource {
+    private static final Logger log = LoggerFactory.getLogger(DynamoDbDeploymentContextConfigurationSource.class);
+
     private final DynamoDbDeploymentContextTableCache tableCache;
     private final DeploymentContext.ContextKey contextKey;
     private final DeploymentContext deploymentContext = ConfigurationManager.getDeploymentContext();
 
+    // what was last returned by poll, and what was last pushed to the listeners
+    private final ContextView polledView = new ContextView();
+    private final ContextView pushedView = new ContextView();
+
+    private final List<WatchedUpdateListener> updateListeners = new CopyOnWriteArrayList<WatchedUpdateListener>();
+    private boolean subscribed;
+    private final DynamoDbDeploymentContextTableCache.UpdateListener cacheListener =
+            new DynamoDbDeploymentContextTableCache.UpdateListener() {
+                @Override
+                public void tableUpdated(DeploymentContextIndex index) {
+                    pushUpdate(index);
+                }
+            };
+
 
     /**
      * The configuration will be filtered based on the contextKey.
@@ -46,20 +75,146 @@ public class DynamoDbDeploymentContextConfigurationSource implements PolledConfi
         this.contextKey = contextKey;
     }
 
+    /**
+     * The first poll, or a poll without the check point of the previous one, returns the full set of properties
+     * for the context. The following polls only return the properties that changed, either in the table or
+     * because the deployment context value changed.
+     */
     @Override
     public PollResult poll(boolean initial, Object checkPoint) throws Exception {
-        Map<String, Object> map = new HashMap<String, Object>();
+        synchronized (polledView) {
+            return polledView.update(tableCache.getIndex(), !initial && polledView.isAt(checkPoint));
+        }
+    }
+
+    /**
+     * Get the current properties for the context. The next update pushed to the listeners has the changes since
+     * this data.
+     */
+    @Override
+    public Map<String, Object> getCurrentData() throws Exception {
+        synchronized (pushedView) {
+            return pushedView.update(tableCache.getIndex(), false).getComplete();
+        }
+    }
 
-        for(PropertyWithDeploymentContext prop: tableCache.getProperties()){
-            if(prop.getContextKey() == contextKey && prop.getContextValue() == null){
-                map.put(prop.getPropertyName(), prop.getPropertyValue());
+    @Override
+    public synchronized void addUpdateListener(WatchedUpdateListener l) {
+        if (l != null) {
+            updateListeners.add(l);
+        }
+        if (!subscribed) {
+            synchronized (pushedView) {
+                if (!pushedView.hasProperties()) {
+                    // nothing was read with getCurrentData, the changes are pushed from now on
+                    pushedView.update(tableCache.getIndex(), false);
+                }
             }
-            else if(prop.getContextKey() == contextKey &&
-                    prop.getContextValue().equalsIgnoreCase(deploymentContext.getValue(contextKey))){
-                map.put(prop.getPropertyName(), prop.getPropertyValue());
+            tableCache.addUpdateListener(cacheListener);
+            subscribed = true;
+        }
+    }
+
+    @Override
+    public synchronized void removeUpdateListener(WatchedUpdateListener l) {
+        if (l != null) {
+            updateListeners.remove(l);
+        }
+        if (subscribed && updateListeners.isEmpty()) {
+            tableCache.removeUpdateListener(cacheListener);
+            subscribed = false;
+        }
+    }
+
+    private void pushUpdate(DeploymentContextIndex index) {
+        if (updateListeners.isEmpty()) {
+            return;
+        }
+        // updates are pushed in order, as they are computed and delivered under the lock
+        synchronized (pushedView) {
+            PollResult result = pushedView.update(index, pushedView.hasProperties());
+            if (!result.hasChanges()) {
+                return;
+            }
+            for (WatchedUpdateListener l : updateListeners) {
+                try {
+                    l.updateConfiguration(result);
+                } catch (Throwable e) {
+                    log.error("Error in WatchedUpdateListener " + l, e);
+                }
             }
         }
+    }
+
+    /**
+     * The properties of the context in one version of the index, to tell the changes in the next version.
+     */
+    private final class ContextView {
+        private Map<String, Object> defaultGroup;
+        private Map<String, Object> contextGroup;
+        private Map<String, Object> properties;
+        private Long checkPoint;
+
+        boolean hasProperties() {
+            return properties != null;
+        }
+
+        boolean isAt(Object checkPoint) {
+            return properties != null && this.checkPoint.equals(checkPoint);
+        }
 
-        return PollResult.createFull(map);
+        /**
+         * @return the changes since the previous update if incremental, otherwise the full properties
+         */
+        PollResult update(DeploymentContextIndex index, boolean incremental) {
+            Map<String, Object> newDefaultGroup = index.getProperties(contextKey, null);
+            Map<String, Object> newContextGroup = Collections.emptyMap();
+            if (contextKey != null) {
+                String contextValue = deploymentContext.getValue(contextKey);
+                if (contextValue != null) {
+                    newContextGroup = index.getProperties(contextKey, contextValue);
+                }
+            }
+            Long newCheckPoint = index.getVersion();
+            if (incremental && newDefaultGroup == defaultGroup && newContextGroup == contextGroup) {
+                checkPoint = newCheckPoint;
+                return PollResult.createUnchanged(newCheckPoint);
+            }
+
+            Map<String, Object> map;
+            if (newContextGroup.isEmpty()) {
+                map = newDefaultGroup;
+            } else {
+                // properties for the context value override the ones for the context key alone
+                map = new HashMap<String, Object>(newDefaultGroup);
+                map.putAll(newContextGroup);
+            }
+            PollResult result = incremental ? diff(properties, map, newCheckPoint)
+                    : PollResult.createFull(new HashMap<String, Object>(map), newCheckPoint);
+            defaultGroup = newDefaultGroup;
+            contextGroup = newContextGroup;
+            properties = map;
+            checkPoint = newCheckPoint;
+            return result;
+        }
+    }
+    private static PollResult diff(Map<String, Object> previous, Map<String, Object> current, Object checkPoint) {
+        Map<String, Object> added = new HashMap<String, Object>();
+        Map<String, Object> changed = new HashMap<String, Object>();
+        Map<String, Object> deleted = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            Object previousValue = previous.get(entry.getKey());
+            if (previousValue == null) {
+                added.put(entry.getKey(), entry.getValue());
+            } else if (!previousValue.equals(entry.getValue())) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Object> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                deleted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return PollResult.createIncremental(added, changed, deleted, checkPoint);
     }
-}
\ No newline at end of file
+}
@@ -21,19 +21,16 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ScanRequest;
-import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.netflix.config.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * User: gorzell
@@ -42,6 +39,10 @@ import java.util.concurrent.TimeUnit;
  * This leverages some of the semantics of the PollingSource in order to have one place where the full table scan from
  * Dynamo is cached.  It is mean to be consumed but a number of DeploymentContext aware sources to keep them from all
  * having to load the table separately.
+ * <p>
+ * The table is polled on the {@link SharedPollingExecutor}, with the same jitter and backoff on failures as the
+ * configuration sources polled by {@link SharedPollingScheduler}. {@link UpdateListener}s are notified right after each
+ * load of the table, so that the sources reading the cache do not have to poll it.
  */
 public class DynamoDbDeploymentContextTableCache extends AbstractDynamoDbConfigurationSource<PropertyWithDeploymentContext> {
     private static Logger log = LoggerFactory.getLogger(DynamoDbDeploymentContextTableCache.class);
@@ -67,8 +68,22 @@ public class DynamoDbDeploymentContextTableCache extends AbstractDynamoDbConfigu
     private final int initialDelayMillis;
     private final int delayMillis;
 
-    private ScheduledExecutorService executor;
+    private SharedPollingExecutor.ScheduledPoll scheduledPoll;
     private volatile Map<String, PropertyWithDeploymentContext> cachedTable = new HashMap<String, PropertyWithDeploymentContext>();
+    private volatile DeploymentContextIndex index = DeploymentContextIndex.empty();
+    private final List<UpdateListener> updateListeners = new CopyOnWriteArrayList<UpdateListener>();
+
+    /**
+     * Listener notified each time the table is loaded.
+     */
+    public interface UpdateListener {
+        /**
+         * Called on the polling thread after each load of the table, whether or not it changed.
+         *
+         * @param index the index of the table just loaded
+         */
+        void tableUpdated(DeploymentContextIndex index);
+    }
 
 
     public DynamoDbDeploymentContextTableCache() {
@@ -204,48 +219,77 @@ public class DynamoDbDeploymentContextTableCache extends AbstractDynamoDbConfigu
         start();
     }
 
-    private synchronized void schedule(Runnable runnable) {
-        executor = Executors.newScheduledThreadPool(1, new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "pollingDynamoTableCache");
-                t.setDaemon(true);
-                return t;
-            }
-        });
-        executor.scheduleWithFixedDelay(runnable, initialDelayMillis, delayMillis, TimeUnit.MILLISECONDS);
+    private synchronized void schedule(Callable<Boolean> poll) {
+        scheduledPoll = SharedPollingExecutor.getInstance().schedule(poll, initialDelayMillis, delayMillis);
     }
 
     /**
      * Stop polling the source table
      */
-    public void stop() {
-        if (executor != null) {
-            executor.shutdown();
-            executor = null;
+    public synchronized void stop() {
+        if (scheduledPoll != null) {
+            scheduledPoll.cancel();
+            scheduledPoll = null;
         }
     }
 
     private void start() {
-        cachedTable = loadPropertiesFromTable(tableName.get());
-        schedule(getPollingRunnable());
+        setTable(loadPropertiesFromTable(tableName.get()));
+        schedule(getPollingTask());
     }
 
-    private Runnable getPollingRunnable() {
-        return new Runnable() {
-            public void run() {
+    private Callable<Boolean> getPollingTask() {
+        return new Callable<Boolean>() {
+            public Boolean call() {
                 log.debug("Dynamo cached polling started");
                 try {
                     Map<String, PropertyWithDeploymentContext> newMap = loadPropertiesFromTable(tableName.get());
-                    cachedTable = newMap;
+                    setTable(newMap);
+                    return true;
                 } catch (Throwable e) {
                     log.error("Error getting result from polling source", e);
-                    return;
+                    return false;
                 }
             }
         };
     }
 
+    // only the polling thread sets the table once the cache is started
+    private void setTable(Map<String, PropertyWithDeploymentContext> table) {
+        DeploymentContextIndex newIndex = DeploymentContextIndex.update(table.values(), index);
+        index = newIndex;
+        cachedTable = table;
+        for (UpdateListener l : updateListeners) {
+            try {
+                l.tableUpdated(newIndex);
+            } catch (Throwable e) {
+                log.error("Error in UpdateListener " + l, e);
+            }
+        }
+    }
+
+    /**
+     * Add a listener notified after each load of the table
+     *
+     * @param l
+     */
+    public void addUpdateListener(UpdateListener l) {
+        if (l != null) {
+            updateListeners.add(l);
+        }
+    }
+
+    /**
+     * Remove a listener added with {@link #addUpdateListener(UpdateListener)}
+     *
+     * @param l
+     */
+    public void removeUpdateListener(UpdateListener l) {
+        if (l != null) {
+            updateListeners.remove(l);
+        }
+    }
+
     /**
      * Scan the table in dynamo and create a map with the results.  In this case the map has a complex type as the value,
      * so that Deployment Context is taken into account.
@@ -256,29 +300,23 @@ public class DynamoDbDeploymentContextTableCache extends AbstractDynamoDbConfigu
     @Override
     protected Map<String, PropertyWithDeploymentContext> loadPropertiesFromTable(String table) {
         Map<String, PropertyWithDeploymentContext> propertyMap = new HashMap<String, PropertyWithDeploymentContext>();
-        Map<String, AttributeValue> lastKeysEvaluated = null;
-        do {
-            ScanRequest scanRequest = new ScanRequest()
-                    .withTableName(table)
-                    .withExclusiveStartKey(lastKeysEvaluated);
-            ScanResult result = dbScanWithThroughputBackOff(scanRequest);
-            for (Map<String, AttributeValue> item : result.getItems()) {
-                String keyVal = item.get(keyAttributeName.get()).getS();
-
-                //Need to deal with the fact that these attributes might not exist
-                DeploymentContext.ContextKey contextKey = item.containsKey(contextKeyAttributeName.get()) ? DeploymentContext.ContextKey.valueOf(item.get(contextKeyAttributeName.get()).getS()) : null;
-                String contextVal = item.containsKey(contextValueAttributeName.get()) ? item.get(contextValueAttributeName.get()).getS() : null;
-                String key = keyVal + ";" + contextKey + ";" + contextVal;
-                propertyMap.put(key,
-                        new PropertyWithDeploymentContext(
-                                contextKey,
-                                contextVal,
-                                keyVal,
-                                item.get(valueAttributeName.get()).getS()
-                        ));
-            }
-            lastKeysEvaluated = result.getLastEvaluatedKey();
-        } while (lastKeysEvaluated != null);
+        List<Map<String, AttributeValue>> items = scanTable(table, null, keyAttributeName.get(), valueAttributeName.get(),
+                contextKeyAttributeName.get(), contextValueAttributeName.get());
+        for (Map<String, AttributeValue> item : items) {
+            String keyVal = item.get(keyAttributeName.get()).getS();
+
+            //Need to deal with the fact that these attributes might not exist
+            DeploymentContext.ContextKey contextKey = item.containsKey(contextKeyAttributeName.get()) ? DeploymentContext.ContextKey.valueOf(item.get(contextKeyAttributeName.get()).getS()) : null;
+            String contextVal = item.containsKey(contextValueAttributeName.get()) ? item.get(contextValueAttributeName.get()).getS() : null;
+            String key = keyVal + ";" + contextKey + ";" + contextVal;
+            propertyMap.put(key,
+                    new PropertyWithDeploymentContext(
+                            contextKey,
+                            contextVal,
+                            keyVal,
+                            item.get(valueAttributeName.get()).getS()
+                    ));
+        }
         return propertyMap;
     }
 
@@ -290,4 +328,14 @@ public class DynamoDbDeploymentContextTableCache extends AbstractDynamoDbConfigu
     public Collection<PropertyWithDeploymentContext> getProperties() {
         return cachedTable.values();
     }
+
+    /**
+     * Get the current values in the cache, indexed by deployment context. The index is built once each time
+     * the table is loaded, and is the same instance as long as no property changes.
+     *
+     * @return the index of the current values
+     */
+    public DeploymentContextIndex getIndex() {
+        return index;
+    }
 }
@@ -9,13 +9,12 @@ import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.netflix.config.PollResult;
 import com.netflix.config.PolledConfigurationSource;
+import com.netflix.config.util.PropertiesParser;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Properties;
 
 /**
  * A polled configuration source backed by a file on Amazon S3.
@@ -28,6 +27,10 @@ import java.util.Properties;
  * {@link java.util.Properties#load(InputStream)} for the obvious reasons
  * (file not found, bad credentials, no network connection, malformed file...)
  *
+ * The check point of each {@link PollResult} is the ETag of the object that was read.
+ * When it is passed back on the next poll, the object is only downloaded if its ETag
+ * has changed, otherwise an unchanged result is returned.
+ *
  * @author Michael Tandy
  */
 public class S3ConfigurationSource implements PolledConfigurationSource {
@@ -63,13 +66,20 @@ public class S3ConfigurationSource implements PolledConfigurationSource {
     @Override
     public PollResult poll(boolean initial, Object checkPoint) throws IOException, AmazonServiceException {
         GetObjectRequest s3request = new GetObjectRequest(bucketName, key);
+        if (!initial && checkPoint instanceof String) {
+            s3request.setNonmatchingETagConstraints(Collections.singletonList((String) checkPoint));
+        }
         InputStream is = null;
         try {
 
             S3Object result = client.getObject(s3request);
+            if (result == null) {
+                // the ETag constraint was not met, i.e. the object has not changed
+                return PollResult.createUnchanged(checkPoint);
+            }
             is = result.getObjectContent();
             Map<String,Object> resultMap = inputStreamToMap(is);
-            return PollResult.createFull(resultMap);
+            return PollResult.createFull(resultMap, result.getObjectMetadata().getETag());
 
         } finally {
             if (is!=null) is.close();
@@ -78,13 +88,8 @@ public class S3ConfigurationSource implements PolledConfigurationSource {
 
     protected Map<String,Object> inputStreamToMap(InputStream is) throws IOException {
         // Copied from URLConfigurationSource so behaviour is consistent.
-        URLConfigurationSource u;
-        Map<String, Object> map = new HashMap<String, Object>();
-        Properties props = new Properties();
-        props.load(is);
-        for (Entry<Object, Object> entry : props.entrySet()) {
-            map.put((String) entry.getKey(), entry.getValue());
-        }
+        // Parsed as they are read, with the ISO 8859-1 encoding of Properties.load(InputStream)
+        Map<String, Object> map = PropertiesParser.parseToMap(new InputStreamReader(is, "ISO-8859-1"));
         return Collections.unmodifiableMap(map);
     }
 
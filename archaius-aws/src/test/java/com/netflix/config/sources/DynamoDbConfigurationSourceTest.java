@@ -16,14 +16,31 @@
 package com.netflix.config.sources;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.netflix.config.ConfigurationManager;
 import com.netflix.config.PollResult;
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -66,4 +83,111 @@ public class DynamoDbConfigurationSourceTest {
         assertEquals("foo", result.getComplete().get("goo"));
         assertEquals("who", result.getComplete().get("boo"));
     }
+
+    @After
+    public void clearProperties() {
+        ConfigurationManager.getConfigInstance().clearProperty(AbstractDynamoDbConfigurationSource.scanTotalSegmentsPropertyName);
+        ConfigurationManager.getConfigInstance().clearProperty(DynamoDbConfigurationSource.updatedAtAttributePropertyName);
+        ConfigurationManager.getConfigInstance().clearProperty(DynamoDbConfigurationSource.fullPollIntervalPropertyName);
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        AmazonDynamoDB mockBasicDbClient = mock(AmazonDynamoDB.class);
+        when(mockBasicDbClient.scan(any(ScanRequest.class))).thenReturn(DynamoDbMocks.basicScanResult1);
+
+        new DynamoDbConfigurationSource(mockBasicDbClient).poll(true, null);
+        ArgumentCaptor<ScanRequest> request = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(mockBasicDbClient).scan(request.capture());
+        assertEquals(Arrays.asList("key", "value"), request.getValue().getAttributesToGet());
+        assertNull(request.getValue().getSegment());
+        assertNull(request.getValue().getScanFilter());
+    }
+
+    @Test
+    public void testParallelScan() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty(AbstractDynamoDbConfigurationSource.scanTotalSegmentsPropertyName, 3);
+        final List<ScanRequest> requests = new ArrayList<ScanRequest>();
+        AmazonDynamoDB mockBasicDbClient = mock(AmazonDynamoDB.class);
+        when(mockBasicDbClient.scan(any(ScanRequest.class))).thenAnswer(new Answer<ScanResult>() {
+            @Override
+            public ScanResult answer(InvocationOnMock invocation) {
+                ScanRequest request = (ScanRequest) invocation.getArguments()[0];
+                synchronized (requests) {
+                    requests.add(request);
+                }
+                int segment = request.getSegment();
+                if (segment == 0 && request.getExclusiveStartKey() == null) {
+                    // the first segment has two pages
+                    return new ScanResult().withItems(item("a", "1", null))
+                            .withLastEvaluatedKey(item("a", "1", null));
+                }
+                return new ScanResult().withItems(item("s" + segment, String.valueOf(segment), null));
+            }
+        });
+
+        PollResult result = new DynamoDbConfigurationSource(mockBasicDbClient).poll(true, null);
+        assertEquals(4, result.getComplete().size());
+        assertEquals("1", result.getComplete().get("a"));
+        assertEquals("0", result.getComplete().get("s0"));
+        assertEquals("1", result.getComplete().get("s1"));
+        assertEquals("2", result.getComplete().get("s2"));
+        assertEquals(4, requests.size());
+        for (ScanRequest request : requests) {
+            assertEquals(Integer.valueOf(3), request.getTotalSegments());
+        }
+    }
+
+    @Test
+    public void testIncrementalPoll() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty(DynamoDbConfigurationSource.updatedAtAttributePropertyName, "updatedAt");
+        ConfigurationManager.getConfigInstance().setProperty(DynamoDbConfigurationSource.fullPollIntervalPropertyName, 3);
+        AmazonDynamoDB mockBasicDbClient = mock(AmazonDynamoDB.class);
+        when(mockBasicDbClient.scan(any(ScanRequest.class))).thenReturn(
+                new ScanResult().withItems(item("foo", "bar", "100"), item("goo", "goo", "200")),
+                new ScanResult().withItems(item("goo", "foo", "300")),
+                new ScanResult().withItems(),
+                new ScanResult().withItems(item("goo", "foo", "300")));
+        DynamoDbConfigurationSource testConfigSource = new DynamoDbConfigurationSource(mockBasicDbClient);
+
+        PollResult result = testConfigSource.poll(true, null);
+        assertFalse(result.isIncremental());
+        assertEquals(2, result.getComplete().size());
+        assertEquals(200L, result.getCheckPoint());
+
+        result = testConfigSource.poll(false, result.getCheckPoint());
+        assertTrue(result.isIncremental());
+        assertEquals(1, result.getChanged().size());
+        assertEquals("foo", result.getChanged().get("goo"));
+        assertEquals(300L, result.getCheckPoint());
+
+        result = testConfigSource.poll(false, result.getCheckPoint());
+        assertTrue(result.isIncremental());
+        assertFalse(result.hasChanges());
+        assertEquals(300L, result.getCheckPoint());
+
+        // the third poll since the last full one reads the whole table, which no longer has foo
+        result = testConfigSource.poll(false, result.getCheckPoint());
+        assertFalse(result.isIncremental());
+        assertEquals(1, result.getComplete().size());
+
+        ArgumentCaptor<ScanRequest> requests = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(mockBasicDbClient, times(4)).scan(requests.capture());
+        assertNull(requests.getAllValues().get(0).getScanFilter());
+        Condition condition = requests.getAllValues().get(1).getScanFilter().get("updatedAt");
+        assertEquals(ComparisonOperator.GE.toString(), condition.getComparisonOperator());
+        assertEquals("200", condition.getAttributeValueList().get(0).getN());
+        assertEquals(Arrays.asList("key", "value", "updatedAt"), requests.getAllValues().get(1).getAttributesToGet());
+        assertNull(requests.getAllValues().get(3).getScanFilter());
+    }
+
+    private static Map<String, AttributeValue> item(String key, String value, String updatedAt) {
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put(DynamoDbMocks.defaultKeyAttribute, new AttributeValue().withS(key));
+        item.put(DynamoDbMocks.defaultValueAttribute, new AttributeValue().withS(value));
+        if (updatedAt != null) {
+            item.put("updatedAt", new AttributeValue().withN(updatedAt));
+        }
+        return item;
+    }
 }
@@ -20,6 +20,10 @@ import com.netflix.config.ConfigurationManager;
 import com.netflix.config.DeploymentContext;
 import com.netflix.config.PollResult;
 import com.netflix.config.PropertyWithDeploymentContext;
+import com.netflix.config.WatchedUpdateListener;
+import com.netflix.config.WatchedUpdateResult;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -28,8 +32,15 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -65,7 +76,8 @@ public class DynamoDbDeploymentContextConfigurationSourceTest {
     @Test
     public void testPoll() throws Exception {
         DynamoDbDeploymentContextTableCache mockedCache = mock(DynamoDbDeploymentContextTableCache.class);
-        when(mockedCache.getProperties()).thenReturn(propCollection1, propCollection2);
+        DeploymentContextIndex index1 = DeploymentContextIndex.update(propCollection1, DeploymentContextIndex.empty());
+        when(mockedCache.getIndex()).thenReturn(index1, DeploymentContextIndex.update(propCollection2, index1));
 
         DynamoDbDeploymentContextConfigurationSource testConfigSource =
                 new DynamoDbDeploymentContextConfigurationSource(mockedCache, DeploymentContext.ContextKey.environment);
@@ -82,4 +94,78 @@ public class DynamoDbDeploymentContextConfigurationSourceTest {
         assertEquals(result.getComplete().get("goo"), "boo");
         assertEquals(result.getComplete().get("boo"), "who");
     }
+
+    @Test
+    public void testIncrementalPoll() throws Exception {
+        DeploymentContextIndex index1 = DeploymentContextIndex.update(propCollection1, DeploymentContextIndex.empty());
+        DeploymentContextIndex index2 = DeploymentContextIndex.update(propCollection2, index1);
+        assertSame(index2, DeploymentContextIndex.update(propCollection2, index2));
+        assertSame(index1.getProperties(DeploymentContext.ContextKey.environment, null),
+                index2.getProperties(DeploymentContext.ContextKey.environment, null));
+
+        DynamoDbDeploymentContextTableCache mockedCache = mock(DynamoDbDeploymentContextTableCache.class);
+        when(mockedCache.getIndex()).thenReturn(index1, index2, index2, index2);
+        DynamoDbDeploymentContextConfigurationSource testConfigSource =
+                new DynamoDbDeploymentContextConfigurationSource(mockedCache, DeploymentContext.ContextKey.environment);
+
+        PollResult result = testConfigSource.poll(true, null);
+        assertEquals(3, result.getComplete().size());
+
+        result = testConfigSource.poll(false, result.getCheckPoint());
+        assertTrue(result.isIncremental());
+        assertEquals(0, result.getAdded().size());
+        assertEquals(1, result.getChanged().size());
+        assertEquals("boo", result.getChanged().get("goo"));
+        assertEquals(0, result.getDeleted().size());
+
+        result = testConfigSource.poll(false, result.getCheckPoint());
+        assertFalse(result.hasChanges());
+
+        ConfigurationManager.getConfigInstance().setProperty(ConfigurationBasedDeploymentContext.DEPLOYMENT_ENVIRONMENT_PROPERTY, "PROD");
+        try {
+            result = testConfigSource.poll(false, result.getCheckPoint());
+            assertTrue(result.isIncremental());
+            assertEquals(1, result.getChanged().size());
+            assertEquals("foo", result.getChanged().get("goo"));
+            assertEquals(2, result.getDeleted().size());
+        } finally {
+            ConfigurationManager.getConfigInstance().setProperty(ConfigurationBasedDeploymentContext.DEPLOYMENT_ENVIRONMENT_PROPERTY, "test");
+        }
+    }
+
+    @Test
+    public void testPushedUpdates() throws Exception {
+        AmazonDynamoDB mockContextDbClient = mock(AmazonDynamoDB.class);
+        when(mockContextDbClient.scan(any(ScanRequest.class))).thenReturn(DynamoDbMocks.contextScanResult1,
+                DynamoDbMocks.contextScanResult2);
+        DynamoDbDeploymentContextTableCache cache = new DynamoDbDeploymentContextTableCache(mockContextDbClient, 100, 100);
+        try {
+            DynamoDbDeploymentContextConfigurationSource testConfigSource =
+                    new DynamoDbDeploymentContextConfigurationSource(cache, DeploymentContext.ContextKey.environment);
+            Map<String, Object> data = testConfigSource.getCurrentData();
+            assertEquals(3, data.size());
+            assertEquals("goo", data.get("goo"));
+
+            final BlockingQueue<WatchedUpdateResult> results = new LinkedBlockingQueue<WatchedUpdateResult>();
+            testConfigSource.addUpdateListener(new WatchedUpdateListener() {
+                @Override
+                public void updateConfiguration(WatchedUpdateResult result) {
+                    results.add(result);
+                }
+            });
+
+            // the second load of the table changes goo for the test environment
+            WatchedUpdateResult result = results.poll(5, TimeUnit.SECONDS);
+            assertTrue(result.isIncremental());
+            assertEquals(0, result.getAdded().size());
+            assertEquals(1, result.getChanged().size());
+            assertEquals("foo", result.getChanged().get("goo"));
+            assertEquals(0, result.getDeleted().size());
+
+            // the following loads do not change the table
+            assertNull(results.poll(300, TimeUnit.MILLISECONDS));
+        } finally {
+            cache.stop();
+        }
+    }
 }
@@ -56,6 +56,20 @@ public class S3ConfigurationSourceTest {
         assertEquals(1,result.getComplete().size());
     }
 
+    @Test
+    public void testPoll_unchangedWhenETagMatches() throws Exception {
+        S3ConfigurationSource instance = new S3ConfigurationSource(client, "bucketname", "standard-key.txt");
+        PollResult result = instance.poll(true, CHECK_POINT);
+        assertEquals("TEST-ETAG", result.getCheckPoint());
+
+        PollResult unchanged = instance.poll(INITIAL, result.getCheckPoint());
+        assertFalse(unchanged.hasChanges());
+        assertEquals("TEST-ETAG", unchanged.getCheckPoint());
+
+        PollResult changed = instance.poll(INITIAL, "OTHER-ETAG");
+        assertEquals("true", changed.getComplete().get("loaded"));
+    }
+
     @Test(expected=AmazonServiceException.class)
     public void testPoll_fileNotFound() throws Exception {
         S3ConfigurationSource instance = new S3ConfigurationSource(client, "bucketname", "404.txt");
@@ -73,6 +87,12 @@ public class S3ConfigurationSourceTest {
         // create and register our handler
         httpServer.createContext("/bucketname/standard-key.txt",new HttpHandler() {
             public void handle(HttpExchange exchange) throws IOException {
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                if (ifNoneMatch != null && ifNoneMatch.contains("TEST-ETAG")) {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                    exchange.close();
+                    return;
+                }
                 byte[] response = "loaded=true".getBytes("UTF-8");
                     // RFC 2616 says HTTP headers are case-insensitive - but the
                 // Amazon S3 client will crash if ETag has a different
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.ChainedDynamicProperty;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.config.DynamicIntProperty;
+
+/**
+ * Lookups through a three level {@link ChainedDynamicProperty.IntProperty} chain
+ * where the value comes from the head, the middle or the default at the end of the chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainedDynamicPropertyBenchmark {
+
+    private ChainedDynamicProperty.IntProperty headValue;
+    private ChainedDynamicProperty.IntProperty middleValue;
+    private ChainedDynamicProperty.IntProperty defaultValue;
+
+    @Setup
+    public void setup() {
+        ConfigurationManager.getConfigInstance().setProperty("benchmark.chained.head.client.timeout", "1");
+        ConfigurationManager.getConfigInstance().setProperty("benchmark.chained.middle.timeout", "2");
+        headValue = chain("benchmark.chained.head");
+        middleValue = chain("benchmark.chained.middle");
+        defaultValue = chain("benchmark.chained.default");
+    }
+
+    private static ChainedDynamicProperty.IntProperty chain(String prefix) {
+        ChainedDynamicProperty.IntProperty root = new ChainedDynamicProperty.IntProperty(
+                new DynamicIntProperty(prefix + ".default.timeout", 3));
+        ChainedDynamicProperty.IntProperty middle = new ChainedDynamicProperty.IntProperty(
+                prefix + ".timeout", root);
+        return new ChainedDynamicProperty.IntProperty(prefix + ".client.timeout", middle);
+    }
+
+    @Benchmark
+    public Integer valueFromHead() {
+        return headValue.get();
+    }
+
+    @Benchmark
+    public Integer valueFromMiddle() {
+        return middleValue.get();
+    }
+
+    @Benchmark
+    public Integer valueFromDefault() {
+        return defaultValue.get();
+    }
+}
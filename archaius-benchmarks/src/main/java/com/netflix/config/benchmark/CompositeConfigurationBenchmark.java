@@ -0,0 +1,91 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.ConcurrentCompositeConfiguration;
+import com.netflix.config.ConcurrentMapConfiguration;
+
+/**
+ * {@link ConcurrentCompositeConfiguration#getProperty(String)} with a growing number of
+ * child configurations, for keys defined in the first child, the last child and nowhere,
+ * with and without the resolved value index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositeConfigurationBenchmark {
+
+    private static final int KEYS_PER_CONFIGURATION = 1000;
+
+    @Param({"5", "20", "50"})
+    public int configurations;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private ConcurrentCompositeConfiguration composite;
+    private String firstKey;
+    private String lastKey;
+    private String missingKey;
+
+    @Setup
+    public void setup() {
+        composite = new ConcurrentCompositeConfiguration();
+        for (int i = 0; i < configurations; i++) {
+            ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+            for (int j = 0; j < KEYS_PER_CONFIGURATION; j++) {
+                config.setProperty("config" + i + ".key" + j, "value" + j);
+            }
+            composite.addConfiguration(config, "config" + i);
+        }
+        composite.setResolvedValueIndexEnabled(indexed);
+        firstKey = "config0.key1";
+        lastKey = "config" + (configurations - 1) + ".key1";
+        missingKey = "config.missing.key";
+    }
+
+    @Benchmark
+    public Object hitInFirstConfiguration() {
+        return composite.getProperty(firstKey);
+    }
+
+    @Benchmark
+    public Object hitInLastConfiguration() {
+        return composite.getProperty(lastKey);
+    }
+
+    @Benchmark
+    public Object miss() {
+        return composite.getProperty(missingKey);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import com.netflix.config.CompactMapConfiguration;
+import com.netflix.config.ConcurrentMapConfiguration;
+
+/**
+ * Heap footprint of {@link ConcurrentMapConfiguration} against {@link CompactMapConfiguration}, loaded with
+ * properties that look like feature flags and per customer overrides. This is not a JMH benchmark, as it
+ * measures retained heap rather than time:
+ *
+ * <pre>
+ * java -cp ... com.netflix.config.benchmark.ConfigurationFootprint [properties]
+ * </pre>
+ */
+public class ConfigurationFootprint {
+
+    public static void main(String[] args) {
+        int properties = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        // warm up, then measure
+        measure(new ConcurrentMapConfiguration(), 1000);
+        measure(new CompactMapConfiguration(), 1000);
+        long concurrent = measure(new ConcurrentMapConfiguration(), properties);
+        long compact = measure(new CompactMapConfiguration(), properties);
+        System.out.println("Properties: " + properties);
+        System.out.println("ConcurrentMapConfiguration: " + concurrent / 1024 + " KB ("
+                + concurrent / properties + " bytes/property)");
+        System.out.println("CompactMapConfiguration:    " + compact / 1024 + " KB ("
+                + compact / properties + " bytes/property)");
+        System.out.println("Ratio: " + String.format("%.2f", (double) compact / concurrent));
+    }
+
+    private static long measure(ConcurrentMapConfiguration config, int properties) {
+        long before = usedHeap();
+        for (int i = 0; i < properties; i++) {
+            String key;
+            String value;
+            switch (i % 3) {
+            case 0:
+                key = "feature.flags.service" + (i % 97) + ".experiment" + i + ".enabled";
+                value = (i % 2 == 0) ? "true" : "false";
+                break;
+            case 1:
+                key = "customer.overrides.customer" + i + ".rateLimit.requestsPerSecond";
+                value = String.valueOf(i % 1000);
+                break;
+            default:
+                key = "service" + (i % 97) + ".endpoint" + i + ".url";
+                value = "https://service" + (i % 97) + ".example.com/api/v1/endpoint" + i;
+            }
+            // copy the strings so that the ConcurrentMapConfiguration does not share literals
+            config.setProperty(new String(key), new String(value));
+        }
+        long after = usedHeap();
+        if (config.getProperty("service2.endpoint2.url") == null) {
+            throw new IllegalStateException("configuration not loaded");
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
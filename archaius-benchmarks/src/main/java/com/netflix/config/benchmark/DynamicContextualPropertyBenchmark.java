@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.config.DynamicContextualProperty;
+
+/**
+ * {@link DynamicContextualProperty#getValue()} with a rule set where the matching rule
+ * is the first one, the last conditional one, or none (falls through to the default rule).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicContextualPropertyBenchmark {
+
+    private static final String RULES = "["
+            + "{\"if\":{\"@environment\":[\"prod\"],\"@region\":[\"us-east-1\"]},\"value\":1},"
+            + "{\"if\":{\"@environment\":[\"prod\"],\"@region\":[\"us-west-2\"]},\"value\":2},"
+            + "{\"if\":{\"@environment\":[\"prod\"],\"@region\":[\"eu-west-1\"]},\"value\":3},"
+            + "{\"if\":{\"@environment\":[\"test\",\"dev\"]},\"value\":4},"
+            + "{\"value\":5}"
+            + "]";
+
+    private DynamicContextualProperty<Integer> firstMatch;
+    private DynamicContextualProperty<Integer> lastMatch;
+    private DynamicContextualProperty<Integer> defaultMatch;
+
+    @Setup
+    public void setup() {
+        ConfigurationManager.getConfigInstance().setProperty("@environment", "prod");
+        ConfigurationManager.getConfigInstance().setProperty("@region", "us-east-1");
+        ConfigurationManager.getConfigInstance().setProperty("@benchEnvironment", "dev");
+        ConfigurationManager.getConfigInstance().setProperty("@benchRegion", "ap-south-1");
+        ConfigurationManager.getConfigInstance().setProperty("benchmark.contextual.first", RULES);
+        ConfigurationManager.getConfigInstance().setProperty("benchmark.contextual.last",
+                RULES.replace("@environment", "@benchEnvironment").replace("@region", "@benchRegion"));
+        ConfigurationManager.getConfigInstance().setProperty("benchmark.contextual.default",
+                RULES.replace("@environment", "@benchRegion").replace("@region", "@benchEnvironment"));
+        firstMatch = new DynamicContextualProperty<Integer>("benchmark.contextual.first", 0);
+        lastMatch = new DynamicContextualProperty<Integer>("benchmark.contextual.last", 0);
+        defaultMatch = new DynamicContextualProperty<Integer>("benchmark.contextual.default", 0);
+    }
+
+    @Benchmark
+    public Integer firstRuleMatches() {
+        return firstMatch.getValue();
+    }
+
+    @Benchmark
+    public Integer lastRuleMatches() {
+        return lastMatch.getValue();
+    }
+
+    @Benchmark
+    public Integer defaultRuleMatches() {
+        return defaultMatch.getValue();
+    }
+}
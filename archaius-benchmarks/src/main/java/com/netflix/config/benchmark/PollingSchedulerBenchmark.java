@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.AbstractPollingScheduler;
+import com.netflix.config.ConcurrentMapConfiguration;
+import com.netflix.config.PollResult;
+
+/**
+ * Applying full {@link PollResult}s with {@link AbstractPollingScheduler#populateProperties(PollResult,
+ * org.apache.commons.configuration.Configuration)}, both when nothing changed since the last poll
+ * and when one percent of the keys changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PollingSchedulerBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int keys;
+
+    private BenchmarkScheduler scheduler;
+    private ConcurrentMapConfiguration config;
+    private PollResult unchanged;
+    private PollResult[] changed;
+    private int round;
+
+    /**
+     * Exposes {@link AbstractPollingScheduler#populateProperties} without scheduling anything.
+     */
+    private static class BenchmarkScheduler extends AbstractPollingScheduler {
+        void apply(PollResult result, ConcurrentMapConfiguration config) {
+            populateProperties(result, config);
+        }
+
+        @Override
+        protected void schedule(Runnable pollingRunnable) {
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scheduler = new BenchmarkScheduler();
+        config = new ConcurrentMapConfiguration();
+        Map<String, Object> content = snapshot(0);
+        unchanged = PollResult.createFull(content);
+        scheduler.apply(unchanged, config);
+        // alternate between two snapshots that differ in one percent of the keys
+        changed = new PollResult[] { PollResult.createFull(snapshot(1)), PollResult.createFull(snapshot(0)) };
+    }
+
+    private Map<String, Object> snapshot(int generation) {
+        Map<String, Object> content = new HashMap<String, Object>(keys * 2);
+        for (int i = 0; i < keys; i++) {
+            String value = (i % 100 == 0) ? "value" + i + "." + generation : "value" + i;
+            content.put("source.key" + i, value);
+        }
+        return content;
+    }
+
+    @Benchmark
+    public ConcurrentMapConfiguration unchangedPoll() {
+        scheduler.apply(unchanged, config);
+        return config;
+    }
+
+    @Benchmark
+    public ConcurrentMapConfiguration onePercentChangedPoll() {
+        scheduler.apply(changed[round++ & 1], config);
+        return config;
+    }
+}
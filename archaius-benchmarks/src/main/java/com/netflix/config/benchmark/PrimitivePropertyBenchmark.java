@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.CachedDynamicBooleanProperty;
+import com.netflix.config.CachedDynamicDoubleProperty;
+import com.netflix.config.CachedDynamicFloatProperty;
+import com.netflix.config.CachedDynamicIntProperty;
+import com.netflix.config.CachedDynamicLongProperty;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.config.DynamicByteSizeProperty;
+import com.netflix.config.DynamicDurationProperty;
+
+/**
+ * Allocation of the primitive properties. Run with the gc profiler (the default of the
+ * <code>jmh</code> task): <code>gc.alloc.rate.norm</code> of every <code>get</code> benchmark is expected
+ * to be 0 B/op. The <code>update</code> benchmark shows the cost of changing a value that is read
+ * by all the properties, including the parse into the cached primitives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitivePropertyBenchmark {
+
+    private static final String NUMBER_PROP = "benchmark.primitive.number";
+    private static final String BOOLEAN_PROP = "benchmark.primitive.boolean";
+    private static final String DURATION_PROP = "benchmark.primitive.duration";
+    private static final String SIZE_PROP = "benchmark.primitive.size";
+
+    private CachedDynamicIntProperty intProperty;
+    private CachedDynamicLongProperty longProperty;
+    private CachedDynamicDoubleProperty doubleProperty;
+    private CachedDynamicFloatProperty floatProperty;
+    private CachedDynamicBooleanProperty booleanProperty;
+    private DynamicDurationProperty durationProperty;
+    private DynamicByteSizeProperty byteSizeProperty;
+
+    private final String[] numbers = { "1", "22", "333", "4444" };
+    private int counter;
+
+    @Setup
+    public void setup() {
+        ConfigurationManager.getConfigInstance().setProperty(NUMBER_PROP, "42");
+        ConfigurationManager.getConfigInstance().setProperty(BOOLEAN_PROP, "true");
+        ConfigurationManager.getConfigInstance().setProperty(DURATION_PROP, "30s");
+        ConfigurationManager.getConfigInstance().setProperty(SIZE_PROP, "64k");
+        intProperty = new CachedDynamicIntProperty(NUMBER_PROP, 0);
+        longProperty = new CachedDynamicLongProperty(NUMBER_PROP, 0L);
+        doubleProperty = new CachedDynamicDoubleProperty(NUMBER_PROP, 0d);
+        floatProperty = new CachedDynamicFloatProperty(NUMBER_PROP, 0f);
+        booleanProperty = new CachedDynamicBooleanProperty(BOOLEAN_PROP, false);
+        durationProperty = new DynamicDurationProperty(DURATION_PROP, 0, TimeUnit.MILLISECONDS);
+        byteSizeProperty = new DynamicByteSizeProperty(SIZE_PROP, 0);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return intProperty.get();
+    }
+
+    @Benchmark
+    public long getLong() {
+        return longProperty.get();
+    }
+
+    @Benchmark
+    public double getDouble() {
+        return doubleProperty.get();
+    }
+
+    @Benchmark
+    public float getFloat() {
+        return floatProperty.get();
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return booleanProperty.get();
+    }
+
+    @Benchmark
+    public long getDuration() {
+        return durationProperty.get();
+    }
+
+    @Benchmark
+    public long getByteSize() {
+        return byteSizeProperty.get();
+    }
+
+    @Benchmark
+    public long update() {
+        ConfigurationManager.getConfigInstance().setProperty(NUMBER_PROP, numbers[counter++ & 3]);
+        return intProperty.get() + longProperty.get();
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.util.ConfigurationUtils;
+import com.netflix.config.util.PropertiesParser;
+
+/**
+ * Loading a generated properties file into a map with {@link PropertiesParser}, compared with
+ * {@link Properties#load(java.io.Reader)} followed by a copy into a map as the polled sources used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PropertiesParserBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keys;
+
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys; i++) {
+            if (i % 100 == 0) {
+                sb.append("# section ").append(i / 100).append('\n');
+            }
+            sb.append("com.netflix.generated.service").append(i % 50).append(".property").append(i)
+                    .append(" = value-").append(i).append(" with some text\\u00e9 \\\n    continued\n");
+        }
+        content = sb.toString().getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public Map<String, Object> propertiesLoad() throws IOException {
+        Properties props = ConfigurationUtils.loadPropertiesFromInputStream(new ByteArrayInputStream(content));
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (Map.Entry<Object, Object> entry : props.entrySet()) {
+            map.put((String) entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, Object> propertiesParser() throws IOException {
+        return ConfigurationUtils.loadPropertiesMapFromInputStream(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.config.CachedDynamicIntProperty;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.config.DynamicIntProperty;
+import com.netflix.config.DynamicProperty;
+
+/**
+ * Read path of the typed properties: {@link DynamicIntProperty#get()} against
+ * {@link CachedDynamicIntProperty#get()}, and typed reads of a {@link DynamicProperty}
+ * while another thread keeps updating its value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyReadBenchmark {
+
+    private static final String INT_PROP = "benchmark.read.int";
+    private static final String CONTENDED_PROP = "benchmark.read.contended";
+
+    private DynamicIntProperty intProperty;
+    private CachedDynamicIntProperty cachedIntProperty;
+    private DynamicProperty contendedProperty;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        ConfigurationManager.getConfigInstance().setProperty(INT_PROP, "42");
+        ConfigurationManager.getConfigInstance().setProperty(CONTENDED_PROP, "0");
+        intProperty = new DynamicIntProperty(INT_PROP, 0);
+        cachedIntProperty = new CachedDynamicIntProperty(INT_PROP, 0);
+        contendedProperty = DynamicProperty.getInstance(CONTENDED_PROP);
+    }
+
+    @Benchmark
+    public int dynamicIntProperty() {
+        return intProperty.get();
+    }
+
+    @Benchmark
+    public int cachedDynamicIntProperty() {
+        return cachedIntProperty.get();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public long contendedRead() {
+        return contendedProperty.getInteger(-1).intValue() + contendedProperty.getLong(-1L).longValue();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedUpdate() {
+        ConfigurationManager.getConfigInstance().setProperty(CONTENDED_PROP, String.valueOf(counter++));
+    }
+}
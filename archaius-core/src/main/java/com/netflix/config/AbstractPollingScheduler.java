@@ -15,11 +15,13 @@
  */
 package com.netflix.config;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.configuration.Configuration;
@@ -44,6 +46,15 @@ public abstract class AbstractPollingScheduler {
     private volatile Object checkPoint;
     private static Logger log = LoggerFactory.getLogger(AbstractPollingScheduler.class);
     private DynamicPropertyUpdater propertyUpdater = new DynamicPropertyUpdater();
+
+    /*
+     * Content of the last full result applied and the configuration it was applied to.
+     * The values are the same objects that were set in the configuration, so keeping
+     * them costs little more than the map entries.
+     */
+    private final Object snapshotLock = new Object();
+    private HashMap<String, Object> lastAppliedSnapshot = new HashMap<String, Object>();
+    private Configuration lastAppliedConfig;
     
     /**
      * @param ignoreDeletesFromSource true if deletes happened in the configuration source should be ignored 
@@ -90,11 +101,17 @@ public abstract class AbstractPollingScheduler {
     
     /**
      * Apply the polled result to the configuration.
-     * If the polled result is full result from source, each property in the result is either added to set 
-     * to the configuration, and any property that is in the configuration but not in the result is deleted if ignoreDeletesFromSource
-     * is false. If the polled result is incremental, properties added and changed in the partial result 
+     * If the polled result is full result from source, it is compared with the last full result applied to
+     * the configuration and only the difference is applied: properties that are new or whose value changed
+     * are either added or set to the configuration, and properties that were in the last result but not in
+     * this one are deleted if ignoreDeletesFromSource is false. A result identical to the last one is
+     * detected in a single pass and leaves the configuration untouched. Note that properties changed directly in
+     * the configuration are not reverted by a full result unless their value in the source changed.
+     * If the polled result is incremental, properties added and changed in the partial result 
      * are set with the configuration, and deleted properties are deleted form configuration if ignoreDeletesFromSource
      * is false.
+     * <p>
+     * After the result is applied, {@link PollListener}s receive a {@link EventType#POLL_APPLIED} event.
      * 
      * @param result Polled result from source
      */
@@ -107,42 +124,91 @@ public abstract class AbstractPollingScheduler {
             if (props == null) {
                 return;
             }
-            for (Entry<String, Object> entry: props.entrySet()) {
-                propertyUpdater.addOrChangeProperty(entry.getKey(), entry.getValue(), config);
-            }
-            HashSet<String> existingKeys = new HashSet<String>();
-            for (Iterator<String> i = config.getKeys(); i.hasNext();) {
-                existingKeys.add(i.next());
-            }
-            if (!ignoreDeletesFromSource) {
-                for (String key: existingKeys) {
-                    if (!props.containsKey(key)) {
-                        propertyUpdater.deleteProperty(key, config);
-                    }
-                }
+            PollResult applied;
+            synchronized (snapshotLock) {
+                applied = diffWithLastApplied(props, config, result.getCheckPoint());
+                Map<String, Object> toSet = new HashMap<String, Object>(applied.getAdded());
+                toSet.putAll(applied.getChanged());
+                Set<String> deleted = applied.getDeleted().keySet();
+                propertyUpdater.applyChanges(toSet, ignoreDeletesFromSource ? Collections.<String>emptySet() : deleted, config);
+                lastAppliedSnapshot.putAll(toSet);
+                lastAppliedSnapshot.keySet().removeAll(deleted);
             }
+            fireEvent(EventType.POLL_APPLIED, applied, null);
         } else {
-            Map<String, Object> props = result.getAdded();
-            if (props != null) {
-                for (Entry<String, Object> entry: props.entrySet()) {
-                    propertyUpdater.addOrChangeProperty(entry.getKey(), entry.getValue(), config);
+            synchronized (snapshotLock) {
+                Map<String, Object> toSet = new HashMap<String, Object>();
+                if (result.getAdded() != null) {
+                    toSet.putAll(result.getAdded());
+                }
+                if (result.getChanged() != null) {
+                    toSet.putAll(result.getChanged());
+                }
+                Set<String> deleted = (result.getDeleted() == null)
+                        ? Collections.<String>emptySet() : result.getDeleted().keySet();
+                propertyUpdater.applyChanges(toSet, ignoreDeletesFromSource ? Collections.<String>emptySet() : deleted, config);
+                // keep the snapshot in line so that a later full result is diffed correctly
+                if (lastAppliedConfig == config) {
+                    lastAppliedSnapshot.putAll(toSet);
+                    lastAppliedSnapshot.keySet().removeAll(deleted);
                 }
             }
-            props = result.getChanged();
-            if (props != null) {
-                for (Entry<String, Object> entry: props.entrySet()) {
-                    propertyUpdater.addOrChangeProperty(entry.getKey(), entry.getValue(), config);
+            fireEvent(EventType.POLL_APPLIED, result, null);
+        }
+    }
+
+    /**
+     * Compute the difference between a full result and the last full result applied.
+     * Must be called with snapshotLock held.
+     *
+     * @return incremental result with the added, changed and deleted properties
+     */
+    private PollResult diffWithLastApplied(Map<String, Object> props, Configuration config, Object checkPoint) {
+        if (lastAppliedConfig != config) {
+            // never applied to this configuration: compare with its current content instead
+            lastAppliedSnapshot = new HashMap<String, Object>();
+            for (Iterator<String> i = config.getKeys(); i.hasNext();) {
+                String key = i.next();
+                lastAppliedSnapshot.put(key, config.getProperty(key));
+            }
+            lastAppliedConfig = config;
+        }
+        Map<String, Object> added = null;
+        Map<String, Object> changed = null;
+        Map<String, Object> deleted = null;
+        for (Entry<String, Object> entry: props.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            Object previousValue = lastAppliedSnapshot.get(key);
+            if (previousValue == null && !lastAppliedSnapshot.containsKey(key)) {
+                if (added == null) {
+                    added = new HashMap<String, Object>();
                 }
+                added.put(key, value);
+            } else if (value == null ? previousValue != null : !value.equals(previousValue)) {
+                if (changed == null) {
+                    changed = new HashMap<String, Object>();
+                }
+                changed.put(key, value);
             }
-            if (!ignoreDeletesFromSource) {
-                props = result.getDeleted();
-                if (props != null) {
-                    for (String name: props.keySet()) {
-                        propertyUpdater.deleteProperty(name, config);
+        }
+        // every key of the snapshot is in the result if none was added and the sizes match
+        int addedCount = (added == null) ? 0 : added.size();
+        if (lastAppliedSnapshot.size() + addedCount != props.size()) {
+            for (Entry<String, Object> entry: lastAppliedSnapshot.entrySet()) {
+                if (!props.containsKey(entry.getKey())) {
+                    if (deleted == null) {
+                        deleted = new HashMap<String, Object>();
                     }
-                }            
+                    deleted.put(entry.getKey(), entry.getValue());
+                }
             }
         }
+        return PollResult.createIncremental(emptyIfNull(added), emptyIfNull(changed), emptyIfNull(deleted), checkPoint);
+    }
+
+    private static Map<String, Object> emptyIfNull(Map<String, Object> map) {
+        return (map == null) ? Collections.<String, Object>emptyMap() : map;
     }
     
     /**
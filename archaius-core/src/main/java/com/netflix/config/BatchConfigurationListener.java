@@ -0,0 +1,29 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import org.apache.commons.configuration.event.ConfigurationListener;
+
+/**
+ * A configuration listener that handles {@link ConcurrentMapConfiguration#EVENT_BATCH_UPDATE} events, whose value is
+ * the map of the properties that were set or cleared together by
+ * {@link ConcurrentMapConfiguration#updateProperties(java.util.Map, java.util.Collection)}.
+ * <p>
+ * Listeners that do not implement this interface receive a {@link ConcurrentMapConfiguration#EVENT_SET_PROPERTY} or
+ * {@link ConcurrentMapConfiguration#EVENT_CLEAR_PROPERTY} event for each property of the batch instead.
+ */
+public interface BatchConfigurationListener extends ConfigurationListener {
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.Map;
+
+/**
+ * A {@link PropertyListener} that is notified once for properties updated together with
+ * {@link ConcurrentMapConfiguration#updateProperties(Map, java.util.Collection)}. A PropertyListener that does not
+ * implement this interface has {@link #setProperty(Object, String, Object, boolean)} or
+ * {@link #clearProperty(Object, String, Object, boolean)} called for each property instead.
+ */
+public interface BatchPropertyListener extends PropertyListener {
+
+    /**
+     * <p>Notifies this listener about properties that were updated together.</p>
+     *
+     * @param source the event source.
+     * @param changes the properties that were set, with their new value, or cleared, with a null value.
+     *        Before the update, the map has the values that will be set.
+     * @param beforeUpdate true if this callback is occuring before the
+     *        properties have changed.
+     */
+    public void updateProperties(Object source, Map<String, Object> changes, boolean beforeUpdate);
+}
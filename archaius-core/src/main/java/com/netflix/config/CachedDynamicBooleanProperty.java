@@ -42,12 +42,13 @@ public class CachedDynamicBooleanProperty extends DynamicBooleanProperty {
     }
 
     /**
-     * Get the current value from the underlying DynamicProperty
+     * Get the current value from the underlying DynamicProperty, parsed directly from its string
+     * value without creating wrapper objects. The default value is used if the value cannot be parsed.
      *
      * @return
      */
     protected boolean chooseValue() {
-        return prop.getBoolean(defaultValue).booleanValue();
+        return PrimitiveParsers.parseBoolean(prop.peekString(), defaultValue.booleanValue());
     }
 
     /**
@@ -57,6 +58,7 @@ public class CachedDynamicBooleanProperty extends DynamicBooleanProperty {
      */
     @Override
     public boolean get() {
+        recordRead();
         return primitiveValue;
     }
 
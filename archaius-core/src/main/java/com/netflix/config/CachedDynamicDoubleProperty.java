@@ -42,12 +42,13 @@ public class CachedDynamicDoubleProperty extends DynamicDoubleProperty {
     }
 
     /**
-     * Get the current value from the underlying DynamicProperty
+     * Get the current value from the underlying DynamicProperty, parsed directly from its string
+     * value without creating wrapper objects. The default value is used if the value cannot be parsed.
      *
      * @return
      */
     protected double chooseValue() {
-        return prop.getDouble(defaultValue).doubleValue();
+        return PrimitiveParsers.parseDouble(prop.peekString(), defaultValue.doubleValue());
     }
 
     /**
@@ -57,6 +58,7 @@ public class CachedDynamicDoubleProperty extends DynamicDoubleProperty {
      */
     @Override
     public double get() {
+        recordRead();
         return primitiveValue;
     }
 
@@ -42,12 +42,13 @@ public class CachedDynamicFloatProperty extends DynamicFloatProperty {
     }
 
     /**
-     * Get the current value from the underlying DynamicProperty
+     * Get the current value from the underlying DynamicProperty, parsed directly from its string
+     * value without creating wrapper objects. The default value is used if the value cannot be parsed.
      *
      * @return
      */
     protected float chooseValue() {
-        return prop.getFloat(defaultValue).floatValue();
+        return PrimitiveParsers.parseFloat(prop.peekString(), defaultValue.floatValue());
     }
 
     /**
@@ -57,6 +58,7 @@ public class CachedDynamicFloatProperty extends DynamicFloatProperty {
      */
     @Override
     public float get() {
+        recordRead();
         return primitiveValue;
     }
 
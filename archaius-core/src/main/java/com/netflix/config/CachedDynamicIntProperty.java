@@ -42,12 +42,13 @@ public class CachedDynamicIntProperty extends DynamicIntProperty {
     }
 
     /**
-     * Get the current value from the underlying DynamicProperty
+     * Get the current value from the underlying DynamicProperty, parsed directly from its string
+     * value without creating wrapper objects. The default value is used if the value cannot be parsed.
      *
      * @return
      */
     protected int chooseValue() {
-        return prop.getInteger(defaultValue).intValue();
+        return PrimitiveParsers.parseInt(prop.peekString(), defaultValue.intValue());
     }
 
     /**
@@ -57,6 +58,7 @@ public class CachedDynamicIntProperty extends DynamicIntProperty {
      */
     @Override
     public int get() {
+        recordRead();
         return primitiveValue;
     }
 
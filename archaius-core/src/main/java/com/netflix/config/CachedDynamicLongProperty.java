@@ -42,12 +42,13 @@ public class CachedDynamicLongProperty extends DynamicLongProperty {
     }
 
     /**
-     * Get the current value from the underlying DynamicProperty
+     * Get the current value from the underlying DynamicProperty, parsed directly from its string
+     * value without creating wrapper objects. The default value is used if the value cannot be parsed.
      *
      * @return
      */
     protected long chooseValue() {
-        return prop.getLong(defaultValue).longValue();
+        return PrimitiveParsers.parseLong(prop.peekString(), defaultValue.longValue());
     }
 
     /**
@@ -57,6 +58,7 @@ public class CachedDynamicLongProperty extends DynamicLongProperty {
      */
     @Override
     public long get() {
+        recordRead();
         return primitiveValue;
     }
 
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+/**
+ * Determines how and on which thread the callbacks of a {@link DynamicProperty} are run
+ * after its value changed. This covers callbacks added with {@link DynamicProperty#addCallback(Runnable)},
+ * {@link PropertyWrapper#addCallback(Runnable)} and, as they are triggered by the callbacks of their underlying
+ * properties, the callbacks of {@link ChainedDynamicProperty.ChainLink}.
+ * <p>
+ * Use {@link DynamicProperty#setCallbackDispatcher(CallbackDispatcher)} to install a dispatcher.
+ * The default is {@link SynchronousCallbackDispatcher}.
+ *
+ * @see ExecutorCallbackDispatcher
+ */
+public interface CallbackDispatcher {
+    /**
+     * Called on the thread that applied the update after the value of a property changed.
+     *
+     * @param property the property whose value changed
+     * @param notification runs all callbacks currently registered with the property. The callbacks
+     *                     read the value of the property at the time they run, so running the
+     *                     notification once after several changes delivers the latest value.
+     */
+    public void dispatch(DynamicProperty property, Runnable notification);
+}
@@ -15,8 +15,8 @@
  */
 package com.netflix.config;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.Lists;
@@ -87,7 +87,7 @@ public class ChainedDynamicProperty {
         public ChainLink(T defaultValue) {
             next = null; 
             pReference = new AtomicReference<ChainLink<T>>(this);
-            callbacks = new ArrayList<Runnable>();
+            callbacks = new CopyOnWriteArrayList<Runnable>();
             this.defaultValue = defaultValue;
         }
 
@@ -97,7 +97,7 @@ public class ChainedDynamicProperty {
         public ChainLink(ChainLink<T> nextProperty) {
             next = nextProperty; 
             pReference = new AtomicReference<ChainLink<T>>(next);
-            callbacks = new ArrayList<Runnable>();
+            callbacks = new CopyOnWriteArrayList<Runnable>();
             this.defaultValue = nextProperty.getDefaultValue();
         }
 
@@ -206,7 +206,7 @@ public class ChainedDynamicProperty {
                     checkAndFlip();
                 }
             };
-            sProp.addCallback(callback);
+            sProp.addWrapperCallback(callback);
             checkAndFlip();
         }
 
@@ -252,7 +252,7 @@ public class ChainedDynamicProperty {
                     checkAndFlip();
                 }
             };
-            sProp.addCallback(callback);
+            sProp.addWrapperCallback(callback);
             checkAndFlip();
         }
 
@@ -298,7 +298,7 @@ public class ChainedDynamicProperty {
                     checkAndFlip();
                 }
             };
-            sProp.addCallback(callback);
+            sProp.addWrapperCallback(callback);
             checkAndFlip();
         }
 
@@ -343,7 +343,7 @@ public class ChainedDynamicProperty {
                     checkAndFlip();
                 }
             };
-            sProp.addCallback(callback);
+            sProp.addWrapperCallback(callback);
             checkAndFlip();
         }
 
@@ -389,7 +389,7 @@ public class ChainedDynamicProperty {
                     checkAndFlip();
                 }
             };
-            sProp.addCallback(callback);
+            sProp.addWrapperCallback(callback);
             checkAndFlip();
         }
 
@@ -0,0 +1,611 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent map from String to Object that keeps its keys, and values that are Strings, as UTF-8 encoded
+ * byte arrays in open addressing hash tables, which avoids the entry, String and char array objects of a
+ * ConcurrentHashMap. Other values are kept as they are.
+ * <p>
+ * Like ConcurrentHashMap, reads are lock free and writes lock one of the segments of the map. Iterators are
+ * weakly consistent. Null keys and values are not allowed. String values are decoded on every
+ * {@link #get(Object)}, so this map trades some read time and garbage for a smaller footprint.
+ */
+final class CompactConcurrentMap extends AbstractMap<String, Object> implements ConcurrentMap<String, Object> {
+
+    private static final int NUM_SEGMENTS = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    /**
+     * Key of a slot whose entry was removed. The slot is kept to not break probe sequences
+     * until the table is rehashed, and is never given to another key: a lock free reader that
+     * matched the removed key in the slot could otherwise read the value of the new key.
+     */
+    private static final Object REMOVED = new Object();
+
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+
+    CompactConcurrentMap() {
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        // spread the bits as the low ones pick the slot and the high ones pick the segment
+        h ^= (h >>> 20) ^ (h >>> 12);
+        return h ^ (h >>> 7) ^ (h >>> 4);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 28) & (NUM_SEGMENTS - 1)];
+    }
+
+    private static final class Table {
+        final AtomicReferenceArray<Object> keys;
+        final AtomicReferenceArray<Object> values;
+        // written before the key of the slot is published
+        final int[] hashes;
+
+        Table(int capacity) {
+            keys = new AtomicReferenceArray<Object>(capacity);
+            values = new AtomicReferenceArray<Object>(capacity);
+            hashes = new int[capacity];
+        }
+
+        int length() {
+            return hashes.length;
+        }
+    }
+
+    private static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        volatile Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        volatile int count;
+        // live and removed slots, guarded by the lock
+        int used;
+
+        int indexOf(Table t, String key, int hash) {
+            int mask = t.length() - 1;
+            int i = hash & mask;
+            for (;;) {
+                Object k = t.keys.get(i);
+                if (k == null) {
+                    return -1;
+                }
+                if (k != REMOVED && t.hashes[i] == hash && Utf8.equals((byte[]) k, key)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        Object get(String key, int hash) {
+            Table t = table;
+            int i = indexOf(t, key, hash);
+            return (i < 0) ? null : t.values.get(i);
+        }
+
+        /**
+         * @return the previous encoded value, or null
+         */
+        Object put(String key, int hash, Object value, boolean onlyIfAbsent, boolean onlyIfPresent) {
+            lock();
+            try {
+                Table t = table;
+                int i = indexOf(t, key, hash);
+                if (i >= 0) {
+                    Object previous = t.values.get(i);
+                    if (!onlyIfAbsent) {
+                        t.values.set(i, value);
+                    }
+                    return previous;
+                }
+                if (onlyIfPresent) {
+                    return null;
+                }
+                if ((used + 1) * 4 > t.length() * 3) {
+                    t = rehash(t);
+                }
+                int mask = t.length() - 1;
+                i = hash & mask;
+                while (t.keys.get(i) != null) {
+                    i = (i + 1) & mask;
+                }
+                used++;
+                t.hashes[i] = hash;
+                t.values.set(i, value);
+                t.keys.set(i, Utf8.encode(key));
+                count++;
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * @param expected encoded value the entry must have to be removed, or null to remove any value
+         * @return the removed encoded value, or null
+         */
+        Object remove(String key, int hash, Object expected) {
+            lock();
+            try {
+                Table t = table;
+                int i = indexOf(t, key, hash);
+                if (i < 0) {
+                    return null;
+                }
+                Object previous = t.values.get(i);
+                if (expected != null && !valueEquals(previous, expected)) {
+                    return null;
+                }
+                t.values.set(i, null);
+                t.keys.set(i, REMOVED);
+                count--;
+                return previous;
+            } finally {
+                unlock();
+            }
+        }
+
+        boolean replace(String key, int hash, Object expected, Object value) {
+            lock();
+            try {
+                Table t = table;
+                int i = indexOf(t, key, hash);
+                if (i < 0 || !valueEquals(t.values.get(i), expected)) {
+                    return false;
+                }
+                t.values.set(i, value);
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Copy the live entries to a new table, sized for the live entries. Must be called with the lock held.
+         */
+        private Table rehash(Table old) {
+            int capacity = INITIAL_SEGMENT_CAPACITY;
+            while ((count + 1) * 2 > capacity) {
+                capacity <<= 1;
+            }
+            Table t = new Table(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < old.length(); j++) {
+                Object k = old.keys.get(j);
+                if (k != null && k != REMOVED) {
+                    int hash = old.hashes[j];
+                    int i = hash & mask;
+                    while (t.keys.get(i) != null) {
+                        i = (i + 1) & mask;
+                    }
+                    t.hashes[i] = hash;
+                    t.values.set(i, old.values.get(j));
+                    t.keys.set(i, k);
+                }
+            }
+            used = count;
+            table = t;
+            return t;
+        }
+
+        void clear() {
+            lock();
+            try {
+                table = new Table(INITIAL_SEGMENT_CAPACITY);
+                count = 0;
+                used = 0;
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    /**
+     * Holder of a byte array value, to tell it apart from an encoded String.
+     */
+    private static final class ByteArrayValue {
+        final byte[] value;
+
+        ByteArrayValue(byte[] value) {
+            this.value = value;
+        }
+    }
+
+    private static Object encodeValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        if (value instanceof String) {
+            return Utf8.encode((String) value);
+        } else if (value instanceof byte[]) {
+            return new ByteArrayValue((byte[]) value);
+        }
+        return value;
+    }
+
+    private static Object decodeValue(Object encoded) {
+        if (encoded instanceof byte[]) {
+            return Utf8.decode((byte[]) encoded);
+        } else if (encoded instanceof ByteArrayValue) {
+            return ((ByteArrayValue) encoded).value;
+        }
+        return encoded;
+    }
+
+    private static boolean valueEquals(Object encoded, Object otherEncoded) {
+        if (encoded instanceof byte[] && otherEncoded instanceof byte[]) {
+            return Arrays.equals((byte[]) encoded, (byte[]) otherEncoded);
+        }
+        return decodeValue(encoded).equals(decodeValue(otherEncoded));
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int hash = hash(key);
+        Object encoded = segmentFor(hash).get((String) key, hash);
+        return (encoded == null) ? null : decodeValue(encoded);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).get((String) key, hash) != null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int hash = hash(key);
+        Object previous = segmentFor(hash).put(key, hash, encodeValue(value), false, false);
+        return (previous == null) ? null : decodeValue(previous);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        int hash = hash(key);
+        Object previous = segmentFor(hash).put(key, hash, encodeValue(value), true, false);
+        return (previous == null) ? null : decodeValue(previous);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        int hash = hash(key);
+        Object previous = segmentFor(hash).put(key, hash, encodeValue(value), false, true);
+        return (previous == null) ? null : decodeValue(previous);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        if (oldValue == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        return segmentFor(hash).replace(key, hash, encodeValue(oldValue), encodeValue(newValue));
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int hash = hash(key);
+        Object previous = segmentFor(hash).remove((String) key, hash, null);
+        return (previous == null) ? null : decodeValue(previous);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof String) || value == null) {
+            return false;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).remove((String) key, hash, encodeValue(value)) != null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment: segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment: segments) {
+            if (segment.count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment: segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new TableIterator<Map.Entry<String, Object>>() {
+                    @Override
+                    Map.Entry<String, Object> current() {
+                        return new SimpleImmutableEntry<String, Object>(currentKey, decodeValue(currentValue));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactConcurrentMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompactConcurrentMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new TableIterator<String>() {
+                    @Override
+                    String current() {
+                        return currentKey;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactConcurrentMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return CompactConcurrentMap.this.remove(o) != null;
+            }
+
+            @Override
+            public void clear() {
+                CompactConcurrentMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Weakly consistent iterator over the tables of the segments as they were when the iterator reached them.
+     */
+    private abstract class TableIterator<E> implements Iterator<E> {
+        private int segmentIndex = -1;
+        private Table table;
+        private int slot;
+        private boolean hasNext;
+        private String lastKey;
+        String currentKey;
+        Object currentValue;
+
+        TableIterator() {
+            advance();
+        }
+
+        abstract E current();
+
+        private void advance() {
+            hasNext = false;
+            for (;;) {
+                if (table != null) {
+                    while (slot < table.length()) {
+                        int i = slot++;
+                        Object k = table.keys.get(i);
+                        if (k != null && k != REMOVED) {
+                            Object v = table.values.get(i);
+                            if (v != null) {
+                                currentKey = Utf8.decode((byte[]) k);
+                                currentValue = v;
+                                hasNext = true;
+                                return;
+                            }
+                        }
+                    }
+                }
+                if (++segmentIndex >= NUM_SEGMENTS) {
+                    return;
+                }
+                table = segments[segmentIndex].table;
+                slot = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            E result = current();
+            lastKey = currentKey;
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            CompactConcurrentMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * UTF-8 encoding that keeps unpaired surrogates as three byte sequences, so that every String
+     * survives the round trip, and that compares an encoded String to a String without decoding it.
+     */
+    static final class Utf8 {
+
+        private Utf8() {
+        }
+
+        static byte[] encode(String s) {
+            int len = s.length();
+            int size = 0;
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    size += 1;
+                } else if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    size += 4;
+                    i++;
+                } else {
+                    size += 3;
+                }
+            }
+            byte[] bytes = new byte[size];
+            int j = 0;
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    bytes[j++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[j++] = (byte) (0xc0 | (c >> 6));
+                    bytes[j++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    bytes[j++] = (byte) (0xf0 | (cp >> 18));
+                    bytes[j++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    bytes[j++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    bytes[j++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    bytes[j++] = (byte) (0xe0 | (c >> 12));
+                    bytes[j++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[j++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return bytes;
+        }
+
+        static String decode(byte[] bytes) {
+            char[] chars = new char[bytes.length];
+            int n = 0;
+            int i = 0;
+            while (i < bytes.length) {
+                int b = bytes[i] & 0xff;
+                if (b < 0x80) {
+                    chars[n++] = (char) b;
+                    i += 1;
+                } else if (b < 0xe0) {
+                    chars[n++] = (char) (((b & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
+                    i += 2;
+                } else if (b < 0xf0) {
+                    chars[n++] = (char) (((b & 0x0f) << 12) | ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
+                    i += 3;
+                } else {
+                    int cp = ((b & 0x07) << 18) | ((bytes[i + 1] & 0x3f) << 12)
+                            | ((bytes[i + 2] & 0x3f) << 6) | (bytes[i + 3] & 0x3f);
+                    cp -= Character.MIN_SUPPLEMENTARY_CODE_POINT;
+                    chars[n++] = (char) (Character.MIN_HIGH_SURROGATE + (cp >>> 10));
+                    chars[n++] = (char) (Character.MIN_LOW_SURROGATE + (cp & 0x3ff));
+                    i += 4;
+                }
+            }
+            return new String(chars, 0, n);
+        }
+
+        static boolean equals(byte[] bytes, String s) {
+            int len = s.length();
+            if (bytes.length < len) {
+                // every char takes at least one byte
+                return false;
+            }
+            int j = 0;
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (j >= bytes.length || bytes[j++] != (byte) c) {
+                        return false;
+                    }
+                } else if (c < 0x800) {
+                    if (j + 2 > bytes.length
+                            || bytes[j++] != (byte) (0xc0 | (c >> 6))
+                            || bytes[j++] != (byte) (0x80 | (c & 0x3f))) {
+                        return false;
+                    }
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    if (j + 4 > bytes.length
+                            || bytes[j++] != (byte) (0xf0 | (cp >> 18))
+                            || bytes[j++] != (byte) (0x80 | ((cp >> 12) & 0x3f))
+                            || bytes[j++] != (byte) (0x80 | ((cp >> 6) & 0x3f))
+                            || bytes[j++] != (byte) (0x80 | (cp & 0x3f))) {
+                        return false;
+                    }
+                } else {
+                    if (j + 3 > bytes.length
+                            || bytes[j++] != (byte) (0xe0 | (c >> 12))
+                            || bytes[j++] != (byte) (0x80 | ((c >> 6) & 0x3f))
+                            || bytes[j++] != (byte) (0x80 | (c & 0x3f))) {
+                        return false;
+                    }
+                }
+            }
+            return j == bytes.length;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * A {@link ConcurrentMapConfiguration} that stores its properties in a compact form to reduce the
+ * memory footprint of configurations with a large number of properties. Keys and String values are
+ * kept as UTF-8 encoded byte arrays in open addressing hash tables, instead of String objects in the entries of a
+ * ConcurrentHashMap. Multi-valued properties are kept as lists, as in ConcurrentMapConfiguration.
+ * <p>
+ * The concurrency guarantees and events are the same as those of ConcurrentMapConfiguration: reads are lock free
+ * and the same events are fired for each operation. The trade off is that {@link #getProperty(String)} decodes
+ * the value, creating a new String on each call. This is usually not an issue when the properties are read through
+ * {@link DynamicProperty}, which caches the value and only reads the configuration when it changes.
+ *
+ */
+public class CompactMapConfiguration extends ConcurrentMapConfiguration {
+
+    /**
+     * Create an instance with an empty map.
+     */
+    public CompactMapConfiguration() {
+        super();
+        map = indexKeysIfEnabled(new CompactConcurrentMap());
+    }
+
+    /**
+     * Create an instance with the properties of the map.
+     */
+    public CompactMapConfiguration(Map<String, Object> mapToCopy) {
+        this();
+        map.putAll(mapToCopy);
+    }
+
+    /**
+     * Create an instance by copying the properties from an existing Configuration.
+     * Future changes to the Configuration passed in will not be reflected in this
+     * object.
+     * 
+     * @param config Configuration to be copied
+     */
+    public CompactMapConfiguration(Configuration config) {
+        this();
+        for (Iterator i = config.getKeys(); i.hasNext();) {
+            String name = (String) i.next();
+            Object value = config.getProperty(name);
+            map.put(name, value);
+        }
+    }
+}
@@ -18,16 +18,22 @@ package com.netflix.config;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.configuration.AbstractConfiguration;
 import org.apache.commons.configuration.Configuration;
@@ -40,6 +46,9 @@ import org.apache.commons.configuration.event.ConfigurationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
 
 /**
  * This class maintains a hierarchy of configurations in a list structure. The order of the list stands for the descending
@@ -61,6 +70,25 @@ import org.slf4j.LoggerFactory;
  * {@link #getProperty(String)}. 
  * </ul>
  * 
+ * Optionally, this class can maintain an index of the resolved value of every key (see
+ * {@link #setResolvedValueIndexEnabled(boolean)}). The index is updated from the change events
+ * of the child configurations and when configurations are added, removed or reordered, so that
+ * {@link #getProperty(String)} and {@link #containsKey(String)} are a single hash lookup
+ * instead of a walk through the list of configurations.
+ * <p>
+ * The configuration has a version number, see {@link #getVersion()}, that increases with every change.
+ * {@link #getSnapshot()} returns an immutable {@link VersionedConfigurationSnapshot} of the resolved
+ * properties, so that a number of related properties can be read consistently without locking.
+ * The first call starts maintaining the snapshot, which is then updated with each change in a way that
+ * shares most of its structure with the previous one.
+ * <p>
+ * By default, adding a configuration fires a single {@link #EVENT_CONFIGURATION_SOURCE_CHANGED} event
+ * and clearing a child configuration propagates its {@link #EVENT_CLEAR} event, which makes
+ * {@link DynamicProperty} re-read every registered property. With targeted refresh enabled
+ * (see {@link #setTargetedRefreshEnabled(boolean)}), adding, removing or moving a configuration and
+ * clearing a child configuration instead fire one {@link #EVENT_SET_PROPERTY} or {@link #EVENT_CLEAR_PROPERTY}
+ * event for each key of that configuration whose resolved value actually changed.
+ * <p>
  * When adding configuration to this class, it is recommended to convert it into
  * {@link ConcurrentMapConfiguration} or ConcurrentCompositeConfiguration using 
  * {@link com.netflix.config.util.ConfigurationUtils} to achieve
@@ -109,7 +137,51 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
     
     public static final int EVENT_CONFIGURATION_SOURCE_CHANGED = 10001;
     
+    /**
+     * System property to enable the resolved value index for all instances created afterwards.
+     */
+    public static final String ENABLE_RESOLVED_VALUE_INDEX = "archaius.configuration.enableResolvedValueIndex";
+
+    /**
+     * System property to enable targeted refresh for all instances created afterwards.
+     */
+    public static final String ENABLE_TARGETED_REFRESH = "archaius.configuration.enableTargetedRefresh";
+
     private volatile boolean propagateEventToParent = true;
+
+    private volatile boolean targetedRefresh = Boolean.getBoolean(ENABLE_TARGETED_REFRESH);
+
+    /**
+     * Resolved values of the keys of child configurations that are being cleared,
+     * captured on the before-update clear event
+     */
+    private ConcurrentHashMap<Configuration, Map<String, Object>> valuesBeingCleared
+            = new ConcurrentHashMap<Configuration, Map<String, Object>>();
+
+    /**
+     * The winning value of each key and the configuration it came from. Null if the index is not enabled.
+     */
+    private volatile ConcurrentHashMap<String, ResolvedValue> resolvedValues;
+
+    // serializes updates of resolvedValues and snapshot
+    private Object indexLock = new Object();
+
+    private AtomicLong version = new AtomicLong();
+
+    /**
+     * The resolved properties at the current version. Null until the first call to {@link #getSnapshot()}.
+     */
+    private volatile VersionedConfigurationSnapshot snapshot;
+
+    private static final class ResolvedValue {
+        final Object value;
+        final Configuration source;
+
+        ResolvedValue(Object value, Configuration source) {
+            this.value = value;
+            this.source = source;
+        }
+    }
     
     private AbstractConfiguration overrideProperties;
         
@@ -124,10 +196,39 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
      */
     private volatile boolean containerConfigurationChanged = true;
 
-    private ConfigurationListener eventPropagater = new ConfigurationListener() {
+    private ConfigurationListener eventPropagater = new BatchConfigurationListener() {
         @Override
         public void configurationChanged(ConfigurationEvent event) {
+            if (event.getType() == EVENT_BATCH_UPDATE) {
+                propagateBatchUpdate(event);
+                return;
+            }
             boolean beforeUpdate = event.isBeforeUpdate();
+            Map<String, Object> clearedValues = null;
+            if (event.getType() == EVENT_CLEAR && (targetedRefresh || isTrackingValues())) {
+                Configuration source = (Configuration) event.getSource();
+                if (beforeUpdate) {
+                    valuesBeingCleared.put(source, getResolvedValuesOfKeys(source));
+                } else {
+                    clearedValues = valuesBeingCleared.remove(source);
+                }
+            }
+            if (!beforeUpdate) {
+                // the index and the snapshot must be current before the event is propagated as
+                // the propagation logic and the listeners may read from them
+                if (clearedValues != null) {
+                    resolveKeys(clearedValues.keySet());
+                } else {
+                    updateResolvedValues(event);
+                }
+            }
+            if (targetedRefresh && event.getType() == EVENT_CLEAR && (beforeUpdate || clearedValues != null)) {
+                // the clear event is replaced by events for the keys whose value changed
+                if (clearedValues != null && propagateEventToParent) {
+                    fireChangedValues(clearedValues);
+                }
+                return;
+            }
             if (propagateEventToParent) {
                 int type = event.getType();
                 String name = event.getPropertyName();
@@ -170,6 +271,44 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
         }        
     };
     
+    /**
+     * Propagate a batch update of a child configuration as one batch update of the resolved values
+     * of the properties, leaving out the properties set in a configuration that is overridden.
+     */
+    @SuppressWarnings("unchecked")
+    private void propagateBatchUpdate(ConfigurationEvent event) {
+        Map<String, Object> changes = (Map<String, Object>) event.getPropertyValue();
+        if (event.isBeforeUpdate()) {
+            // we want the validators to run even if the source is not
+            // the winning configuration
+            if (propagateEventToParent) {
+                fireEvent(EVENT_BATCH_UPDATE, null, changes, true);
+            }
+            return;
+        }
+        resolveKeys(changes.keySet());
+        if (!propagateEventToParent) {
+            return;
+        }
+        AbstractConfiguration sourceConfig = (AbstractConfiguration) event.getSource();
+        Map<String, Object> resolvedChanges = new LinkedHashMap<String, Object>();
+        for (Map.Entry<String, Object> entry: changes.entrySet()) {
+            String key = entry.getKey();
+            if (entry.getValue() != null) {
+                AbstractConfiguration winningConf = (AbstractConfiguration) getSource(key);
+                if (winningConf == null || getIndexOfConfiguration(sourceConfig) <= getIndexOfConfiguration(winningConf)) {
+                    resolvedChanges.put(key, entry.getValue());
+                }
+            } else {
+                Object finalValue = getProperty(key);
+                resolvedChanges.put(key, finalValue == null ? null : toEventValue(finalValue));
+            }
+        }
+        if (!resolvedChanges.isEmpty()) {
+            fireEvent(EVENT_BATCH_UPDATE, null, Collections.unmodifiableMap(resolvedChanges), false);
+        }
+    }
+
     /**
      * Creates an empty CompositeConfiguration object which can then
      * be added some other Configuration files
@@ -177,6 +316,9 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
     public ConcurrentCompositeConfiguration()
     {
         clear();
+        if (Boolean.getBoolean(ENABLE_RESOLVED_VALUE_INDEX)) {
+            setResolvedValueIndexEnabled(true);
+        }
     }
 
     
@@ -192,6 +334,10 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
         configList.clear();
         this.containerConfiguration = containerConfiguration;
         configList.add(containerConfiguration);
+        createOverrideProperties();
+        if (Boolean.getBoolean(ENABLE_RESOLVED_VALUE_INDEX)) {
+            setResolvedValueIndexEnabled(true);
+        }
     }
 
 
@@ -342,9 +488,14 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
             return;
         }
         
+        Map<String, Object> previousValues = targetedRefresh ? getResolvedValuesOfKeys(containerConfiguration) : null;
         containerConfigurationChanged = true;
         configList.remove(containerConfiguration);
         configList.add(newIndex, containerConfiguration);
+        resolveKeysOf(containerConfiguration);
+        if (previousValues != null) {
+            fireChangedValues(previousValues);
+        }
     }
         
     /**
@@ -356,12 +507,18 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
     throws IndexOutOfBoundsException {
         if (!configList.contains(config)) {
             checkIndex(index);
+            Map<String, Object> previousValues = targetedRefresh ? getResolvedValuesOfKeys(config) : null;
             configList.add(index, config);
             if (name != null) {
                 namedConfigurations.put(name, config);
             }
             config.addConfigurationListener(eventPropagater);
-            fireEvent(EVENT_CONFIGURATION_SOURCE_CHANGED, null, null, false);
+            resolveKeysOf(config);
+            if (previousValues != null) {
+                fireChangedValues(previousValues);
+            } else {
+                fireEvent(EVENT_CONFIGURATION_SOURCE_CHANGED, null, null, false);
+            }
         } else {
             logger.warn(config + " is not added as it already exits");
         }
@@ -387,18 +544,31 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
             if (configName != null) {
                 namedConfigurations.remove(configName);
             }
-            return configList.remove(config);
+            Map<String, Object> previousValues = targetedRefresh ? getResolvedValuesOfKeys(config) : null;
+            boolean removed = configList.remove(config);
+            if (removed) {
+                resolveKeysOf(config);
+                if (previousValues != null) {
+                    fireChangedValues(previousValues);
+                }
+            }
+            return removed;
         } else {
             throw new IllegalArgumentException("Can't remove container configuration");
         }
     }
     
     public AbstractConfiguration removeConfigurationAt(int index) {
+        Map<String, Object> previousValues = targetedRefresh ? getResolvedValuesOfKeys(configList.get(index)) : null;
         AbstractConfiguration config = configList.remove(index);
         String nameFound = getNameForConfiguration(config);
         if (nameFound != null) {
             namedConfigurations.remove(nameFound);
         }
+        resolveKeysOf(config);
+        if (previousValues != null) {
+            fireChangedValues(previousValues);
+        }
         return config;
     }
 
@@ -414,8 +584,13 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
         Configuration conf = getConfiguration(name);
         if (conf != null && !conf.equals(containerConfiguration))
         {
+            Map<String, Object> previousValues = targetedRefresh ? getResolvedValuesOfKeys(conf) : null;
             configList.remove(conf);
             namedConfigurations.remove(name);
+            resolveKeysOf(conf);
+            if (previousValues != null) {
+                fireChangedValues(previousValues);
+            }
         } else if (conf != null && conf.equals(containerConfiguration)) {
             throw new IllegalArgumentException("Can't remove container configuration");
         }
@@ -450,15 +625,326 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
         containerConfiguration.addConfigurationListener(eventPropagater);
         configList.add(containerConfiguration);
         
+        createOverrideProperties();
+        
+        rebuildResolvedValues();
+        fireEvent(EVENT_CLEAR, null, null, false);
+        containerConfigurationChanged = false;
+        invalidate();
+    }
+
+    private void createOverrideProperties()
+    {
         overrideProperties = new ConcurrentMapConfiguration();
         overrideProperties.setThrowExceptionOnMissing(isThrowExceptionOnMissing());
         overrideProperties.setListDelimiter(getListDelimiter());
         overrideProperties.setDelimiterParsingDisabled(isDelimiterParsingDisabled());
         overrideProperties.addConfigurationListener(eventPropagater);
-        
-        fireEvent(EVENT_CLEAR, null, null, false);
-        containerConfigurationChanged = false;
-        invalidate();
+    }
+
+    /**
+     * Enable or disable the index of resolved values. When enabled, the winning value of each key
+     * is kept in a single map which is updated from the change events of the child configurations
+     * and when configurations are added, removed or reordered, so that {@link #getProperty(String)}
+     * and {@link #containsKey(String)} no longer iterate the configurations list.
+     * <p>
+     * The index relies on the child configurations firing change events for all modifications,
+     * which is the case for {@link ConcurrentMapConfiguration} and its subclasses. The
+     * index can also be enabled for all new instances with system property
+     * {@value #ENABLE_RESOLVED_VALUE_INDEX}.
+     */
+    public void setResolvedValueIndexEnabled(boolean enabled) {
+        synchronized (indexLock) {
+            if (!enabled) {
+                resolvedValues = null;
+                return;
+            }
+            if (resolvedValues != null) {
+                return;
+            }
+            listenToAllConfigurations();
+            buildResolvedValues(true, false);
+        }
+    }
+
+    /**
+     * Make sure the index and the snapshot receive the change events of all configurations in the chain.
+     */
+    private void listenToAllConfigurations() {
+        if (!overrideProperties.getConfigurationListeners().contains(eventPropagater)) {
+            overrideProperties.addConfigurationListener(eventPropagater);
+        }
+        for (AbstractConfiguration config : configList) {
+            if (!config.getConfigurationListeners().contains(eventPropagater)) {
+                config.addConfigurationListener(eventPropagater);
+            }
+        }
+    }
+
+    /**
+     * Get the version of this configuration. The version is incremented with every change
+     * of a child configuration and every configuration added, removed or moved, even if the change
+     * does not affect the resolved value of any property. It never decreases, so it can be compared
+     * with the version of a {@link VersionedConfigurationSnapshot} to know if the snapshot is still current.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Get an immutable snapshot of the resolved properties at the current version. Taking a snapshot
+     * is a volatile read; the snapshot is only rebuilt when the configuration changes, by copying
+     * the few nodes that lead to the changed properties. All the properties of an
+     * {@link #updateProperties(Map, Collection)} of a child configuration are in the same snapshot.
+     * <p>
+     * The first call builds the snapshot and starts updating it with each change. As the child
+     * configurations are not locked, that first snapshot may have part of an update that is in progress,
+     * so it should be taken before other threads start updating the configuration. Like the
+     * resolved value index, this relies on the child configurations firing change events for
+     * all modifications.
+     */
+    public VersionedConfigurationSnapshot getSnapshot() {
+        VersionedConfigurationSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (indexLock) {
+            if (snapshot == null) {
+                listenToAllConfigurations();
+                buildResolvedValues(false, true);
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean isTrackingValues() {
+        return resolvedValues != null || snapshot != null;
+    }
+
+    /**
+     * Enable or disable targeted refresh. When enabled, adding, removing or moving a configuration
+     * and clearing a child configuration fire a {@link #EVENT_SET_PROPERTY} or {@link #EVENT_CLEAR_PROPERTY}
+     * event for each key of that configuration whose resolved value changed, instead of a
+     * {@link #EVENT_CONFIGURATION_SOURCE_CHANGED} or {@link #EVENT_CLEAR} event. This lets
+     * {@link DynamicProperty} refresh only the properties affected by the change instead of
+     * all registered properties. It can also be enabled for all new instances with system property
+     * {@value #ENABLE_TARGETED_REFRESH}.
+     */
+    public void setTargetedRefreshEnabled(boolean enabled) {
+        this.targetedRefresh = enabled;
+    }
+
+    /**
+     * @return whether targeted refresh is enabled
+     */
+    public boolean isTargetedRefreshEnabled() {
+        return targetedRefresh;
+    }
+
+    /**
+     * Get the currently resolved value of each key of a configuration.
+     * The value is null for keys that are currently not resolved.
+     */
+    private Map<String, Object> getResolvedValuesOfKeys(Configuration config) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (Iterator<String> it = config.getKeys(); it.hasNext();) {
+            String key = it.next();
+            values.put(key, getProperty(key));
+        }
+        return values;
+    }
+
+    /**
+     * Fire an event for each key whose resolved value is different from the value
+     * captured before a change.
+     */
+    private void fireChangedValues(Map<String, Object> previousValues) {
+        for (Map.Entry<String, Object> entry : previousValues.entrySet()) {
+            String key = entry.getKey();
+            Object previousValue = entry.getValue();
+            Object value = getProperty(key);
+            if (value == null) {
+                if (previousValue != null) {
+                    fireEvent(EVENT_CLEAR_PROPERTY, key, null, false);
+                }
+            } else if (!value.equals(previousValue)) {
+                fireEvent(EVENT_SET_PROPERTY, key, toEventValue(value), false);
+            }
+        }
+    }
+
+    /**
+     * Multi-valued properties are passed to the listeners in their delimited string form
+     * so that they match the value of the corresponding {@link DynamicProperty}.
+     */
+    private static Object toEventValue(Object value) {
+        if (value instanceof Collection) {
+            StringBuilder sb = new StringBuilder();
+            for (Object element : (Collection<?>) value) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(element);
+            }
+            return sb.toString();
+        }
+        return value;
+    }
+
+    /**
+     * @return whether the index of resolved values is enabled
+     */
+    public boolean isResolvedValueIndexEnabled() {
+        return resolvedValues != null;
+    }
+
+    /**
+     * Resolve a key by walking the override properties and the configurations list.
+     *
+     * @return the winning value, or null if no configuration contains the key
+     */
+    private ResolvedValue resolve(String key) {
+        if (overrideProperties.containsKey(key)) {
+            return new ResolvedValue(overrideProperties.getProperty(key), overrideProperties);
+        }
+        for (Configuration config : configList) {
+            if (config.containsKey(key)) {
+                return new ResolvedValue(config.getProperty(key), config);
+            }
+        }
+        return null;
+    }
+
+    private void resolveKey(String key) {
+        synchronized (indexLock) {
+            ConcurrentHashMap<String, ResolvedValue> index = resolvedValues;
+            if (index == null) {
+                return;
+            }
+            ResolvedValue resolved = resolve(key);
+            if (resolved == null) {
+                index.remove(key);
+            } else {
+                index.put(key, resolved);
+            }
+        }
+    }
+
+    /**
+     * Resolve again all keys of a configuration after it was added to, removed from or
+     * moved within the configurations list.
+     */
+    private void resolveKeysOf(Configuration config) {
+        if (!isTrackingValues()) {
+            version.incrementAndGet();
+            return;
+        }
+        List<String> keys = new ArrayList<String>();
+        for (Iterator<String> it = config.getKeys(); it.hasNext();) {
+            keys.add(it.next());
+        }
+        resolveKeys(keys);
+    }
+
+    /**
+     * Increment the version, and resolve the keys again in the index and the snapshot if they are enabled.
+     */
+    private void resolveKeys(Collection<String> keys) {
+        synchronized (indexLock) {
+            long newVersion = version.incrementAndGet();
+            if (resolvedValues != null) {
+                for (String key : keys) {
+                    resolveKey(key);
+                }
+            }
+            VersionedConfigurationSnapshot current = snapshot;
+            if (current != null) {
+                PersistentHashMap<String, Object> properties = current.getProperties();
+                for (String key : keys) {
+                    Object value = getProperty(key);
+                    properties = (value == null) ? properties.minus(key) : properties.plus(key, snapshotValue(value));
+                }
+                snapshot = new VersionedConfigurationSnapshot(properties, newVersion, this);
+            }
+        }
+    }
+
+    /**
+     * Increment the version, and rebuild the index and the snapshot if they are enabled.
+     */
+    private void rebuildResolvedValues() {
+        synchronized (indexLock) {
+            version.incrementAndGet();
+            buildResolvedValues(resolvedValues != null, snapshot != null);
+        }
+    }
+
+    /**
+     * Build the index or the snapshot, or both, from the current state of the configurations.
+     */
+    private void buildResolvedValues(boolean buildIndex, boolean buildSnapshot) {
+        synchronized (indexLock) {
+            if (!buildIndex && !buildSnapshot) {
+                return;
+            }
+            Map<String, ResolvedValue> index = new HashMap<String, ResolvedValue>();
+            for (Iterator<String> it = overrideProperties.getKeys(); it.hasNext();) {
+                String key = it.next();
+                index.put(key, new ResolvedValue(overrideProperties.getProperty(key), overrideProperties));
+            }
+            for (Configuration config : configList) {
+                for (Iterator<String> it = config.getKeys(); it.hasNext();) {
+                    String key = it.next();
+                    if (!index.containsKey(key)) {
+                        index.put(key, new ResolvedValue(config.getProperty(key), config));
+                    }
+                }
+            }
+            if (buildIndex) {
+                resolvedValues = new ConcurrentHashMap<String, ResolvedValue>(index);
+            }
+            if (buildSnapshot) {
+                PersistentHashMap<String, Object> properties = PersistentHashMap.empty();
+                for (Map.Entry<String, ResolvedValue> entry : index.entrySet()) {
+                    if (entry.getValue().value != null) {
+                        properties = properties.plus(entry.getKey(), snapshotValue(entry.getValue().value));
+                    }
+                }
+                snapshot = new VersionedConfigurationSnapshot(properties, version.get(), this);
+            }
+        }
+    }
+
+    /**
+     * A property with several values is a list that the child configuration changes in place, so the snapshot
+     * gets a copy of it.
+     */
+    private static Object snapshotValue(Object value) {
+        if (value instanceof List) {
+            return Collections.unmodifiableList(new ArrayList<Object>((List<?>) value));
+        }
+        return value;
+    }
+
+    private void updateResolvedValues(ConfigurationEvent event) {
+        switch (event.getType()) {
+        case EVENT_ADD_PROPERTY:
+        case EVENT_SET_PROPERTY:
+        case EVENT_CLEAR_PROPERTY:
+            if (event.getPropertyName() != null) {
+                resolveKeys(Collections.singleton(event.getPropertyName()));
+                break;
+            }
+            rebuildResolvedValues();
+            break;
+        case EVENT_CLEAR:
+        case HierarchicalConfiguration.EVENT_ADD_NODES:
+        case EVENT_CONFIGURATION_SOURCE_CHANGED:
+            rebuildResolvedValues();
+            break;
+        default:
+            break;
+        }
     }
 
     /**
@@ -497,6 +983,33 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
         containerConfiguration.addProperty(key, value);
     }
     
+    /**
+     * Set and clear the properties with the <em>container configuration</em> as one update,
+     * see {@link ConcurrentMapConfiguration#updateProperties(Map, Collection)}.
+     * <b>Warning: </b>{@link #getProperty(String)} on these keys may not return the values set by this method
+     * if there is any other configuration that contain the same properties and is in front of the 
+     * <em>container configuration</em> in the configurations list.
+     */
+    @Override
+    public void updateProperties(Map<String, ?> propertiesToSet, Collection<String> propertiesToClear) {
+        if (containerConfiguration instanceof ConcurrentMapConfiguration) {
+            ((ConcurrentMapConfiguration) containerConfiguration).updateProperties(propertiesToSet, propertiesToClear);
+            return;
+        }
+        if (propertiesToClear != null) {
+            for (String key: propertiesToClear) {
+                if (propertiesToSet == null || !propertiesToSet.containsKey(key)) {
+                    containerConfiguration.clearProperty(key);
+                }
+            }
+        }
+        if (propertiesToSet != null) {
+            for (Map.Entry<String, ?> entry: propertiesToSet.entrySet()) {
+                containerConfiguration.setProperty(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
     /**
      * Clear the property with the <em>container configuration</em>. 
      * <b>Warning: </b>{@link #getProperty(String)} on this key may still return some value 
@@ -521,6 +1034,11 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
      */
     public Object getProperty(String key)
     {
+        ConcurrentHashMap<String, ResolvedValue> index = resolvedValues;
+        if (index != null) {
+            ResolvedValue resolved = index.get(key);
+            return (resolved == null) ? null : resolved.value;
+        }
         if (overrideProperties.containsKey(key)) {
             return overrideProperties.getProperty(key);
         }
@@ -586,11 +1104,24 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
     /**
      * Get the list of the keys contained in the sub configurations that match the
      * specified prefix.
-     * 
+     * <p>
+     * If the override properties and all sub configurations return their matching keys in sorted order
+     * (see {@link ConcurrentMapConfiguration#ENABLE_KEY_INDEX}), the keys are merged lazily in sorted order,
+     * so the cost is proportional to the number of matching keys. Otherwise they are
+     * collected from all sub configurations first.
      */
     @Override
     public Iterator<String> getKeys(String prefix)
     {
+        List<AbstractConfiguration> configs = new ArrayList<AbstractConfiguration>(configList);
+        if (hasSortedPrefixKeys(overrideProperties, configs)) {
+            List<Iterator<String>> iterators = new ArrayList<Iterator<String>>(configs.size() + 1);
+            iterators.add(overrideProperties.getKeys(prefix));
+            for (AbstractConfiguration config: configs) {
+                iterators.add(config.getKeys(prefix));
+            }
+            return new MergedKeysIterator(iterators);
+        }
         Set<String> keys = new LinkedHashSet<String>();
         for (Iterator<String> it = overrideProperties.getKeys(prefix); it.hasNext();) {
             keys.add(it.next());
@@ -606,6 +1137,78 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
         return keys.iterator();
     }
 
+    private static boolean hasSortedPrefixKeys(AbstractConfiguration overrides, List<AbstractConfiguration> configs) {
+        if (!(overrides instanceof ConcurrentMapConfiguration)
+                || !((ConcurrentMapConfiguration) overrides).hasSortedPrefixKeys()) {
+            return false;
+        }
+        for (AbstractConfiguration config: configs) {
+            if (!(config instanceof ConcurrentMapConfiguration)
+                    || !((ConcurrentMapConfiguration) config).hasSortedPrefixKeys()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the override properties and all sub configurations return the keys
+     *    matching a prefix in sorted order, in which case this configuration does too
+     */
+    @Override
+    boolean hasSortedPrefixKeys() {
+        return hasSortedPrefixKeys(overrideProperties, configList);
+    }
+
+    /**
+     * Merges iterators over sorted keys into one iterator over the distinct keys in sorted order.
+     */
+    private static final class MergedKeysIterator implements Iterator<String> {
+        private final PriorityQueue<PeekingIterator<String>> heads;
+
+        MergedKeysIterator(List<Iterator<String>> iterators) {
+            heads = new PriorityQueue<PeekingIterator<String>>(Math.max(1, iterators.size()),
+                    new Comparator<PeekingIterator<String>>() {
+                        @Override
+                        public int compare(PeekingIterator<String> o1, PeekingIterator<String> o2) {
+                            return o1.peek().compareTo(o2.peek());
+                        }
+                    });
+            for (Iterator<String> iterator: iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(Iterators.peekingIterator(iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            if (heads.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            String next;
+            // take the smallest key and skip the same key in the other iterators
+            do {
+                PeekingIterator<String> head = heads.poll();
+                next = head.next();
+                if (head.hasNext()) {
+                    heads.add(head);
+                }
+            } while (!heads.isEmpty() && heads.peek().peek().equals(next));
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * Returns a set with the names of all configurations contained in this
      * configuration. Of course here are only these configurations
@@ -648,6 +1251,10 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
     @Override
     public boolean containsKey(String key)
     {
+        ConcurrentHashMap<String, ResolvedValue> index = resolvedValues;
+        if (index != null) {
+            return index.containsKey(key);
+        }
         if (overrideProperties.containsKey(key)) {
             return true;
         }
@@ -773,7 +1380,7 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
      * clone, i.e. all configurations contained in this composite will also be
      * cloned. This only works if all contained configurations support cloning;
      * otherwise a runtime exception will be thrown. Registered event handlers
-     * won't get cloned.
+     * and the resolved value index won't get cloned.
      *
      */
     @Override
@@ -784,6 +1391,12 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
             ConcurrentCompositeConfiguration copy = (ConcurrentCompositeConfiguration) super
                     .clone();
             copy.clearConfigurationListeners();
+            // like the event handlers, the resolved value index is not cloned
+            copy.resolvedValues = null;
+            copy.snapshot = null;
+            copy.indexLock = new Object();
+            copy.version = new AtomicLong();
+            copy.valuesBeingCleared = new ConcurrentHashMap<Configuration, Map<String, Object>>();
             copy.configList = new LinkedList<AbstractConfiguration>();
             copy.containerConfiguration = (AbstractConfiguration) ConfigurationUtils
                     .cloneConfiguration(getContainerConfiguration());
@@ -855,6 +1468,12 @@ public class ConcurrentCompositeConfiguration extends ConcurrentMapConfiguration
             throw new IllegalArgumentException("Key must not be null!");
         }
 
+        ConcurrentHashMap<String, ResolvedValue> index = resolvedValues;
+        if (index != null) {
+            ResolvedValue resolved = index.get(key);
+            return (resolved == null) ? null : resolved.source;
+        }
+
         if (overrideProperties.containsKey(key)) {
             return overrideProperties;
         }
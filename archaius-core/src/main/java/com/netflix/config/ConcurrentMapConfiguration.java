@@ -18,10 +18,12 @@ package com.netflix.config;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -50,6 +52,14 @@ import com.netflix.config.validation.ValidationException;
  * <p>
  * This configuration does not allow null as key or value and will throw NullPointerException
  * when trying to add or set properties with empty key or value.
+ * <p>
+ * If system property {@value #ENABLE_KEY_INDEX} is set to true when the configuration is created, the keys
+ * are also kept in a sorted index, so that {@link #getKeys(String)} (and so {@link #subset(String)}) only visits
+ * the matching keys instead of all keys. The index costs some memory per key, and adding or removing a key
+ * takes a striped lock to keep the index consistent.
+ * <p>
+ * A number of properties can be set and cleared together with {@link #updateProperties(Map, Collection)},
+ * which validates all of them before changing any, and fires a single {@link #EVENT_BATCH_UPDATE} event.
  *
  * @author awang
  *
@@ -67,11 +77,23 @@ public class ConcurrentMapConfiguration extends AbstractConfiguration {
      */
     public static final String DISABLE_DELIMITER_PARSING = "archaius.configuration.disableDelimiterParsing";
 
+    /**
+     * System property to enable the sorted key index used by {@link #getKeys(String)}
+     */
+    public static final String ENABLE_KEY_INDEX = "archaius.configuration.enableKeyIndex";
+
+    /**
+     * Type of the event fired by {@link #updateProperties(Map, Collection)}. The property name of the event is null
+     * and its value is the unmodifiable map of the properties that are set, with their value, or cleared, with a null value.
+     * It is only delivered to {@link BatchConfigurationListener}s.
+     */
+    public static final int EVENT_BATCH_UPDATE = 10002;
+
     /**
      * Create an instance with an empty map.
      */
     public ConcurrentMapConfiguration() {
-        map = new ConcurrentHashMap<String,Object>();
+        map = indexKeysIfEnabled(new ConcurrentHashMap<String,Object>());
         for (int i = 0; i < NUM_LOCKS; i++) {
             locks[i] = new ReentrantLock();
         }
@@ -81,7 +103,24 @@ public class ConcurrentMapConfiguration extends AbstractConfiguration {
     
     public ConcurrentMapConfiguration(Map<String, Object> mapToCopy) {
         this();
-        map = new ConcurrentHashMap<String, Object>(mapToCopy);
+        map = indexKeysIfEnabled(new ConcurrentHashMap<String, Object>(mapToCopy));
+    }
+
+    /**
+     * Wrap the map with a {@link KeyIndexedMap} if {@value #ENABLE_KEY_INDEX} is set.
+     */
+    static Map<String, Object> indexKeysIfEnabled(ConcurrentMap<String, Object> map) {
+        if (Boolean.getBoolean(ENABLE_KEY_INDEX)) {
+            return new KeyIndexedMap(map);
+        }
+        return map;
+    }
+
+    /**
+     * @return true if the keys are kept in a sorted index, see {@value #ENABLE_KEY_INDEX}
+     */
+    public boolean isKeyIndexEnabled() {
+        return map instanceof KeyIndexedMap;
     }
 
     /**
@@ -151,6 +190,26 @@ public class ConcurrentMapConfiguration extends AbstractConfiguration {
     {
         return map.keySet().iterator();
     }
+
+    /**
+     * Get the keys that match the prefix, as {@link AbstractConfiguration#getKeys(String)} does. If the key index
+     * is enabled, the keys are looked up in the index and returned in sorted order.
+     */
+    @Override
+    public Iterator getKeys(String prefix)
+    {
+        if (map instanceof KeyIndexedMap) {
+            return ((KeyIndexedMap) map).getKeys(prefix);
+        }
+        return super.getKeys(prefix);
+    }
+
+    /**
+     * @return true if {@link #getKeys(String)} returns the keys in sorted order
+     */
+    boolean hasSortedPrefixKeys() {
+        return isKeyIndexEnabled();
+    }
     
 
     /**
@@ -236,6 +295,52 @@ public class ConcurrentMapConfiguration extends AbstractConfiguration {
         }        
     }
     
+    /**
+     * Set and clear a number of properties as one update. The before update {@link #EVENT_BATCH_UPDATE} event is fired
+     * first, so that if a validator rejects any of the properties, none of them is changed. The properties are then
+     * changed and a single after update event is fired, so that a listener sees all the new values when it is notified.
+     * Listeners that are not {@link BatchConfigurationListener}s receive one event per property instead.
+     * <p>
+     * The {@link DynamicProperty} instances of the properties publish their new values together, so a reader of
+     * several of them sees either all or none of the values of the update. Readers of this configuration itself are
+     * not blocked while the properties are changed, so a reader that reads several of the properties during the update
+     * may see some of the old values; {@link ConcurrentCompositeConfiguration#getSnapshot()} gives a consistent view.
+     *
+     * @param propertiesToSet the properties to set, with their non null value
+     * @param propertiesToClear the properties to clear. A property both set and cleared is set.
+     * @throws ValidationException if a validator rejects the update, in which case no property is changed
+     */
+    public void updateProperties(Map<String, ?> propertiesToSet, Collection<String> propertiesToClear)
+            throws ValidationException {
+        Map<String, Object> changes = new LinkedHashMap<String, Object>();
+        if (propertiesToClear != null) {
+            for (String key: propertiesToClear) {
+                changes.put(key, null);
+            }
+        }
+        if (propertiesToSet != null) {
+            for (Map.Entry<String, ?> entry: propertiesToSet.entrySet()) {
+                if (entry.getValue() == null) {
+                    throw new NullPointerException("Value for property " + entry.getKey() + " is null");
+                }
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        changes = Collections.unmodifiableMap(changes);
+        fireEvent(EVENT_BATCH_UPDATE, null, changes, true);
+        for (Map.Entry<String, Object> entry: changes.entrySet()) {
+            if (entry.getValue() == null) {
+                clearPropertyDirect(entry.getKey());
+            } else {
+                setPropertyImpl(entry.getKey(), entry.getValue());
+            }
+        }
+        fireEvent(EVENT_BATCH_UPDATE, null, changes, false);
+    }
+
     /**
      * Load properties into the configuration. This method iterates through
      * the entries of the properties and call {@link #setProperty(String, Object)} for 
@@ -308,17 +413,33 @@ public class ConcurrentMapConfiguration extends AbstractConfiguration {
         ConfigurationEvent event = createEvent(type, propName, propValue, beforeUpdate);
         for (ConfigurationListener l: listeners)
         {
-            try {
-                l.configurationChanged(event);
-            } catch (ValidationException e) {
-                if (beforeUpdate) {
-                    throw e;
-                } else {
-                    logger.error("Unexpected exception", e);                    
-                }
-            } catch (Throwable e) {
-                logger.error("Error firing configuration event", e);
+            if (type == EVENT_BATCH_UPDATE && !(l instanceof BatchConfigurationListener)) {
+                fireBatchAsPropertyEvents(l, (Map<String, Object>) propValue, beforeUpdate);
+                continue;
+            }
+            notifyListener(l, event);
+        }
+    }
+
+    private void fireBatchAsPropertyEvents(ConfigurationListener l, Map<String, Object> changes, boolean beforeUpdate) {
+        for (Map.Entry<String, Object> entry: changes.entrySet()) {
+            Object value = entry.getValue();
+            int type = (value == null) ? EVENT_CLEAR_PROPERTY : EVENT_SET_PROPERTY;
+            notifyListener(l, createEvent(type, entry.getKey(), value, beforeUpdate));
+        }
+    }
+
+    private void notifyListener(ConfigurationListener l, ConfigurationEvent event) {
+        try {
+            l.configurationChanged(event);
+        } catch (ValidationException e) {
+            if (event.isBeforeUpdate()) {
+                throw e;
+            } else {
+                logger.error("Unexpected exception", e);                    
             }
+        } catch (Throwable e) {
+            logger.error("Error firing configuration event", e);
         }
     }
     
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+
+/**
+ * The outcome of loading one configuration with
+ * {@link ConfigurationManager#loadConfigurationsInParallel(java.util.Map, long, java.util.concurrent.TimeUnit)}.
+ */
+public class ConfigurationLoadResult {
+
+    public enum Status {
+        /**
+         * The configuration was loaded and added to the aggregated configuration
+         */
+        LOADED,
+        /**
+         * Loading the configuration, or adding it, threw an exception
+         */
+        FAILED,
+        /**
+         * The configuration was not loaded before the deadline
+         */
+        TIMED_OUT
+    }
+
+    private final String name;
+    private final Status status;
+    private final AbstractConfiguration configuration;
+    private final long loadTimeMillis;
+    private final Throwable exception;
+
+    ConfigurationLoadResult(String name, Status status, AbstractConfiguration configuration,
+            long loadTimeMillis, Throwable exception) {
+        this.name = name;
+        this.status = status;
+        this.configuration = configuration;
+        this.loadTimeMillis = loadTimeMillis;
+        this.exception = exception;
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    public final Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the configuration that was loaded, null if it was not loaded
+     */
+    public final AbstractConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the time taken to load the configuration, or the time waited for it if it timed out
+     */
+    public final long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    /**
+     * @return the exception thrown loading the configuration if it failed, otherwise null
+     */
+    public final Throwable getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationLoadResult [name=" + name + ", status=" + status
+                + ", loadTimeMillis=" + loadTimeMillis + ", exception=" + exception + "]";
+    }
+}
@@ -17,6 +17,7 @@ package com.netflix.config;
 
 import com.netflix.config.jmx.ConfigJMXManager;
 import com.netflix.config.jmx.ConfigMBean;
+import com.netflix.config.jmx.PropertyMetricsMBean;
 import com.netflix.config.util.ConfigurationUtils;
 
 import org.apache.commons.configuration.AbstractConfiguration;
@@ -27,17 +28,33 @@ import org.apache.commons.configuration.event.ConfigurationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The configuration manager is a central place where it manages the system wide Configuration and
@@ -55,6 +72,7 @@ public class ConfigurationManager {
     
     static volatile AbstractConfiguration instance = null;
     static volatile boolean customConfigurationInstalled = false;
+    private static PropertyMetricsMBean propertyMetricsMBean = null;
     private static volatile ConfigMBean configMBean = null;
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationManager.class);
     static volatile DeploymentContext context = null;
@@ -207,8 +225,19 @@ public class ConfigurationManager {
             } catch (Exception e) {
                 logger.error("Unable to register with JMX", e);
             }
+            registerPropertyMetricsBean();
         }        
     }
+
+    private static synchronized void registerPropertyMetricsBean() {
+        if (propertyMetricsMBean == null && DynamicProperty.isMetricsEnabled()) {
+            try {
+                propertyMetricsMBean = ConfigJMXManager.registerPropertyMetricsMBean();
+            } catch (Exception e) {
+                logger.error("Unable to register property metrics with JMX", e);
+            }
+        }
+    }
     
     static synchronized void setDirect(AbstractConfiguration config) {
         if (instance != null) {
@@ -350,6 +379,183 @@ public class ConfigurationManager {
         }        
     }
     
+    /**
+     * Load configurations concurrently and add them to the system wide configuration, which must be an
+     * {@link AggregatedConfiguration}.
+     * 
+     * @see #loadConfigurationsInParallel(AggregatedConfiguration, Map, long, TimeUnit)
+     */
+    public static List<ConfigurationLoadResult> loadConfigurationsInParallel(
+            Map<String, ? extends Callable<? extends AbstractConfiguration>> loaders, long timeout, TimeUnit unit) {
+        AbstractConfiguration config = getConfigInstance();
+        if (!(config instanceof AggregatedConfiguration)) {
+            throw new IllegalStateException("The system wide configuration is not an AggregatedConfiguration: " + config);
+        }
+        return loadConfigurationsInParallel((AggregatedConfiguration) config, loaders, timeout, unit);
+    }
+
+    /**
+     * Load configurations concurrently and add them to the aggregated configuration. Each loader is called
+     * on its own thread and typically creates a {@link DynamicConfiguration} or a {@link DynamicWatchedConfiguration},
+     * whose constructor does the initial load from its source, so the start up takes about as long as the
+     * slowest source instead of the sum of all of them. Note that a scheduler should not be shared by sources
+     * that are loaded in parallel, as {@link AbstractPollingScheduler} does one initial load at a time.
+     * <p>
+     * The configurations are added in the iteration order of the map, so the first one has the highest
+     * precedence among them, as with {@link AggregatedConfiguration#addConfiguration(AbstractConfiguration, String)}.
+     * A configuration that fails to load, or is not loaded before the timeout, is left out and its
+     * loading thread is interrupted; the others are still added in order. If a loader that timed out still
+     * returns a configuration, its polling is stopped: {@link DynamicConfiguration#stopLoading()} is called,
+     * a {@link DynamicWatchedConfiguration} is removed from the listeners of its source, and a
+     * {@link Closeable} configuration is closed.
+     * 
+     * @param target the configuration to add the loaded configurations to
+     * @param loaders the loaders of the configurations, by name
+     * @param timeout the time to wait for all of the configurations to be loaded
+     * @param unit the unit of the timeout
+     * @return the result for each configuration, in the same order as the loaders
+     */
+    public static List<ConfigurationLoadResult> loadConfigurationsInParallel(AggregatedConfiguration target,
+            Map<String, ? extends Callable<? extends AbstractConfiguration>> loaders, long timeout, TimeUnit unit) {
+        final long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, loaders.size()), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "loadConfiguration-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        List<ConfigurationLoadResult> results = new ArrayList<ConfigurationLoadResult>(loaders.size());
+        boolean interrupted = false;
+        try {
+            Map<String, ConfigurationLoadTask> tasks = new LinkedHashMap<String, ConfigurationLoadTask>();
+            Map<String, Future<ConfigurationLoadResult>> futures = new LinkedHashMap<String, Future<ConfigurationLoadResult>>();
+            for (Map.Entry<String, ? extends Callable<? extends AbstractConfiguration>> entry: loaders.entrySet()) {
+                ConfigurationLoadTask task = new ConfigurationLoadTask(entry.getKey(), entry.getValue());
+                tasks.put(entry.getKey(), task);
+                futures.put(entry.getKey(), executor.submit(task));
+            }
+            for (Map.Entry<String, Future<ConfigurationLoadResult>> entry: futures.entrySet()) {
+                String name = entry.getKey();
+                Future<ConfigurationLoadResult> future = entry.getValue();
+                ConfigurationLoadResult result;
+                try {
+                    long remaining = interrupted ? 0 : deadline - System.nanoTime();
+                    result = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    result = new ConfigurationLoadResult(name, ConfigurationLoadResult.Status.TIMED_OUT, null,
+                            elapsedMillis(start), null);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    result = new ConfigurationLoadResult(name, ConfigurationLoadResult.Status.TIMED_OUT, null,
+                            elapsedMillis(start), e);
+                } catch (ExecutionException e) {
+                    // not expected as the task catches everything
+                    result = new ConfigurationLoadResult(name, ConfigurationLoadResult.Status.FAILED, null,
+                            elapsedMillis(start), e.getCause());
+                }
+                if (result.getStatus() == ConfigurationLoadResult.Status.LOADED) {
+                    try {
+                        target.addConfiguration(result.getConfiguration(), name);
+                    } catch (RuntimeException e) {
+                        stopConfiguration(result.getConfiguration());
+                        result = new ConfigurationLoadResult(name, ConfigurationLoadResult.Status.FAILED, null,
+                                result.getLoadTimeMillis(), e);
+                    }
+                } else {
+                    future.cancel(true);
+                    tasks.get(name).abandon();
+                }
+                if (result.getStatus() == ConfigurationLoadResult.Status.LOADED) {
+                    logger.info("Loaded configuration {} in {} ms", name, result.getLoadTimeMillis());
+                } else {
+                    logger.error("Configuration " + name + " was not loaded: " + result.getStatus()
+                            + " after " + result.getLoadTimeMillis() + " ms", result.getException());
+                }
+                results.add(result);
+            }
+        } finally {
+            executor.shutdownNow();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return results;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Calls a loader for {@link #loadConfigurationsInParallel(AggregatedConfiguration, Map, long, TimeUnit)}.
+     * If the result is no longer waited for when the loader returns, the configuration is stopped.
+     */
+    private static class ConfigurationLoadTask implements Callable<ConfigurationLoadResult> {
+        private final String name;
+        private final Callable<? extends AbstractConfiguration> loader;
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+        // the loaded configuration until it is taken by whichever of the loader and the caller stops it
+        private final AtomicReference<AbstractConfiguration> loaded = new AtomicReference<AbstractConfiguration>();
+
+        ConfigurationLoadTask(String name, Callable<? extends AbstractConfiguration> loader) {
+            this.name = name;
+            this.loader = loader;
+        }
+
+        @Override
+        public ConfigurationLoadResult call() {
+            long loadStart = System.nanoTime();
+            try {
+                AbstractConfiguration config = loader.call();
+                loaded.set(config);
+                if (abandoned.get()) {
+                    stopLoaded();
+                }
+                return new ConfigurationLoadResult(name, ConfigurationLoadResult.Status.LOADED, config,
+                        elapsedMillis(loadStart), null);
+            } catch (Throwable e) {
+                return new ConfigurationLoadResult(name, ConfigurationLoadResult.Status.FAILED, null,
+                        elapsedMillis(loadStart), e);
+            }
+        }
+
+        void abandon() {
+            abandoned.set(true);
+            stopLoaded();
+        }
+
+        private void stopLoaded() {
+            AbstractConfiguration config = loaded.getAndSet(null);
+            if (config != null) {
+                logger.info("Stopping configuration {}, which was loaded after the timeout", name);
+                stopConfiguration(config);
+            }
+        }
+    }
+
+    /**
+     * Stop the polling or watching of a configuration that is not used.
+     */
+    private static void stopConfiguration(AbstractConfiguration config) {
+        try {
+            if (config instanceof DynamicConfiguration) {
+                ((DynamicConfiguration) config).stopLoading();
+            } else if (config instanceof DynamicWatchedConfiguration) {
+                DynamicWatchedConfiguration watched = (DynamicWatchedConfiguration) config;
+                watched.getSource().removeUpdateListener(watched);
+            }
+            if (config instanceof Closeable) {
+                ((Closeable) config).close();
+            }
+        } catch (Throwable e) {
+            logger.warn("Error stopping configuration " + config, e);
+        }
+    }
+
     /**
      * Load the specified properties into system wide configuration
      */
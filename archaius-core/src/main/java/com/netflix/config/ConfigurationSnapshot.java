@@ -0,0 +1,242 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * Reads and writes snapshots of configuration properties in a compact binary file, so that
+ * the properties last loaded from a slow or remote source can be served right away on the next start.
+ * <p>
+ * A snapshot is written to a temporary file in the same directory and then renamed over the
+ * snapshot file, so a reader never sees a partially written snapshot. The snapshot is read
+ * by memory mapping the file, and it carries a checksum so that a damaged file is
+ * rejected with an {@link IOException} instead of yielding wrong properties.
+ * <p>
+ * Values that are collections are stored as lists of strings, even if they have a single element or none,
+ * and all other values are stored as their string representation.
+ */
+public final class ConfigurationSnapshot {
+
+    private static final int MAGIC = 0x41524353;
+    private static final int VERSION = 2;
+    /**
+     * Written in place of the number of elements for a value that is not a collection.
+     */
+    private static final int SINGLE_VALUE = -1;
+    private static final String CHARSET = "UTF-8";
+
+    private ConfigurationSnapshot() {
+    }
+
+    /**
+     * Write the properties of the configuration to the snapshot file, replacing it atomically.
+     * For a {@link ConcurrentCompositeConfiguration}, this is the resolved value of each property.
+     */
+    public static void write(File file, Configuration config) throws IOException {
+        Map<String, Object> properties = new LinkedHashMap<String, Object>();
+        for (Iterator<?> keys = config.getKeys(); keys.hasNext();) {
+            String key = (String) keys.next();
+            Object value = config.getProperty(key);
+            if (value != null) {
+                properties.put(key, value);
+            }
+        }
+        write(file, properties);
+    }
+
+    /**
+     * Write the properties to the snapshot file, replacing it atomically.
+     */
+    public static void write(File file, Map<String, ?> properties) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create directory " + dir);
+        }
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        boolean renamed = false;
+        try {
+            FileOutputStream fileOut = new FileOutputStream(temp);
+            try {
+                CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut), new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(properties.size());
+                for (Map.Entry<String, ?> entry: properties.entrySet()) {
+                    writeString(out, entry.getKey());
+                    Object value = entry.getValue();
+                    if (value instanceof Collection) {
+                        Collection<?> values = (Collection<?>) value;
+                        out.writeInt(values.size());
+                        for (Object element: values) {
+                            writeString(out, String.valueOf(element));
+                        }
+                    } else {
+                        out.writeInt(SINGLE_VALUE);
+                        writeString(out, String.valueOf(value));
+                    }
+                }
+                out.flush();
+                // the checksum itself is not part of the checked content
+                long checksum = checked.getChecksum().getValue();
+                DataOutputStream trailer = new DataOutputStream(fileOut);
+                trailer.writeLong(checksum);
+                trailer.flush();
+                fileOut.getFD().sync();
+            } finally {
+                fileOut.close();
+            }
+            renamed = temp.renameTo(file);
+            if (!renamed) {
+                // renaming over an existing file fails on some platforms
+                file.delete();
+                renamed = temp.renameTo(file);
+            }
+            if (!renamed) {
+                throw new IOException("Unable to rename " + temp + " to " + file);
+            }
+        } finally {
+            if (!renamed) {
+                temp.delete();
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read the properties from the snapshot file. The value of a property is a String, or
+     * a List of Strings if it was a collection when the snapshot was written.
+     *
+     * @throws IOException if the file cannot be read, or it is not a valid snapshot
+     */
+    public static Map<String, Object> read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(new Reader(buffer), file);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated configuration snapshot " + file);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static Map<String, Object> read(Reader in, File file) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a configuration snapshot: " + file);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported configuration snapshot version " + version + ": " + file);
+        }
+        int size = in.readSize();
+        Map<String, Object> properties = new HashMap<String, Object>(Math.max(16, (int) (size / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            int count = in.readInt();
+            if (count == SINGLE_VALUE) {
+                properties.put(key, in.readString());
+            } else {
+                in.checkSize(count);
+                List<String> values = new ArrayList<String>(count);
+                for (int j = 0; j < count; j++) {
+                    values.add(in.readString());
+                }
+                properties.put(key, values);
+            }
+        }
+        long expected = in.checksum();
+        if (in.buffer.getLong() != expected || in.buffer.hasRemaining()) {
+            throw new IOException("Corrupt configuration snapshot " + file);
+        }
+        return properties;
+    }
+
+    /**
+     * Decodes the mapped file, computing the same checksum as the {@link CheckedOutputStream} used to write it.
+     */
+    private static final class Reader {
+        private final MappedByteBuffer buffer;
+        private final CRC32 crc = new CRC32();
+        private byte[] bytes = new byte[256];
+
+        Reader(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            int value = buffer.getInt();
+            crc.update(value >>> 24);
+            crc.update(value >>> 16);
+            crc.update(value >>> 8);
+            crc.update(value);
+            return value;
+        }
+
+        int readSize() throws IOException {
+            return checkSize(readInt());
+        }
+
+        int checkSize(int size) throws IOException {
+            if (size < 0 || size > buffer.remaining()) {
+                throw new IOException("Invalid size " + size + " in configuration snapshot");
+            }
+            return size;
+        }
+
+        String readString() throws IOException {
+            int length = readSize();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            crc.update(bytes, 0, length);
+            return new String(bytes, 0, length, CHARSET);
+        }
+
+        long checksum() {
+            return crc.getValue();
+        }
+    }
+}
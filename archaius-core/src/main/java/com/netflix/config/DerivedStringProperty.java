@@ -48,7 +48,7 @@ public abstract class DerivedStringProperty<D> implements Property<D> {
                 propertyChangedInternal();
             }
         };
-        delegate.addCallback(callback);
+        delegate.addWrapperCallback(callback);
         callbackList.add(callback);
     }
 
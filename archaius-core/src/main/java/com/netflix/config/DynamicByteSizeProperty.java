@@ -0,0 +1,68 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+/**
+ * A dynamic property whose value is a size in bytes, for example <code>512</code>, <code>64k</code>,
+ * <code>10MB</code> or <code>2GiB</code>. The multiples <code>k</code>, <code>m</code>, <code>g</code>, 
+ * <code>t</code> and <code>p</code> are binary, i.e. a kilobyte is 1024 bytes.
+ * <p>
+ * Like {@link CachedDynamicLongProperty}, the value is parsed once whenever it is changed and cached as a primitive.
+ * If the value cannot be parsed, the default value is used.
+ */
+public class DynamicByteSizeProperty extends PropertyWrapper<Long> {
+
+    protected volatile long primitiveValue;
+
+    /**
+     * @param propName name of the property
+     * @param defaultValue default size in bytes
+     */
+    public DynamicByteSizeProperty(String propName, long defaultValue) {
+        super(propName, Long.valueOf(defaultValue));
+
+        // Set the initial value of the cached primitive value.
+        this.primitiveValue = chooseValue();
+    }
+
+    @Override
+    protected void propertyChanged() {
+        // Update the cached primitive value when the property is changed.
+        this.primitiveValue = chooseValue();
+    }
+
+    /**
+     * Get the current value from the underlying DynamicProperty
+     *
+     * @return
+     */
+    protected long chooseValue() {
+        return PrimitiveParsers.parseByteSize(prop.peekString(), defaultValue.longValue());
+    }
+
+    /**
+     * Get the current cached value in bytes.
+     */
+    public long get() {
+        recordRead();
+        return primitiveValue;
+    }
+
+    @Override
+    public Long getValue() {
+        return get();
+    }
+}
@@ -16,8 +16,10 @@
 package com.netflix.config;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -141,6 +143,68 @@ public class DynamicContextualProperty<T> extends PropertyWrapper<T> {
     private final ObjectMapper mapper = new ObjectMapper();
     
     private final Class<T> classType;
+
+    /**
+     * Condition of a value compiled for the default predicate: the DynamicProperties of the dimensions
+     * and the acceptable values for each of them.
+     */
+    private static final class CompiledRule<T> {
+        private final DynamicProperty[] dimensions;
+        private final Set<String>[] acceptedValues;
+        private final T value;
+
+        @SuppressWarnings("unchecked")
+        CompiledRule(Map<String, Collection<String>> conditions, T value) {
+            int size = (conditions == null) ? 0 : conditions.size();
+            this.dimensions = new DynamicProperty[size];
+            this.acceptedValues = new Set[size];
+            this.value = value;
+            if (conditions != null) {
+                int i = 0;
+                for (Map.Entry<String, Collection<String>> entry: conditions.entrySet()) {
+                    dimensions[i] = DynamicProperty.getInstance(entry.getKey());
+                    acceptedValues[i] = new HashSet<String>(entry.getValue());
+                    i++;
+                }
+            }
+        }
+
+        boolean matches() {
+            for (int i = 0; i < dimensions.length; i++) {
+                if (!acceptedValues[i].contains(dimensions[i].getString())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Holder of the resolved value, as the value itself may be null.
+     */
+    private static final class Resolved<T> {
+        private final T value;
+
+        Resolved(T value) {
+            this.value = value;
+        }
+    }
+
+    private final Object resolveLock = new Object();
+    // guarded by resolveLock
+    private CompiledRule<T>[] compiledRules;
+    // guarded by resolveLock
+    private Set<DynamicProperty> dimensionProperties = new HashSet<DynamicProperty>();
+    // null if the value cannot be cached and has to be evaluated on every call
+    private volatile Resolved<T> resolved;
+    private final Runnable dimensionChangedCallback = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (resolveLock) {
+                resolve();
+            }
+        }
+    };
     
     @SuppressWarnings("unchecked")
     public DynamicContextualProperty(String propName, T defaultValue, Predicate<Map<String, Collection<String>>> predicate) {
@@ -159,6 +223,15 @@ public class DynamicContextualProperty<T> extends PropertyWrapper<T> {
     }
 
     private final void propertyChangedInternal() {
+        try {
+            parseValues();
+        } finally {
+            // also when the value cannot be parsed, as values has been reset
+            compile(values);
+        }
+    }
+
+    private void parseValues() {
         if (prop.getString() != null) {
             try {
                 values = mapper.readValue(prop.getString(), new TypeReference<List<Value<T>>>(){});
@@ -181,6 +254,77 @@ public class DynamicContextualProperty<T> extends PropertyWrapper<T> {
             values = null;
         }
     }
+
+    /**
+     * Compile the conditions if they are evaluated by the default predicate, and register a callback with
+     * each DynamicProperty referenced by the conditions to resolve the value again when it changes.
+     */
+    @SuppressWarnings("unchecked")
+    private void compile(List<Value<T>> values) {
+        synchronized (resolveLock) {
+            CompiledRule<T>[] rules = null;
+            Set<DynamicProperty> referenced = new HashSet<DynamicProperty>();
+            if (predicate == DefaultContextualPredicate.PROPERTY_BASED && !isRuntimeEval(values)) {
+                List<CompiledRule<T>> compiled = Lists.newArrayList();
+                if (values != null) {
+                    for (Value<T> v: values) {
+                        CompiledRule<T> rule = new CompiledRule<T>(v.getDimensions(), v.getValue());
+                        for (DynamicProperty dimension: rule.dimensions) {
+                            referenced.add(dimension);
+                        }
+                        compiled.add(rule);
+                        if (rule.dimensions.length == 0) {
+                            // the following values can never be chosen
+                            break;
+                        }
+                    }
+                }
+                rules = compiled.toArray(new CompiledRule[compiled.size()]);
+            }
+            for (DynamicProperty dimension: dimensionProperties) {
+                if (!referenced.contains(dimension)) {
+                    dimension.removeCallback(dimensionChangedCallback);
+                }
+            }
+            for (DynamicProperty dimension: referenced) {
+                if (!dimensionProperties.contains(dimension)) {
+                    dimension.addWrapperCallback(dimensionChangedCallback);
+                }
+            }
+            dimensionProperties = referenced;
+            compiledRules = rules;
+            resolve();
+        }
+    }
+
+    private static boolean isRuntimeEval(List<? extends Value<?>> values) {
+        if (values != null) {
+            for (Value<?> v: values) {
+                if (v.isRuntimeEval()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolve the cached value from the compiled rules. Must be called with resolveLock held.
+     */
+    private void resolve() {
+        CompiledRule<T>[] rules = compiledRules;
+        if (rules == null) {
+            resolved = null;
+            return;
+        }
+        for (CompiledRule<T> rule: rules) {
+            if (rule.matches()) {
+                resolved = new Resolved<T>(rule.value);
+                return;
+            }
+        }
+        resolved = new Resolved<T>(defaultValue);
+    }
     
     @Override
     protected final void propertyChanged() {
@@ -190,6 +334,10 @@ public class DynamicContextualProperty<T> extends PropertyWrapper<T> {
     
     @Override
     public T getValue() {        
+        Resolved<T> current = resolved;
+        if (current != null) {
+            return current.value;
+        }
         if (values != null) {
             for (Value<T> v: values) {
                 if (v.getDimensions() == null || v.getDimensions().isEmpty()
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A dynamic property whose value is a duration, for example <code>500ms</code>, <code>30s</code>,
+ * <code>5m</code> or <code>2h</code>. The supported units are <code>ns</code>, <code>us</code>,
+ * <code>ms</code>, <code>s</code>, <code>m</code> (or <code>min</code>), <code>h</code> and <code>d</code>.
+ * A value without unit is in the unit of the property.
+ * <p>
+ * Like {@link CachedDynamicLongProperty}, the value is parsed once whenever it is changed and cached as a primitive.
+ * If the value cannot be parsed, the default value is used.
+ */
+public class DynamicDurationProperty extends PropertyWrapper<Long> {
+
+    private final TimeUnit unit;
+
+    protected volatile long primitiveValue;
+
+    /**
+     * @param propName name of the property
+     * @param defaultValue default duration, in the given unit
+     * @param unit unit of the default value and of {@link #get()}
+     */
+    public DynamicDurationProperty(String propName, long defaultValue, TimeUnit unit) {
+        super(propName, Long.valueOf(defaultValue));
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        this.unit = unit;
+
+        // Set the initial value of the cached primitive value.
+        this.primitiveValue = chooseValue();
+    }
+
+    @Override
+    protected void propertyChanged() {
+        if (unit == null) {
+            // called from the super class constructor
+            return;
+        }
+        // Update the cached primitive value when the property is changed.
+        this.primitiveValue = chooseValue();
+    }
+
+    /**
+     * Get the current value from the underlying DynamicProperty
+     *
+     * @return
+     */
+    protected long chooseValue() {
+        return PrimitiveParsers.parseDuration(prop.peekString(), unit, defaultValue.longValue());
+    }
+
+    /**
+     * Get the current cached value, in the unit of this property.
+     */
+    public long get() {
+        recordRead();
+        return primitiveValue;
+    }
+
+    /**
+     * Get the current cached value, converted to the given unit.
+     */
+    public long get(TimeUnit targetUnit) {
+        recordRead();
+        return targetUnit.convert(primitiveValue, unit);
+    }
+
+    /**
+     * @return the unit of {@link #get()} and of the default value
+     */
+    public TimeUnit getUnit() {
+        return unit;
+    }
+
+    @Override
+    public Long getValue() {
+        return get();
+    }
+}
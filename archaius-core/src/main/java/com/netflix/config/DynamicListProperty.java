@@ -102,7 +102,7 @@ public abstract class DynamicListProperty<T> implements Property<List<T>> {
                 propertyChangedInternal();
             }
         };
-        delegate.addCallback(callback);
+        delegate.addWrapperCallback(callback);
     }
 
     private void propertyChangedInternal() {
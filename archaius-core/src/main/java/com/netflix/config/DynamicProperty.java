@@ -15,9 +15,17 @@
  */
 package com.netflix.config;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,66 +49,170 @@ import com.netflix.config.validation.ValidationException;
  * If the property value is fixed, consider just caching the value
  * in a variable.
  * <p>
- * Fetching the cached value is synchronized only on this property,
- * so contention should be negligible.
+ * Fetching the cached value never takes a lock: each update publishes
+ * an immutable snapshot of the value, and typed values are parsed
+ * at most once per update and then shared by all readers.
  * If even that level of overhead is too much for you,
  * you should (a) think real hard about what you are doing, and
  * (b) just cache the property value in a variable and be done
  * with it.
  * <p>
+ * Usage metrics of each property, such as the number of reads and updates and the time taken by
+ * callbacks, can be collected with {@link #setMetricsEnabled(boolean)} or system property
+ * {@value #METRICS_ENABLED_PROPERTY}. When metrics are disabled, reads only check that
+ * the property has no {@link PropertyMetrics}.
+ * <p>
  * <b>IMPORTANT NOTE</b>
  * <br>
  * DynamicProperty objects are not subject to normal garbage collection.
  * They should be used only as a static value that lives for the
  * lifetime of the program.
+ * Applications that create properties with names built at runtime can
+ * enable the eviction of unused properties with {@link #setEvictUnused(boolean)}
+ * or system property {@value #EVICT_UNUSED_PROPERTY}. A property is then
+ * removed once it is no longer referenced, directly or through a
+ * {@link PropertyWrapper}, unless it has callbacks or validators.
  *
  * @author slanning 
  */
 public class DynamicProperty {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamicProperty.class);
+
+    /**
+     * System property to enable the collection of {@link PropertyMetrics} from the start.
+     */
+    public static final String METRICS_ENABLED_PROPERTY = "archaius.dynamicProperty.metricsEnabled";
+
+    /**
+     * System property to enable the eviction of unused properties from the start.
+     */
+    public static final String EVICT_UNUSED_PROPERTY = "archaius.dynamicProperty.evictUnused";
+
     private volatile static DynamicPropertySupport dynamicPropertySupportImpl;
+    private volatile static CallbackDispatcher callbackDispatcher = SynchronousCallbackDispatcher.INSTANCE;
 
     /*
      * Cache update is handled by a single configuration listener,
      * with a static collection holding all defined DynamicProperty objects.
      * It is assumed that DynamicProperty objects are static and never
      * subject to gc, so holding them in the collection does not cause
-     * a memory leak.
+     * a memory leak. When unused properties are evicted, the collection
+     * only holds weakly the properties without callbacks or validators.
      */
     
-    private static final ConcurrentHashMap<String, DynamicProperty> ALL_PROPS
-        = new ConcurrentHashMap<String, DynamicProperty>();
+    private static final ConcurrentHashMap<String, PropertyRef> ALL_PROPS
+        = new ConcurrentHashMap<String, PropertyRef>();
+    private static final ReferenceQueue<DynamicProperty> collectedProps = new ReferenceQueue<DynamicProperty>();
+    private static volatile boolean evictUnused = Boolean.getBoolean(EVICT_UNUSED_PROPERTY);
+    private static final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * An entry of ALL_PROPS. The property is also held strongly unless it can be evicted, and the
+     * entry is removed once the property is collected.
+     */
+    private static final class PropertyRef extends WeakReference<DynamicProperty> {
+        final String name;
+        volatile DynamicProperty strongRef;
+        // kept here to unregister the metrics once the property is collected
+        volatile PropertyMetrics metrics;
+
+        PropertyRef(DynamicProperty prop) {
+            super(prop, collectedProps);
+            this.name = prop.propName;
+        }
+    }
+
+    // serializes enabling and disabling metrics and changes of the registry
+    private static final Object metricsLock = new Object();
+    private static volatile boolean metricsEnabled = Boolean.getBoolean(METRICS_ENABLED_PROPERTY);
+    private static PropertyMetricsRegistry metricsRegistry;
     
-    private Object lock = new Object();         // synchs caches and updates
+    private Object lock = new Object();         // synchs updates
     private String propName;
-    private String stringValue = null;
-    private long changedTime;
+    private PropertyRef ref;
+    private volatile PropertyValue propertyValue = PropertyValue.NULL;
+    // null when metrics are disabled
+    private volatile PropertyMetrics metrics;
     private CopyOnWriteArraySet<Runnable> callbacks = new CopyOnWriteArraySet<Runnable>();
     private CopyOnWriteArraySet<PropertyChangeValidator> validators = new CopyOnWriteArraySet<PropertyChangeValidator>();
+    // the callbacks and validators of wrappers that hold this property, which do not keep it from being evicted
+    private final Set<Object> wrapperHooks = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    private final Runnable callbackNotification = new Runnable() {
+        public void run() {
+            runCallbacks();
+        }
+    };
+
+    /*
+     * Slot index of each typed value in a PropertyValue
+     */
+    private static final int STRING_SLOT = 0;
+    private static final int BOOLEAN_SLOT = 1;
+    private static final int INTEGER_SLOT = 2;
+    private static final int LONG_SLOT = 3;
+    private static final int FLOAT_SLOT = 4;
+    private static final int DOUBLE_SLOT = 5;
+    private static final int CLASS_SLOT = 6;
+    private static final int NUM_SLOTS = 7;
 
+    /**
+     * An immutable snapshot of the property value, published as a whole on
+     * each update. The typed values are parsed lazily from the string value
+     * the first time they are requested and stored in their slot with a CAS,
+     * so readers never lock and, once a slot is filled, never allocate.
+     * <p>
+     * A value set by a batch update is published before the batch is committed. Until then
+     * readers see the previous value, which is dropped once the batch is committed.
+     */
+    private static final class PropertyValue {
+        static final PropertyValue NULL = new PropertyValue(null, 0, null, null);
+
+        final String stringValue;
+        final long changedTime;
+        // each slot holds null (not yet parsed), the parsed value, or a ParseFailure
+        final AtomicReferenceArray<Object> slots;
+        // the batch that set this value, null if it was not set by a batch
+        final Batch batch;
+        // the value visible until the batch is committed, cleared after the commit
+        volatile PropertyValue previous;
+
+        PropertyValue(String stringValue, long changedTime, Batch batch, PropertyValue previous) {
+            this.stringValue = stringValue;
+            this.changedTime = changedTime;
+            this.slots = (stringValue == null) ? null : new AtomicReferenceArray<Object>(NUM_SLOTS);
+            this.batch = batch;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * The values of a batch update become visible to readers together, with the single volatile
+     * write that commits the batch.
+     */
+    private static final class Batch {
+        volatile boolean committed;
+    }
+
+    /**
+     * Marker stored in a slot when the string value cannot be parsed to the slot's type.
+     */
+    private static final class ParseFailure {
+        final IllegalArgumentException exception;
+
+        ParseFailure(IllegalArgumentException exception) {
+            this.exception = exception;
+        }
+    }
 
     /**
      * A cached value of a particular type.
      * @param <T> the type of the cached value
      */
     private abstract class CachedValue<T> {
-        private volatile boolean isCached;
-        private volatile IllegalArgumentException exception;
-        private volatile T value;
-        public CachedValue() {
-            flush();
-        }
-        /**
-         * Flushes the cached value.
-         * Must be called with the {@code lock} variable held by this thread.
-         */
-        final void flush() {
-            // NOTE: is only called from updateValue(Object) which holds the lock
-            // assert(Thread.holdsLock(lock));
-            isCached = false;
-            exception = null;
-            value = null;
+        private final int slot;
+        public CachedValue(int slot) {
+            this.slot = slot;
         }
         /**
          * Gets the cached value.
@@ -109,26 +221,14 @@ public class DynamicProperty {
          * @return the parsed value, or null if there was no string value
          * @throws IllegalArgumentException if there was a problem
          */
+        @SuppressWarnings("unchecked")
         public T getValue() throws IllegalArgumentException {
-            // Not quite double-check locking -- since isCached is marked as volatile
-            if (!isCached) {
-                synchronized (lock) {
-                    try {
-                        value = (stringValue == null) ? null : parse(stringValue);
-                        exception = null;
-                    } catch (Exception e) {
-                        value = null;
-                        exception = new IllegalArgumentException(e);
-                    } finally {
-                        isCached = true;
-                    }
-                }
-            }
-            if (exception != null) {
-                throw exception;
-            } else {
-                return value;
+            recordRead();
+            Object result = getParsed(currentValue());
+            if (result instanceof ParseFailure) {
+                throw ((ParseFailure) result).exception;
             }
+            return (T) result;
         }
 
         /**
@@ -141,22 +241,56 @@ public class DynamicProperty {
          * @return the parsed value, or the default if there was no
          *    string value or a problem during parse
          */
+        @SuppressWarnings("unchecked")
         public T getValue(T defaultValue) {
-            try {
-                T result = getValue();
-                return (result == null) ? defaultValue : result;
-            } catch (IllegalArgumentException e) {
+            recordRead();
+            Object result = getParsed(currentValue());
+            if (result == null || result instanceof ParseFailure) {
                 return defaultValue;
             }
+            return (T) result;
+        }
+
+        /**
+         * Gets the parsed value (or ParseFailure) of this type from the snapshot,
+         * filling in the slot if this is the first request since the update.
+         * Concurrent first readers may both parse, but only one result is kept.
+         */
+        private Object getParsed(PropertyValue current) {
+            if (current.stringValue == null) {
+                return null;
+            }
+            Object result = current.slots.get(slot);
+            if (result == null) {
+                Object parsed;
+                try {
+                    parsed = parse(current.stringValue);
+                } catch (Exception e) {
+                    parsed = new ParseFailure(new IllegalArgumentException(e));
+                    PropertyMetrics m = metrics;
+                    if (m != null) {
+                        m.recordParseFailure();
+                    }
+                }
+                if (current.slots.compareAndSet(slot, null, parsed)) {
+                    result = parsed;
+                } else {
+                    result = current.slots.get(slot);
+                }
+            }
+            return result;
         }
+
         @Override
         public String toString() {
-            if (!isCached) {
+            PropertyValue current = currentValue();
+            Object result = (current.slots == null) ? null : current.slots.get(slot);
+            if (current.slots != null && result == null) {
                 return "{not cached}";
-            } else if (exception != null) {
-                return "{Exception: " + exception + "}";
+            } else if (result instanceof ParseFailure) {
+                return "{Exception: " + ((ParseFailure) result).exception + "}";
             } else {
-                return "{Value: " + value + "}";
+                return "{Value: " + result + "}";
             }
         }
         /**
@@ -175,7 +309,7 @@ public class DynamicProperty {
      * Cached translated values
      */
 
-    private CachedValue<Boolean> booleanValue = new CachedValue<Boolean>() {
+    private CachedValue<Boolean> booleanValue = new CachedValue<Boolean>(BOOLEAN_SLOT) {
         protected Boolean parse(String rep) throws IllegalArgumentException {
             for (int i = 0; i < TRUE_VALUES.length; i++){
                 if (rep.equalsIgnoreCase(TRUE_VALUES[i])) {
@@ -191,38 +325,38 @@ public class DynamicProperty {
         }
     };
 
-    private CachedValue<String> cachedStringValue = new CachedValue<String>() {
+    private CachedValue<String> cachedStringValue = new CachedValue<String>(STRING_SLOT) {
         protected String parse(String rep) {
             return rep;
         }
     };
 
-    private CachedValue<Integer> integerValue = new CachedValue<Integer>() {
+    private CachedValue<Integer> integerValue = new CachedValue<Integer>(INTEGER_SLOT) {
         protected Integer parse(String rep) throws NumberFormatException {
             return Integer.valueOf(rep);
         }
     };
 
-    private CachedValue<Long> longValue = new CachedValue<Long>() {
+    private CachedValue<Long> longValue = new CachedValue<Long>(LONG_SLOT) {
         protected Long parse(String rep) throws NumberFormatException {
             return Long.valueOf(rep);
         }
     };
 
-    private CachedValue<Float> floatValue = new CachedValue<Float>() {
+    private CachedValue<Float> floatValue = new CachedValue<Float>(FLOAT_SLOT) {
         protected Float parse(String rep) throws NumberFormatException {
             return Float.valueOf(rep);
         }
     };
 
-    private CachedValue<Double> doubleValue = new CachedValue<Double>() {
+    private CachedValue<Double> doubleValue = new CachedValue<Double>(DOUBLE_SLOT) {
         protected Double parse(String rep) throws NumberFormatException {
             return Double.valueOf(rep);
         }
     };
 
     
-    private CachedValue<Class> classValue = new CachedValue<Class>() {
+    private CachedValue<Class> classValue = new CachedValue<Class>(CLASS_SLOT) {
         protected Class parse(String rep) throws ClassNotFoundException {
             return Class.forName(rep);
         }
@@ -247,17 +381,60 @@ public class DynamicProperty {
         if (dynamicPropertySupportImpl == null) {
             DynamicPropertyFactory.getInstance();
         }
-        DynamicProperty prop = ALL_PROPS.get(propName);
+        expungeCollected();
+        DynamicProperty prop = getRegistered(propName);
         if (prop == null) {
             prop = new DynamicProperty(propName);
-            DynamicProperty oldProp = ALL_PROPS.putIfAbsent(propName, prop);
-            if (oldProp != null) {
-                prop = oldProp;
+            while (true) {
+                PropertyRef oldRef = ALL_PROPS.putIfAbsent(propName, prop.ref);
+                if (oldRef == null) {
+                    break;
+                }
+                DynamicProperty oldProp = oldRef.get();
+                if (oldProp != null) {
+                    return oldProp;
+                } else if (ALL_PROPS.replace(propName, oldRef, prop.ref)) {
+                    // the entry of a collected property that was not yet expunged
+                    evictedCount.incrementAndGet();
+                    break;
+                }
+            }
+            if (metricsEnabled) {
+                synchronized (metricsLock) {
+                    if (metricsEnabled) {
+                        prop.enableMetrics();
+                    }
+                }
             }
         }
         return prop;
     }
 
+    private static DynamicProperty getRegistered(String propName) {
+        PropertyRef ref = ALL_PROPS.get(propName);
+        return (ref == null) ? null : ref.get();
+    }
+
+    /**
+     * Remove the entries of the properties that were collected.
+     */
+    private static void expungeCollected() {
+        PropertyRef ref;
+        while ((ref = (PropertyRef) collectedProps.poll()) != null) {
+            if (ALL_PROPS.remove(ref.name, ref)) {
+                evictedCount.incrementAndGet();
+            }
+            PropertyMetrics m = ref.metrics;
+            if (m != null) {
+                synchronized (metricsLock) {
+                    if (metricsRegistry != null) {
+                        metricsRegistry.unregister(m);
+                    }
+                }
+            }
+        }
+    }
+
     protected DynamicProperty() {        
     }
     /**
@@ -267,6 +444,8 @@ public class DynamicProperty {
      */
     private DynamicProperty(String propName) {
         this.propName = propName;
+        this.ref = new PropertyRef(this);
+        updateEvictability();
         updateValue();
     }
 
@@ -286,11 +465,37 @@ public class DynamicProperty {
      * when the property value was last set/changed.
      */
     public long getChangedTimestamp() {
-        synchronized (lock) {
-            return changedTime;
+        return currentValue().changedTime;
+    }
+
+    /**
+     * Gets the usage metrics of this property.
+     *
+     * @return the metrics, or null if metrics are disabled
+     */
+    public PropertyMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Count a read of the value of this property if metrics are enabled. Reads through the
+     * accessors of this class are counted, this is for wrappers that cache the value themselves.
+     */
+    void recordRead() {
+        PropertyMetrics m = metrics;
+        if (m != null) {
+            m.recordRead();
         }
     }
 
+    /**
+     * Gets the current string value without counting it as a read, for the internal use of
+     * wrappers that refresh their own cached value.
+     */
+    String peekString() {
+        return currentValue().stringValue;
+    }
+
     /**
      * Gets the current value of the property as a String.
      *
@@ -497,6 +702,7 @@ public class DynamicProperty {
             throw new NullPointerException("Cannot add null callback to DynamicProperty");
         }
         callbacks.add(r);
+        updateEvictability();
     }
 
     public void addValidator(PropertyChangeValidator validator) {
@@ -504,6 +710,34 @@ public class DynamicProperty {
             throw new NullPointerException("Cannot add null validator to DynamicProperty");            
         }
         validators.add(validator);
+        updateEvictability();
+    }
+
+    /**
+     * Adds a callback that a wrapper of this property uses to maintain its own state. As the wrapper that
+     * the callback refers to also holds this property, the callback does not keep the property from being
+     * evicted once neither is referenced.
+     */
+    void addWrapperCallback(Runnable r) {
+        if (r == null) {
+            throw new NullPointerException("Cannot add null callback to DynamicProperty");
+        }
+        wrapperHooks.add(r);
+        callbacks.add(r);
+        updateEvictability();
+    }
+
+    /**
+     * Adds a validator of a wrapper of this property, which does not keep the property from being evicted,
+     * see {@link #addWrapperCallback(Runnable)}.
+     */
+    void addWrapperValidator(PropertyChangeValidator validator) {
+        if (validator == null) {
+            throw new NullPointerException("Cannot add null validator to DynamicProperty");
+        }
+        wrapperHooks.add(validator);
+        validators.add(validator);
+        updateEvictability();
     }
     
     /**
@@ -513,7 +747,26 @@ public class DynamicProperty {
      * @return true iff the callback was previously registered
      */
     public boolean removeCallback(Runnable r) {
-        return callbacks.remove(r);
+        boolean removed = callbacks.remove(r);
+        if (removed) {
+            wrapperHooks.remove(r);
+        }
+        updateEvictability();
+        return removed;
+    }
+
+    /**
+     * Hold this property strongly from ALL_PROPS unless it can be evicted, which is when eviction is enabled and
+     * it has no callbacks or validators other than those of its wrappers.
+     */
+    private void updateEvictability() {
+        if (ref == null) {
+            return;
+        }
+        synchronized (lock) {
+            boolean evictable = evictUnused && callbacks.size() + validators.size() == wrapperHooks.size();
+            ref.strongRef = evictable ? null : this;
+        }
     }
     
     Set<Runnable> getCallbacks() {
@@ -521,6 +774,14 @@ public class DynamicProperty {
     }
 
     private void notifyCallbacks() {
+        if (!callbacks.isEmpty()) {
+            callbackDispatcher.dispatch(this, callbackNotification);
+        }
+    }
+
+    private void runCallbacks() {
+        PropertyMetrics m = metrics;
+        long start = (m == null) ? 0 : System.nanoTime();
         for (Runnable r : callbacks) {
             try {
                 r.run();
@@ -528,6 +789,9 @@ public class DynamicProperty {
                 logger.error("Error in DynamicProperty callback", e);
             }
         }
+        if (m != null) {
+            m.recordCallbacks(System.nanoTime() - start);
+        }
     }
 
     private void validate(String newValue) {
@@ -559,34 +823,58 @@ public class DynamicProperty {
         return updateValue(newValue);
     }
 
-    private void setStatusForValues() {
-        cachedStringValue.isCached = false;
-        booleanValue.isCached = false;
-        integerValue.isCached = false;
-        floatValue.isCached = false;
-        classValue.isCached = false;
-        doubleValue.isCached = false;
-        longValue.isCached = false;
+    /**
+     * Get the value visible to readers, which is the latest value unless it was set by a batch that is
+     * not committed yet.
+     */
+    private PropertyValue currentValue() {
+        PropertyValue value = propertyValue;
+        while (true) {
+            Batch batch = value.batch;
+            if (batch == null || batch.committed) {
+                return value;
+            }
+            PropertyValue previous = value.previous;
+            if (previous == null) {
+                // only cleared once the batch is committed
+                return value;
+            }
+            value = previous;
+        }
     }
 
     // return true iff the value actually changed
     boolean updateValue(Object newValue) {
+        return updateValue(newValue, null) != null;
+    }
+
+    /**
+     * @return the new value, or null if the value did not change
+     */
+    private PropertyValue updateValue(Object newValue, Batch batch) {
         String nv = (newValue == null) ? null : newValue.toString();
         synchronized (lock) {
+            // compared with the latest value, even if its batch is not committed yet
+            PropertyValue latest = propertyValue;
+            String stringValue = latest.stringValue;
             if ((nv == null && stringValue == null)
                || (nv != null && nv.equals(stringValue))) {
-                return false;
+                return null;
             }
-            stringValue = nv;
-            setStatusForValues();
-            changedTime = System.currentTimeMillis();
-            return true;
+            PropertyValue value = new PropertyValue(nv, System.currentTimeMillis(), batch,
+                    batch == null ? null : latest);
+            propertyValue = value;
+            PropertyMetrics m = metrics;
+            if (m != null) {
+                m.recordUpdate();
+            }
+            return value;
         }
     }
 
     // return true iff the value actually changed
     private static boolean updateProperty(String propName, Object value) {
-        DynamicProperty prop = ALL_PROPS.get(propName);
+        DynamicProperty prop = getRegistered(propName);
         if (prop != null && prop.updateValue(value)) {
             prop.notifyCallbacks();
             return true;
@@ -597,8 +885,10 @@ public class DynamicProperty {
     // return true iff _some_ value actually changed
     private static boolean updateAllProperties() {
         boolean changed = false;
-        for (DynamicProperty prop : ALL_PROPS.values()) {
-            if (prop.updateValue()) {
+        expungeCollected();
+        for (PropertyRef ref : ALL_PROPS.values()) {
+            DynamicProperty prop = ref.get();
+            if (prop != null && prop.updateValue()) {
                 prop.notifyCallbacks();
                 changed = true;
             }
@@ -606,8 +896,45 @@ public class DynamicProperty {
         return changed;
     }
     
+    /**
+     * Update the properties of a batch. The new values are published as part of a batch that is then
+     * committed, so readers see either none or all of them. All values are updated before any callback
+     * is run, so that a callback sees the new value of every property of the batch.
+     */
+    private static void updateProperties(Map<String, Object> changes) {
+        List<DynamicProperty> changed = null;
+        List<PropertyValue> published = null;
+        Batch batch = new Batch();
+        try {
+            for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                DynamicProperty prop = getRegistered(entry.getKey());
+                PropertyValue value = (prop == null) ? null : prop.updateValue(entry.getValue(), batch);
+                if (value != null) {
+                    if (changed == null) {
+                        changed = new ArrayList<DynamicProperty>();
+                        published = new ArrayList<PropertyValue>();
+                    }
+                    changed.add(prop);
+                    published.add(value);
+                }
+            }
+        } finally {
+            batch.committed = true;
+            if (published != null) {
+                for (PropertyValue value : published) {
+                    value.previous = null;
+                }
+            }
+        }
+        if (changed != null) {
+            for (DynamicProperty prop : changed) {
+                prop.notifyCallbacks();
+            }
+        }
+    }
+
     private static void validate(String propName, Object value) {
-        DynamicProperty prop = ALL_PROPS.get(propName);
+        DynamicProperty prop = getRegistered(propName);
         if (prop != null) {
             String newValue = (value == null)? null : value.toString();
             prop.validate(newValue);
@@ -619,9 +946,21 @@ public class DynamicProperty {
      * A callback object that listens for configuration changes
      * and maintains cached property values.
      */
-    static class DynamicPropertyListener implements PropertyListener {
+    static class DynamicPropertyListener implements BatchPropertyListener {
         DynamicPropertyListener() { }
         @Override
+        public void updateProperties(Object source, Map<String, Object> changes, boolean beforeUpdate) {
+            if (!beforeUpdate) {
+                DynamicProperty.updateProperties(changes);
+            } else {
+                for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                    if (entry.getValue() != null) {
+                        validate(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+        @Override
         public void configSourceLoaded(Object source) {
             updateAllProperties();
         }
@@ -669,6 +1008,144 @@ public class DynamicProperty {
     static void registerWithDynamicPropertySupport(DynamicPropertySupport config) {
         initialize(config);
     }
+
+    /**
+     * Set the {@link CallbackDispatcher} that runs the callbacks of all DynamicProperty
+     * objects after their value changed. The default is {@link SynchronousCallbackDispatcher}.
+     */
+    public static void setCallbackDispatcher(CallbackDispatcher dispatcher) {
+        if (dispatcher == null) {
+            throw new NullPointerException("Cannot set null callback dispatcher");
+        }
+        callbackDispatcher = dispatcher;
+    }
+
+    public static CallbackDispatcher getCallbackDispatcher() {
+        return callbackDispatcher;
+    }
+
+    /**
+     * Enable or disable the collection of {@link PropertyMetrics} for all DynamicProperty objects.
+     * Disabling metrics discards the metrics collected so far.
+     */
+    public static void setMetricsEnabled(boolean enabled) {
+        synchronized (metricsLock) {
+            metricsEnabled = enabled;
+            for (PropertyRef ref : ALL_PROPS.values()) {
+                DynamicProperty prop = ref.get();
+                if (prop == null) {
+                    continue;
+                } else if (enabled) {
+                    prop.enableMetrics();
+                } else {
+                    prop.disableMetrics();
+                }
+            }
+        }
+    }
+
+    public static boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Install the registry that receives the metrics of every property, replacing the current one.
+     * The metrics that already exist are unregistered from the current registry and registered with the new one.
+     *
+     * @param registry the registry, or null to only keep the metrics in the DynamicProperty objects
+     */
+    public static void setMetricsRegistry(PropertyMetricsRegistry registry) {
+        synchronized (metricsLock) {
+            for (PropertyMetrics m : getAllMetrics()) {
+                if (metricsRegistry != null) {
+                    metricsRegistry.unregister(m);
+                }
+                if (registry != null) {
+                    registry.register(m);
+                }
+            }
+            metricsRegistry = registry;
+        }
+    }
+
+    /**
+     * Enable or disable the eviction of unused properties. When enabled, a property that has no
+     * callbacks or validators, apart from those that its {@link PropertyWrapper}s register to maintain
+     * their own values, is removed once it is no longer referenced, directly or through a wrapper, so that
+     * the memory used and the time taken to refresh all properties depend on the live properties only.
+     * A property that is evicted is created again with the current value if it is requested later, but
+     * its metrics start over.
+     */
+    public static void setEvictUnused(boolean enabled) {
+        evictUnused = enabled;
+        for (PropertyRef ref : ALL_PROPS.values()) {
+            DynamicProperty prop = ref.get();
+            if (prop != null) {
+                prop.updateEvictability();
+            }
+        }
+    }
+
+    public static boolean isEvictUnused() {
+        return evictUnused;
+    }
+
+    /**
+     * @return the number of properties currently registered, including evicted properties whose
+     *         entry is not yet removed
+     */
+    public static int getRegisteredPropertyCount() {
+        expungeCollected();
+        return ALL_PROPS.size();
+    }
+
+    /**
+     * @return the number of properties evicted since the start
+     */
+    public static long getEvictedPropertyCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * @return the metrics of all properties, empty if metrics are disabled
+     */
+    public static List<PropertyMetrics> getAllMetrics() {
+        if (!metricsEnabled) {
+            return Collections.emptyList();
+        }
+        List<PropertyMetrics> all = new ArrayList<PropertyMetrics>(ALL_PROPS.size());
+        for (PropertyRef ref : ALL_PROPS.values()) {
+            DynamicProperty prop = ref.get();
+            PropertyMetrics m = (prop == null) ? null : prop.metrics;
+            if (m != null) {
+                all.add(m);
+            }
+        }
+        return all;
+    }
+
+    // called with metricsLock held
+    private void enableMetrics() {
+        if (metrics == null) {
+            metrics = new PropertyMetrics(propName);
+            ref.metrics = metrics;
+            if (metricsRegistry != null) {
+                metricsRegistry.register(metrics);
+            }
+        }
+    }
+
+    // called with metricsLock held
+    private void disableMetrics() {
+        PropertyMetrics m = metrics;
+        if (m != null) {
+            metrics = null;
+            ref.metrics = null;
+            if (metricsRegistry != null) {
+                metricsRegistry.unregister(m);
+            }
+        }
+    }
             
     /*
      * Object protocol
@@ -17,8 +17,13 @@ package com.netflix.config;
 
 import com.google.common.base.Splitter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -65,47 +70,112 @@ public class DynamicPropertyUpdater {
         logger.debug("incremental result? [{}]", result.isIncremental());
         logger.debug("ignored deletes from source? [{}]", ignoreDeletesFromSource);
 
+        Map<String, Object> toSet = new HashMap<String, Object>();
+        List<String> toDelete = new ArrayList<String>();
         if (!result.isIncremental()) {
             Map<String, Object> props = result.getComplete();
             if (props == null) {
                 return;
             }
-            for (Entry<String, Object> entry : props.entrySet()) {
-                addOrChangeProperty(entry.getKey(), entry.getValue(), config);
-            }
-            Set<String> existingKeys = new HashSet<String>();
-            for (Iterator<String> i = config.getKeys(); i.hasNext();) {
-                existingKeys.add(i.next());
-            }
+            toSet.putAll(props);
             if (!ignoreDeletesFromSource) {
-                for (String key : existingKeys) {
+                for (Iterator<String> i = config.getKeys(); i.hasNext();) {
+                    String key = i.next();
                     if (!props.containsKey(key)) {
-                        deleteProperty(key, config);
+                        toDelete.add(key);
                     }
                 }
             }
         } else {
             Map<String, Object> props = result.getAdded();
-            if (props != null) {
-                for (Entry<String, Object> entry : props.entrySet()) {
-                    addOrChangeProperty(entry.getKey(), entry.getValue(), config);
-                }
+            Map<String, Object> changed = result.getChanged();
+            if (props != null && changed != null && !Collections.disjoint(props.keySet(), changed.keySet())) {
+                // a property both added and changed gets both values in turn, as when applied one by one
+                applyChanges(props, Collections.<String>emptyList(), config);
+            } else if (props != null) {
+                toSet.putAll(props);
             }
-            props = result.getChanged();
-            if (props != null) {
-                for (Entry<String, Object> entry : props.entrySet()) {
-                    addOrChangeProperty(entry.getKey(), entry.getValue(), config);
-                }
+            if (changed != null) {
+                toSet.putAll(changed);
             }
             if (!ignoreDeletesFromSource) {
                 props = result.getDeleted();
                 if (props != null) {
-                    for (String name : props.keySet()) {
-                        deleteProperty(name, config);
+                    toDelete.addAll(props.keySet());
+                }
+            }
+        }
+        applyChanges(toSet, toDelete, config);
+    }
+
+    /**
+     * Add or change and delete properties in the underlying config. If the config is a {@link ConcurrentMapConfiguration},
+     * the properties whose value actually changes are updated in one batch with
+     * {@link ConcurrentMapConfiguration#updateProperties(Map, Collection)}. If the batch fails validation, the properties are
+     * updated one by one so that only the invalid ones are skipped.
+     * 
+     * @param toSet properties to add or change
+     * @param toDelete properties to delete
+     * @param config underlying config map
+     */
+    void applyChanges(final Map<String, Object> toSet, final Collection<String> toDelete, final Configuration config) {
+        if (config instanceof ConcurrentMapConfiguration) {
+            Map<String, Object> batchSet = new HashMap<String, Object>();
+            Set<String> batchClear = new HashSet<String>();
+            for (String key : toDelete) {
+                if (config.containsKey(key)) {
+                    batchClear.add(key);
+                }
+            }
+            for (Entry<String, Object> entry : toSet.entrySet()) {
+                Object value = entry.getValue();
+                // null values are left to addOrChangeProperty, and a delete wins over a change as when applied one by one
+                if (value != null && !batchClear.contains(entry.getKey()) && isChanged(entry.getKey(), value, config)) {
+                    batchSet.put(entry.getKey(), value);
+                }
+            }
+            try {
+                logger.debug("updating {} and deleting {} properties in one batch", batchSet.size(), batchClear.size());
+                ((ConcurrentMapConfiguration) config).updateProperties(batchSet, batchClear);
+                for (Entry<String, Object> entry : toSet.entrySet()) {
+                    if (entry.getValue() == null) {
+                        addOrChangeProperty(entry.getKey(), null, config);
                     }
                 }
+                return;
+            } catch (ValidationException e) {
+                logger.warn("Validation failed for a batch of properties, updating them one by one", e);
+            }
+        }
+        for (Entry<String, Object> entry : toSet.entrySet()) {
+            addOrChangeProperty(entry.getKey(), entry.getValue(), config);
+        }
+        for (String key : toDelete) {
+            deleteProperty(key, config);
+        }
+    }
+
+    /**
+     * @return true if the property does not exist in the config or has a value different from the non null new value
+     */
+    private boolean isChanged(final String name, final Object newValue, final Configuration config) {
+        return !config.containsKey(name) || !isSameValue(config.getProperty(name), newValue);
+    }
+
+    /**
+     * Compare the value of a property with a new non null value. If the property has several values, the new value
+     * is split on the list delimiter before the comparison, as the configuration would do.
+     */
+    private static boolean isSameValue(final Object oldValue, final Object newValue) {
+        if (oldValue instanceof CopyOnWriteArrayList && AbstractConfiguration.getDefaultListDelimiter() != '\0') {
+            List<String> newValues = new ArrayList<String>();
+            for (String s : Splitter.on(AbstractConfiguration.getDefaultListDelimiter()).omitEmptyStrings()
+                    .trimResults().split((String) newValue)) {
+                newValues.add(s);
             }
+            return newValues.equals(oldValue);
         }
+        return newValue.equals(oldValue);
     }
 
     /**
@@ -126,20 +196,7 @@ public class DynamicPropertyUpdater {
                 Object oldValue = config.getProperty(name);
              
                 if (newValue != null) {
-                    Object newValueArray;
-                    if (oldValue instanceof CopyOnWriteArrayList && AbstractConfiguration.getDefaultListDelimiter() != '\0'){
-                        newValueArray = 
-                                        new CopyOnWriteArrayList();
-                        
-                      Iterable<String> stringiterator = Splitter.on(AbstractConfiguration.getDefaultListDelimiter()).omitEmptyStrings().trimResults().split((String)newValue);
-                      for(String s :stringiterator){
-                            ((CopyOnWriteArrayList) newValueArray).add(s);
-                        }
-                      } else {
-                          newValueArray = newValue;
-                      }
-                  
-                    if (!newValueArray.equals(oldValue)) {
+                    if (!isSameValue(oldValue, newValue)) {
                         logger.debug("updating property key [{}], value [{}]", name, newValue);
     
                         config.setProperty(name, newValue);
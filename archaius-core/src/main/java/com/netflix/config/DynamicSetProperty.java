@@ -100,7 +100,7 @@ public abstract class DynamicSetProperty<T> implements Property<Set<T>> {
                 propertyChangedInternal();
             }
         };
-        delegate.addCallback(callback);
+        delegate.addWrapperCallback(callback);
         callbackList.add(callback);
     }
 
@@ -15,7 +15,13 @@
  */
 package com.netflix.config;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +34,11 @@ import org.slf4j.LoggerFactory;
  * <p>
  * This configuration does not allow null as key or value and will throw NullPointerException when trying to add or set
  * properties with empty key or value.
+ * <p>
+ * Updates can be applied in batches, see
+ * {@link #DynamicWatchedConfiguration(WatchedConfigurationSource, boolean, DynamicPropertyUpdater, long, int)}.
+ * The updates received within a short window are merged, so that a property changed several times is only
+ * updated, and its listeners only called, once with its last value.
  * 
  * @author cfregly
  */
@@ -36,9 +47,34 @@ public class DynamicWatchedConfiguration extends ConcurrentMapConfiguration impl
     private final WatchedConfigurationSource source;
     private final boolean ignoreDeletesFromSource;
     private final DynamicPropertyUpdater updater;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+
+    /*
+     * Updates received but not applied yet. If a full result is pending, later updates are merged into it,
+     * otherwise the last value or delete of each property is kept.
+     */
+    private final Object batchLock = new Object();
+    private Map<String, Object> pendingComplete;
+    private Map<String, Object> pendingUpdates = new LinkedHashMap<String, Object>();
+    private Map<String, Object> pendingDeletes = new HashMap<String, Object>();
+    private boolean flushScheduled;
+    // held while a batch is taken and applied, so that batches are applied in order
+    private final Object applyLock = new Object();
 
     private static final Logger logger = LoggerFactory.getLogger(DynamicWatchedConfiguration.class);
 
+    private static class FlushExecutorHolder {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "watchedConfigurationBatch");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
     /**
      * Create an instance of the WatchedConfigurationSource, add listeners, and wait for the update callbacks.
      * 
@@ -47,9 +83,34 @@ public class DynamicWatchedConfiguration extends ConcurrentMapConfiguration impl
      */
     public DynamicWatchedConfiguration(WatchedConfigurationSource source, boolean ignoreDeletesFromSource,
             DynamicPropertyUpdater updater) {
+        this(source, ignoreDeletesFromSource, updater, 0, 0);
+    }
+
+    /**
+     * Create an instance that applies the updates from the source in batches. An update is applied at the latest
+     * after the batch window, together with the updates received since the first update of the batch. The batch is
+     * applied right away once it has updates for the maximum number of properties. The initial content of the source
+     * is applied before the constructor returns.
+     * 
+     * @param source
+     *            WatchedConfigurationSource to watch
+     * @param batchWindowMillis
+     *            the longest time an update waits before being applied, 0 to apply every update when it is received
+     * @param maxBatchSize
+     *            the number of properties updated that causes the batch to be applied before the end of the window,
+     *            at least 1 if the batch window is positive
+     * @throws IllegalArgumentException if the batch window is positive and the maximum batch size is less than 1
+     */
+    public DynamicWatchedConfiguration(WatchedConfigurationSource source, boolean ignoreDeletesFromSource,
+            DynamicPropertyUpdater updater, long batchWindowMillis, int maxBatchSize) {
+        if (batchWindowMillis > 0 && maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+        }
         this.source = source;
         this.ignoreDeletesFromSource = ignoreDeletesFromSource;
         this.updater = updater;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxBatchSize = maxBatchSize;
 
         // get a current snapshot of the config source data
         try {
@@ -57,6 +118,7 @@ public class DynamicWatchedConfiguration extends ConcurrentMapConfiguration impl
             WatchedUpdateResult result = WatchedUpdateResult.createFull(currentData);
 
             updateConfiguration(result);
+            flush();
         } catch (final Exception exc) {
             logger.error("could not getCurrentData() from the WatchedConfigurationSource", exc);
         }
@@ -80,7 +142,104 @@ public class DynamicWatchedConfiguration extends ConcurrentMapConfiguration impl
     public void updateConfiguration(final WatchedUpdateResult result) {
         //Preconditions.checkNotNull(result);
 
-        updater.updateProperties(result, this, ignoreDeletesFromSource);
+        if (batchWindowMillis <= 0) {
+            updater.updateProperties(result, this, ignoreDeletesFromSource);
+            return;
+        }
+        if (result == null || !result.hasChanges()) {
+            return;
+        }
+        boolean flushNow = false;
+        synchronized (batchLock) {
+            merge(result);
+            if (pendingSize() >= maxBatchSize) {
+                flushNow = true;
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                FlushExecutorHolder.INSTANCE.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            flush();
+                        } catch (Throwable e) {
+                            logger.error("Error applying updates from " + source, e);
+                        }
+                    }
+                }, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Merge the result with the pending updates. Must be called with batchLock held.
+     */
+    private void merge(WatchedUpdateResult result) {
+        if (!result.isIncremental()) {
+            Map<String, Object> complete = result.getComplete();
+            if (complete != null) {
+                pendingComplete = new HashMap<String, Object>(complete);
+                pendingUpdates.clear();
+                pendingDeletes.clear();
+            }
+            return;
+        }
+        mergeUpdates(result.getAdded());
+        mergeUpdates(result.getChanged());
+        Map<String, Object> deleted = result.getDeleted();
+        if (deleted != null) {
+            for (String key: deleted.keySet()) {
+                if (pendingComplete != null) {
+                    pendingComplete.remove(key);
+                } else {
+                    pendingUpdates.remove(key);
+                    pendingDeletes.put(key, null);
+                }
+            }
+        }
+    }
+
+    private void mergeUpdates(Map<String, Object> props) {
+        if (props == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry: props.entrySet()) {
+            if (pendingComplete != null) {
+                pendingComplete.put(entry.getKey(), entry.getValue());
+            } else {
+                pendingDeletes.remove(entry.getKey());
+                pendingUpdates.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private int pendingSize() {
+        return pendingComplete != null ? pendingComplete.size() : pendingUpdates.size() + pendingDeletes.size();
+    }
+
+    /**
+     * Apply the updates that are waiting for the end of the batch window now. Does nothing if updates are not batched.
+     */
+    public void flush() {
+        synchronized (applyLock) {
+            WatchedUpdateResult batch;
+            synchronized (batchLock) {
+                flushScheduled = false;
+                if (pendingComplete != null) {
+                    batch = WatchedUpdateResult.createFull(pendingComplete);
+                } else if (!pendingUpdates.isEmpty() || !pendingDeletes.isEmpty()) {
+                    batch = WatchedUpdateResult.createIncremental(pendingUpdates, null, pendingDeletes);
+                } else {
+                    return;
+                }
+                pendingComplete = null;
+                pendingUpdates = new LinkedHashMap<String, Object>();
+                pendingDeletes = new HashMap<String, Object>();
+            }
+            updater.updateProperties(batch, this, ignoreDeletesFromSource);
+        }
     }
 
     /**
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link CallbackDispatcher} that runs the callbacks of each property asynchronously on an {@link Executor},
+ * so that a slow callback does not delay the updates of other properties.
+ * <p>
+ * For each property, callbacks never run concurrently and always run after the change that triggered them.
+ * Changes to a property that happen while its callbacks are waiting to run are coalesced into
+ * that single pending run, which sees the latest value. If the property changes while its callbacks are running,
+ * they are run once more afterwards.
+ * <p>
+ * Note that the callbacks registered by {@link PropertyWrapper} subclasses to maintain derived values,
+ * for example in {@link CachedDynamicIntProperty}, are dispatched as well, so such values are updated
+ * shortly after the underlying {@link DynamicProperty} instead of before the update returns.
+ */
+public class ExecutorCallbackDispatcher implements CallbackDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorCallbackDispatcher.class);
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+    private static final int RUNNING_CHANGED = 3;
+    // removed from the map of dispatches, a new one is created for the next change
+    private static final int REMOVED = 4;
+
+    private final Executor executor;
+    private final ConcurrentHashMap<DynamicProperty, PropertyDispatch> dispatches
+            = new ConcurrentHashMap<DynamicProperty, PropertyDispatch>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong dispatchCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong totalCallbackNanos = new AtomicLong();
+    private final AtomicLong maxCallbackNanos = new AtomicLong();
+
+    /**
+     * Create an instance that runs the callbacks on the given executor.
+     */
+    public ExecutorCallbackDispatcher(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Create an instance that runs the callbacks on a fixed pool of daemon threads.
+     *
+     * @param threads number of threads in the pool
+     */
+    public ExecutorCallbackDispatcher(int threads) {
+        this(createExecutor(threads));
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "dynamicPropertyCallback-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * The pending and running callbacks of a single property. It is only kept in the map of dispatches
+     * while callbacks are pending or running, so that properties that no longer change are not held.
+     */
+    private class PropertyDispatch implements Runnable {
+        private final DynamicProperty property;
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile Runnable notification;
+
+        PropertyDispatch(DynamicProperty property) {
+            this.property = property;
+        }
+
+        /**
+         * @return false if this dispatch was removed and the change must go to a new one
+         */
+        boolean changed(Runnable latestNotification) {
+            notification = latestNotification;
+            while (true) {
+                int current = state.get();
+                if (current == IDLE) {
+                    if (state.compareAndSet(IDLE, SCHEDULED)) {
+                        submit();
+                        return true;
+                    }
+                } else if (current == RUNNING) {
+                    if (state.compareAndSet(RUNNING, RUNNING_CHANGED)) {
+                        return true;
+                    }
+                } else if (current == REMOVED) {
+                    return false;
+                } else {
+                    // the pending run will see the latest value
+                    coalescedCount.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        private void submit() {
+            queueDepth.incrementAndGet();
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Callback executor rejected the callbacks, running them on the current thread", e);
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            queueDepth.decrementAndGet();
+            state.set(RUNNING);
+            long start = System.nanoTime();
+            try {
+                notification.run();
+            } catch (Throwable e) {
+                logger.error("Error in DynamicProperty callback", e);
+            } finally {
+                recordLatency(System.nanoTime() - start);
+            }
+            if (!state.compareAndSet(RUNNING, IDLE)) {
+                // changed while running
+                state.set(SCHEDULED);
+                submit();
+            } else if (state.compareAndSet(IDLE, REMOVED)) {
+                dispatches.remove(property, this);
+            }
+        }
+    }
+
+    @Override
+    public void dispatch(DynamicProperty property, Runnable notification) {
+        while (true) {
+            PropertyDispatch dispatch = dispatches.get(property);
+            if (dispatch == null) {
+                dispatch = new PropertyDispatch(property);
+                PropertyDispatch existing = dispatches.putIfAbsent(property, dispatch);
+                if (existing != null) {
+                    dispatch = existing;
+                }
+            }
+            if (dispatch.changed(notification)) {
+                return;
+            }
+            // completed and being removed; the callbacks it ran have returned, so a new one can start
+            dispatches.remove(property, dispatch);
+        }
+    }
+
+    /**
+     * @return number of properties whose callbacks are pending or running
+     */
+    int getDispatchingPropertyCount() {
+        return dispatches.size();
+    }
+
+    private void recordLatency(long nanos) {
+        dispatchCount.incrementAndGet();
+        totalCallbackNanos.addAndGet(nanos);
+        long max = maxCallbackNanos.get();
+        while (nanos > max && !maxCallbackNanos.compareAndSet(max, nanos)) {
+            max = maxCallbackNanos.get();
+        }
+    }
+
+    /**
+     * @return number of properties whose callbacks are waiting to run
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return number of times the callbacks of a property were run
+     */
+    public long getDispatchCount() {
+        return dispatchCount.get();
+    }
+
+    /**
+     * @return number of changes that did not cause a separate run as callbacks were already pending
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return total time in nanoseconds spent running the callbacks
+     */
+    public long getTotalCallbackTimeNanos() {
+        return totalCallbackNanos.get();
+    }
+
+    /**
+     * @return longest time in nanoseconds spent running the callbacks of a property once
+     */
+    public long getMaxCallbackTimeNanos() {
+        return maxCallbackNanos.get();
+    }
+
+    /**
+     * @return average time in nanoseconds spent running the callbacks of a property once
+     */
+    public long getAverageCallbackTimeNanos() {
+        long count = dispatchCount.get();
+        return count == 0 ? 0 : totalCallbackNanos.get() / count;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.netflix.config;
 
+import java.util.Map;
+
 import org.apache.commons.configuration.AbstractConfiguration;
 import org.apache.commons.configuration.CombinedConfiguration;
 import org.apache.commons.configuration.HierarchicalConfiguration;
@@ -29,11 +31,15 @@ import org.apache.commons.configuration.event.ConfigurationListener;
  * events for {@link PropertyListener}.
  * <p>
  * It also has the capability to pause the event delivery through the {@link #setPauseListener(boolean)} API.
+ * <p>
+ * A {@link ConcurrentMapConfiguration#EVENT_BATCH_UPDATE} event is delivered with a single call if the listener is a
+ * {@link BatchPropertyListener}, and as one {@link PropertyListener#setProperty(Object, String, Object, boolean)} or
+ * {@link PropertyListener#clearProperty(Object, String, Object, boolean)} call per property otherwise.
  * <p> This class is used as an adapter to attach a {@link PropertyListener} to a Configuration so that
  * methods in the {@link PropertyListener} will be called when there is a change in the configuration.
  *  
  */
-public class ExpandedConfigurationListenerAdapter implements ConfigurationListener
+public class ExpandedConfigurationListenerAdapter implements BatchConfigurationListener
 {
     /** The wrapped PropertyListener. */
     private PropertyListener expandedListener;
@@ -139,6 +145,22 @@ public class ExpandedConfigurationListenerAdapter implements ConfigurationListen
         case AbstractConfiguration.EVENT_SET_PROPERTY:
             expandedListener.setProperty(source, name, value, beforeUpdate);
             break;
+
+        // Value is the map of the properties set and cleared.
+        case ConcurrentMapConfiguration.EVENT_BATCH_UPDATE:
+            Map<String, Object> changes = (Map<String, Object>) value;
+            if (expandedListener instanceof BatchPropertyListener) {
+                ((BatchPropertyListener) expandedListener).updateProperties(source, changes, beforeUpdate);
+            } else {
+                for (Map.Entry<String, Object> entry: changes.entrySet()) {
+                    if (entry.getValue() == null) {
+                        expandedListener.clearProperty(source, entry.getKey(), null, beforeUpdate);
+                    } else {
+                        expandedListener.setProperty(source, entry.getKey(), entry.getValue(), beforeUpdate);
+                    }
+                }
+            }
+            break;
             
         default:
             break;
@@ -0,0 +1,315 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent map that keeps the keys of another concurrent map in a sorted index, so that the keys with
+ * a given prefix are found in time proportional to their number rather than to the size of the map.
+ * <p>
+ * Reads go straight to the underlying map. Writes that add or remove a key lock one of a number of
+ * stripes, so that the index is kept consistent with the map.
+ */
+final class KeyIndexedMap extends AbstractMap<String, Object> implements ConcurrentMap<String, Object> {
+
+    private static final int NUM_LOCKS = 32;
+
+    private final ConcurrentMap<String, Object> delegate;
+    private final ConcurrentSkipListSet<String> keys = new ConcurrentSkipListSet<String>();
+    private final ReentrantLock[] locks = new ReentrantLock[NUM_LOCKS];
+
+    KeyIndexedMap(ConcurrentMap<String, Object> delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < NUM_LOCKS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        keys.addAll(delegate.keySet());
+    }
+
+    private ReentrantLock lockFor(Object key) {
+        return locks[(key.hashCode() & 0x7fffffff) % NUM_LOCKS];
+    }
+
+    /**
+     * Iterate, in sorted order, the keys that are equal to the prefix or start with the prefix
+     * followed by <code>"."</code>, which is how {@link org.apache.commons.configuration.AbstractConfiguration#getKeys(String)}
+     * matches keys. The iterator is weakly consistent.
+     */
+    Iterator<String> getKeys(final String prefix) {
+        final String start = prefix + ".";
+        final Iterator<String> tail = keys.tailSet(start).iterator();
+        // the prefix itself sorts before all the keys that start with the prefix and "."
+        final boolean includePrefix = keys.contains(prefix);
+        return new Iterator<String>() {
+            private boolean prefixReturned = !includePrefix;
+            private String next = advance();
+            private String last;
+
+            private String advance() {
+                if (!prefixReturned) {
+                    prefixReturned = true;
+                    return prefix;
+                }
+                if (tail.hasNext()) {
+                    String key = tail.next();
+                    if (key.startsWith(start)) {
+                        return key;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                KeyIndexedMap.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Object get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            Object previous = delegate.put(key, value);
+            if (previous == null) {
+                keys.add(key);
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            Object previous = delegate.putIfAbsent(key, value);
+            if (previous == null) {
+                keys.add(key);
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            Object previous = delegate.remove(key);
+            if (previous != null) {
+                keys.remove(key);
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (key == null) {
+            return false;
+        }
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            if (delegate.remove(key, value)) {
+                keys.remove(key);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        // never adds or removes a key
+        return delegate.replace(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        return delegate.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public void clear() {
+        for (ReentrantLock lock: locks) {
+            lock.lock();
+        }
+        try {
+            delegate.clear();
+            keys.clear();
+        } finally {
+            for (ReentrantLock lock: locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new RemovingIterator<String>(delegate.keySet().iterator()) {
+                    @Override
+                    String keyOf(String element) {
+                        return element;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return delegate.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return delegate.containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return KeyIndexedMap.this.remove(o) != null;
+            }
+
+            @Override
+            public void clear() {
+                KeyIndexedMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new RemovingIterator<Map.Entry<String, Object>>(delegate.entrySet().iterator()) {
+                    @Override
+                    String keyOf(Map.Entry<String, Object> element) {
+                        return element.getKey();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return delegate.size();
+            }
+
+            @Override
+            public void clear() {
+                KeyIndexedMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Iterator over the underlying map that removes through this map to keep the index up to date.
+     */
+    private abstract class RemovingIterator<E> implements Iterator<E> {
+        private final Iterator<E> iterator;
+        private E last;
+
+        RemovingIterator(Iterator<E> iterator) {
+            this.iterator = iterator;
+        }
+
+        abstract String keyOf(E element);
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            last = iterator.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            KeyIndexedMap.this.remove(keyOf(last));
+            last = null;
+        }
+    }
+}
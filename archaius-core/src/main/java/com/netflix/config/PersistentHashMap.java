@@ -0,0 +1,400 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable hash map where {@link #plus(Object, Object)} and {@link #minus(Object)} return a new map
+ * that shares all but the path to the changed entry with the original one (a hash array mapped trie).
+ * Updating one entry of a map of n entries copies O(log32 n) small nodes instead of the whole map,
+ * and reads need no locking since nothing is ever modified after it is published.
+ * <p>
+ * Keys and values must not be null.
+ */
+final class PersistentHashMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Leaf leaf = root.find(key, key.hashCode(), 0);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    boolean containsKey(Object key) {
+        return root != null && root.find(key, key.hashCode(), 0) != null;
+    }
+
+    /**
+     * @return a map with the entry added or replaced, or this map if it already has this value for the key
+     */
+    PersistentHashMap<K, V> plus(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        Leaf leaf = new Leaf(key, key.hashCode(), value);
+        if (root == null) {
+            return new PersistentHashMap<K, V>(new BitmapNode(1 << (leaf.hash & MASK), new Object[] {leaf}), 1);
+        }
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(leaf, 0, added);
+        return newRoot == root ? this : new PersistentHashMap<K, V>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return a map without the key, or this map if it does not contain the key
+     */
+    PersistentHashMap<K, V> minus(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(key, key.hashCode(), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? PersistentHashMap.<K, V>empty() : new PersistentHashMap<K, V>(newRoot, size - 1);
+    }
+
+    /**
+     * @return an iterator over the keys, in no particular order, that does not support removal
+     */
+    Iterator<K> keyIterator() {
+        return new KeyIterator<K>(root);
+    }
+
+    private static final class Leaf {
+        final Object key;
+        final int hash;
+        final Object value;
+
+        Leaf(Object key, int hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    private abstract static class Node {
+
+        abstract Leaf find(Object key, int hash, int shift);
+
+        /**
+         * @return the node with the leaf, this node if it already has the same value for the key
+         */
+        abstract Node put(Leaf leaf, int shift, boolean[] added);
+
+        /**
+         * @return the node without the key, this node if it does not have the key, null if the node is left empty
+         */
+        abstract Node remove(Object key, int hash, int shift);
+
+        /**
+         * @return the leaf if it is all this node holds, otherwise null
+         */
+        abstract Leaf singleLeaf();
+
+        /**
+         * @return the leaves and child nodes of this node
+         */
+        abstract Object[] slots();
+    }
+
+    /**
+     * An inner node with up to 32 slots, each holding a {@link Leaf} or a child {@link Node}. Only the slots
+     * in use are allocated, the bitmap tells which of the 32 hash fragments are present.
+     */
+    private static final class BitmapNode extends Node {
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Node) {
+                return ((Node) slot).find(key, hash, shift + BITS);
+            }
+            Leaf leaf = (Leaf) slot;
+            return leaf.key.equals(key) ? leaf : null;
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift, boolean[] added) {
+            int bit = 1 << ((leaf.hash >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = leaf;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            Object slot = slots[index];
+            if (slot instanceof Node) {
+                Node child = (Node) slot;
+                Node newChild = child.put(leaf, shift + BITS, added);
+                return newChild == child ? this : with(index, newChild);
+            }
+            Leaf existing = (Leaf) slot;
+            if (existing.key.equals(leaf.key)) {
+                return existing.value.equals(leaf.value) ? this : with(index, leaf);
+            }
+            added[0] = true;
+            return with(index, merge(existing, leaf, shift + BITS));
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            Object slot = slots[index];
+            if (slot instanceof Node) {
+                Node child = (Node) slot;
+                Node newChild = child.remove(key, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                } else if (newChild == null) {
+                    return without(bit, index);
+                }
+                // a child left with a single leaf is replaced by the leaf to keep the trie shallow
+                Leaf single = newChild.singleLeaf();
+                return with(index, single != null ? single : newChild);
+            }
+            return ((Leaf) slot).key.equals(key) ? without(bit, index) : this;
+        }
+
+        @Override
+        Leaf singleLeaf() {
+            return (slots.length == 1 && slots[0] instanceof Leaf) ? (Leaf) slots[0] : null;
+        }
+
+        @Override
+        Object[] slots() {
+            return slots;
+        }
+
+        private Node with(int index, Object slot) {
+            Object[] newSlots = slots.clone();
+            newSlots[index] = slot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private Node without(int bit, int index) {
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, newSlots.length - index);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+    }
+
+    /**
+     * Holds the leaves of keys with the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            return index < 0 ? null : leaves[index];
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift, boolean[] added) {
+            if (leaf.hash != hash) {
+                // nest this node in a node of the current level, where the hashes may differ
+                BitmapNode parent = new BitmapNode(1 << ((hash >>> shift) & MASK), new Object[] {this});
+                return parent.put(leaf, shift, added);
+            }
+            int index = indexOf(leaf.key);
+            Leaf[] newLeaves;
+            if (index >= 0) {
+                if (leaves[index].value.equals(leaf.value)) {
+                    return this;
+                }
+                newLeaves = leaves.clone();
+            } else {
+                newLeaves = new Leaf[leaves.length + 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+                index = leaves.length;
+                added[0] = true;
+            }
+            newLeaves[index] = leaf;
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            } else if (leaves.length == 1) {
+                return null;
+            }
+            Leaf[] newLeaves = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, index);
+            System.arraycopy(leaves, index + 1, newLeaves, index, newLeaves.length - index);
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        Leaf singleLeaf() {
+            return leaves.length == 1 ? leaves[0] : null;
+        }
+
+        @Override
+        Object[] slots() {
+            return leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @return a node holding both leaves, whose keys are different and collide up to the given shift
+     */
+    private static Node merge(Leaf a, Leaf b, int shift) {
+        if (a.hash == b.hash) {
+            return new CollisionNode(a.hash, new Leaf[] {a, b});
+        }
+        // the hashes differ in one of the 32 bits, which are all covered by the time shift reaches 30
+        int fragmentA = (a.hash >>> shift) & MASK;
+        int fragmentB = (b.hash >>> shift) & MASK;
+        if (fragmentA == fragmentB) {
+            return new BitmapNode(1 << fragmentA, new Object[] {merge(a, b, shift + BITS)});
+        }
+        Object[] slots = fragmentA < fragmentB ? new Object[] {a, b} : new Object[] {b, a};
+        return new BitmapNode((1 << fragmentA) | (1 << fragmentB), slots);
+    }
+
+    private static final class KeyIterator<K> implements Iterator<K> {
+        // the slots being iterated at each level of the trie, with the position in each
+        private final List<Object[]> stack = new ArrayList<Object[]>();
+        private final List<Integer> positions = new ArrayList<Integer>();
+        private Leaf next;
+
+        KeyIterator(Node root) {
+            if (root != null) {
+                stack.add(root.slots());
+                positions.add(0);
+                advance();
+            }
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                int level = stack.size() - 1;
+                Object[] slots = stack.get(level);
+                int position = positions.get(level);
+                if (position == slots.length) {
+                    stack.remove(level);
+                    positions.remove(level);
+                    continue;
+                }
+                positions.set(level, position + 1);
+                Object slot = slots[position];
+                if (slot instanceof Leaf) {
+                    next = (Leaf) slot;
+                    return;
+                }
+                stack.add(((Node) slot).slots());
+                positions.add(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public K next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) next.key;
+            advance();
+            return key;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -24,13 +24,19 @@ package com.netflix.config;
 public interface PollListener {
 
     public enum EventType {
-        POLL_SUCCESS, POLL_FAILURE
+        POLL_SUCCESS, POLL_FAILURE,
+        /**
+         * The poll result has been applied to the configuration. The result passed with this event
+         * is incremental and contains only the properties that were actually added, changed and deleted.
+         */
+        POLL_APPLIED
     }
     /**
      * This method is called when the listener is invoked after a polling.
      * 
      * @param eventType type of the event
-     * @param lastResult the last poll result, null if the poll fails or there is no result 
+     * @param lastResult the last poll result, null if the poll fails or there is no result. For
+     *          {@link EventType#POLL_APPLIED}, the changes applied to the configuration.
      * @param exception any Throwable caught in the last poll, null if the poll is successful
      */
     public void handleEvent(EventType eventType, PollResult lastResult, Throwable exception);
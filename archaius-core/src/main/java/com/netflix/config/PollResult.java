@@ -34,6 +34,28 @@ public class PollResult extends WatchedUpdateResult {
     public static PollResult createFull(Map<String, Object> complete) {
         return new PollResult(complete);        
     }
+
+    /**
+     * Create a full result that represents the complete content of the configuration source, together
+     * with a check point that the source can use on the next poll to find out if the content has changed.
+     * 
+     * @param complete map that contains all the properties
+     * @param checkPoint Object that served as a marker for this content, for example, an ETag
+     */
+    public static PollResult createFull(Map<String, Object> complete, Object checkPoint) {
+        return new PollResult(complete, checkPoint);
+    }
+
+    /**
+     * Create a result that indicates the content of the configuration source has not changed
+     * since the poll that returned the check point. The result has no changes and carries
+     * the check point forward to the next poll.
+     * 
+     * @param checkPoint Object that served as a marker for the unchanged content
+     */
+    public static PollResult createUnchanged(Object checkPoint) {
+        return new PollResult(null, null, null, checkPoint);
+    }
     
     /**
      * Create a result that represents incremental changes from the configuration
@@ -58,8 +80,12 @@ public class PollResult extends WatchedUpdateResult {
     }
     
     PollResult(Map<String, Object> complete) {
+        this(complete, null);
+    }
+
+    PollResult(Map<String, Object> complete, Object checkPoint) {
         super(complete);
-        this.checkPoint = null;
+        this.checkPoint = checkPoint;
     }
     
     PollResult(Map<String, Object> added, Map<String, Object> changed, Map<String, Object> deleted, Object checkPoint) {
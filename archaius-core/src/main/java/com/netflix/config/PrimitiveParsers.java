@@ -0,0 +1,309 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsers from the string value of a property directly to primitive values, used by the
+ * cached primitive properties. Each parser returns the given default value if the string is null or
+ * cannot be parsed, so that no wrapper objects are created and no exceptions are thrown and caught
+ * when a property is updated.
+ * <p>
+ * The accepted formats are the same as those of {@link DynamicProperty}, except that
+ * hexadecimal floating point values are not supported.
+ */
+final class PrimitiveParsers {
+
+    private static final String[] TRUE_VALUES =  { "true",  "t", "yes", "y", "on"  };
+    private static final String[] FALSE_VALUES = { "false", "f", "no",  "n", "off" };
+
+    private static final String[] DURATION_SUFFIXES = { "ns", "us", "ms", "s", "m", "min", "h", "d" };
+    private static final TimeUnit[] DURATION_UNITS = { TimeUnit.NANOSECONDS, TimeUnit.MICROSECONDS,
+        TimeUnit.MILLISECONDS, TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.MINUTES, TimeUnit.HOURS, TimeUnit.DAYS };
+
+    private static final String BYTE_SIZE_PREFIXES = "kmgtp";
+
+    private PrimitiveParsers() {
+    }
+
+    static boolean parseBoolean(String s, boolean defaultValue) {
+        if (s == null) {
+            return defaultValue;
+        }
+        for (int i = 0; i < TRUE_VALUES.length; i++) {
+            if (s.equalsIgnoreCase(TRUE_VALUES[i])) {
+                return true;
+            }
+        }
+        for (int i = 0; i < FALSE_VALUES.length; i++) {
+            if (s.equalsIgnoreCase(FALSE_VALUES[i])) {
+                return false;
+            }
+        }
+        return defaultValue;
+    }
+
+    static int parseInt(String s, int defaultValue) {
+        return (int) parseLong(s, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+    }
+
+    static long parseLong(String s, long defaultValue) {
+        return parseLong(s, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * Parse a signed decimal integer in the given range, in the format accepted by {@link Long#valueOf(String)}.
+     */
+    private static long parseLong(String s, long min, long max, long defaultValue) {
+        if (s == null) {
+            return defaultValue;
+        }
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (len > 0) {
+            char first = s.charAt(0);
+            if (first == '-') {
+                negative = true;
+                i++;
+            } else if (first == '+') {
+                i++;
+            }
+        }
+        if (i == len) {
+            return defaultValue;
+        }
+        // accumulate negatively, as the magnitude of Long.MIN_VALUE is larger than Long.MAX_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < len; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0 || result < multmin) {
+                return defaultValue;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return defaultValue;
+            }
+            result -= digit;
+        }
+        long value = negative ? result : -result;
+        return (value < min || value > max) ? defaultValue : value;
+    }
+
+    static double parseDouble(String s, double defaultValue) {
+        if (!isDecimalFloatingPoint(s)) {
+            return defaultValue;
+        }
+        return Double.parseDouble(s);
+    }
+
+    static float parseFloat(String s, float defaultValue) {
+        if (!isDecimalFloatingPoint(s)) {
+            return defaultValue;
+        }
+        return Float.parseFloat(s);
+    }
+
+    /**
+     * Check the string is a decimal floating point value as accepted by {@link Double#valueOf(String)},
+     * so that parsing it will not throw {@link NumberFormatException}.
+     */
+    private static boolean isDecimalFloatingPoint(String s) {
+        if (s == null) {
+            return false;
+        }
+        int end = s.length();
+        int i = 0;
+        // leading and trailing white space is ignored, as in Double.valueOf()
+        while (i < end && s.charAt(i) <= ' ') {
+            i++;
+        }
+        while (end > i && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            i++;
+        }
+        if (s.startsWith("NaN", i)) {
+            return i + 3 == end;
+        }
+        if (s.startsWith("Infinity", i)) {
+            return i + 8 == end;
+        }
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        if (i < end) {
+            char suffix = s.charAt(i);
+            if (suffix == 'f' || suffix == 'F' || suffix == 'd' || suffix == 'D') {
+                i++;
+            }
+        }
+        return i == end;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parse a duration, which is a non negative number followed by an optional unit:
+     * <code>ns</code>, <code>us</code>, <code>ms</code>, <code>s</code>, <code>m</code> or
+     * <code>min</code>, <code>h</code>, <code>d</code>. A number without unit is in the given unit.
+     *
+     * @return the duration in the given unit, or the default value
+     */
+    static long parseDuration(String s, TimeUnit unit, long defaultValue) {
+        if (s == null) {
+            return defaultValue;
+        }
+        int end = trimmedEnd(s);
+        int start = trimmedStart(s, end);
+        int numberEnd = digitsEnd(s, start, end);
+        long number = parseDigits(s, start, numberEnd);
+        if (number < 0) {
+            return defaultValue;
+        }
+        int suffixStart = trimmedStart(s, numberEnd, end);
+        if (suffixStart == end) {
+            return number;
+        }
+        int suffixLength = end - suffixStart;
+        for (int i = 0; i < DURATION_SUFFIXES.length; i++) {
+            String suffix = DURATION_SUFFIXES[i];
+            if (suffix.length() == suffixLength && s.regionMatches(true, suffixStart, suffix, 0, suffixLength)) {
+                return unit.convert(number, DURATION_UNITS[i]);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Parse a size in bytes, which is a non negative number followed by an optional binary
+     * multiple: <code>k</code>, <code>m</code>, <code>g</code>, <code>t</code> or <code>p</code>, optionally
+     * followed by <code>b</code> or <code>ib</code>, ignoring case. For example <code>512</code>, <code>64k</code>
+     * or <code>10MB</code>, where a kilobyte is 1024 bytes.
+     *
+     * @return the size in bytes, or the default value
+     */
+    static long parseByteSize(String s, long defaultValue) {
+        if (s == null) {
+            return defaultValue;
+        }
+        int end = trimmedEnd(s);
+        int start = trimmedStart(s, end);
+        int numberEnd = digitsEnd(s, start, end);
+        long number = parseDigits(s, start, numberEnd);
+        if (number < 0) {
+            return defaultValue;
+        }
+        int i = trimmedStart(s, numberEnd, end);
+        int shift = 0;
+        if (i < end) {
+            int prefix = BYTE_SIZE_PREFIXES.indexOf(Character.toLowerCase(s.charAt(i)));
+            if (prefix >= 0) {
+                shift = (prefix + 1) * 10;
+                i++;
+                if (i < end && Character.toLowerCase(s.charAt(i)) == 'i') {
+                    i++;
+                    if (i == end) {
+                        return defaultValue;
+                    }
+                }
+            }
+            if (i < end && Character.toLowerCase(s.charAt(i)) == 'b') {
+                i++;
+            }
+        }
+        if (i != end || (shift > 0 && number > (Long.MAX_VALUE >> shift))) {
+            return defaultValue;
+        }
+        return number << shift;
+    }
+
+    private static int trimmedEnd(String s) {
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int trimmedStart(String s, int end) {
+        return trimmedStart(s, 0, end);
+    }
+
+    private static int trimmedStart(String s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int digitsEnd(String s, int start, int end) {
+        while (start < end && isDigit(s.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @return the non negative value of the digits, or -1 if there are none or the value overflows
+     */
+    private static long parseDigits(String s, int start, int end) {
+        if (start == end) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (result > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
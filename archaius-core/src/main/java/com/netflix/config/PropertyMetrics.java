@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Usage metrics of a {@link DynamicProperty}, collected when metrics are enabled with
+ * {@link DynamicProperty#setMetricsEnabled(boolean)}.
+ * <p>
+ * Reads are counted with a {@link StripedCounter}, so that counting a read is a single uncontended
+ * atomic increment. The time of the last read is sampled: it is recorded on the first read and then once
+ * every {@value #READ_TIME_SAMPLING} reads, so it can be behind for a property that is rarely read.
+ * Updates and callback runs are rare and recorded exactly.
+ */
+public final class PropertyMetrics {
+
+    /**
+     * The last read time is recorded once every this number of reads
+     */
+    public static final int READ_TIME_SAMPLING = 64;
+
+    private final String name;
+    private final StripedCounter reads = new StripedCounter();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong parseFailures = new AtomicLong();
+    private final AtomicLong callbackRuns = new AtomicLong();
+    private final AtomicLong callbackTimeNanos = new AtomicLong();
+    private final AtomicLong maxCallbackTimeNanos = new AtomicLong();
+    private volatile long lastReadTime;
+
+    PropertyMetrics(String name) {
+        this.name = name;
+    }
+
+    void recordRead() {
+        if ((reads.increment() & (READ_TIME_SAMPLING - 1)) == 1) {
+            lastReadTime = System.currentTimeMillis();
+        }
+    }
+
+    void recordUpdate() {
+        updates.incrementAndGet();
+    }
+
+    void recordParseFailure() {
+        parseFailures.incrementAndGet();
+    }
+
+    void recordCallbacks(long nanos) {
+        callbackRuns.incrementAndGet();
+        callbackTimeNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = maxCallbackTimeNanos.get();
+        } while (nanos > max && !maxCallbackTimeNanos.compareAndSet(max, nanos));
+    }
+
+    /**
+     * @return the name of the property
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of times the value of the property was read
+     */
+    public long getReadCount() {
+        return reads.sum();
+    }
+
+    /**
+     * @return the number of times the value of the property changed, not counting the initial value
+     */
+    public long getUpdateCount() {
+        return updates.get();
+    }
+
+    /**
+     * @return the number of times a value of the property could not be parsed to the type it was read as
+     */
+    public long getParseFailureCount() {
+        return parseFailures.get();
+    }
+
+    /**
+     * @return the number of times the callbacks of the property were run after a change
+     */
+    public long getCallbackRunCount() {
+        return callbackRuns.get();
+    }
+
+    /**
+     * @return the total time taken to run the callbacks of the property, in nanoseconds
+     */
+    public long getCallbackTimeNanos() {
+        return callbackTimeNanos.get();
+    }
+
+    /**
+     * @return the longest time taken to run the callbacks of the property after a change, in nanoseconds
+     */
+    public long getMaxCallbackTimeNanos() {
+        return maxCallbackTimeNanos.get();
+    }
+
+    /**
+     * @return the sampled time of the last read in milliseconds since the epoch, or 0 if the property was never read
+     */
+    public long getLastReadTime() {
+        return lastReadTime;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyMetrics [name=" + name + ", reads=" + getReadCount() + ", updates=" + getUpdateCount()
+                + ", parseFailures=" + getParseFailureCount() + ", callbackRuns=" + getCallbackRunCount()
+                + ", callbackTimeNanos=" + getCallbackTimeNanos() + ", maxCallbackTimeNanos=" + getMaxCallbackTimeNanos()
+                + ", lastReadTime=" + getLastReadTime() + "]";
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+/**
+ * Receives the {@link PropertyMetrics} of the dynamic properties, to publish them to a metrics system.
+ * Install it with {@link DynamicProperty#setMetricsRegistry(PropertyMetricsRegistry)}.
+ * <p>
+ * The methods are called while holding a lock that serializes enabling and disabling metrics,
+ * so they should only record the metrics and return.
+ */
+public interface PropertyMetricsRegistry {
+
+    /**
+     * Called for the metrics of each property when the registry is installed or metrics are enabled,
+     * and for each property created afterwards while metrics are enabled.
+     */
+    public void register(PropertyMetrics metrics);
+
+    /**
+     * Called for the metrics of each property when metrics are disabled or another registry is installed.
+     */
+    public void unregister(PropertyMetrics metrics);
+}
@@ -81,17 +81,16 @@ public abstract class PropertyWrapper<V> implements Property<V> {
                     propertyChanged();
                 }
             };
-            this.prop.addCallback(callback);
-            callbacks.add(callback);
-            this.prop.addValidator(new PropertyChangeValidator() {                
+            addWrapperCallback(callback);
+            this.prop.addWrapperValidator(new PropertyChangeValidator() {                
                 @Override
                 public void validate(String newValue) {
                     PropertyWrapper.this.validate(newValue);
                 }
             });
             try {
-                if (this.prop.getString() != null) {
-                    this.validate(this.prop.getString());
+                if (this.prop.peekString() != null) {
+                    this.validate(this.prop.peekString());
                 }
             } catch (ValidationException e) {
                 logger.warn("Error validating property at initialization. Will fallback to default value.", e);
@@ -154,6 +153,16 @@ public abstract class PropertyWrapper<V> implements Property<V> {
         }
     }
 
+    /**
+     * Add a callback that maintains the state of a wrapper holding this instance, which unlike the callbacks of
+     * {@link #addCallback(Runnable)} does not keep the underlying DynamicProperty from being evicted, see
+     * {@link DynamicProperty#setEvictUnused(boolean)}.
+     */
+    void addWrapperCallback(Runnable callback) {
+        prop.addWrapperCallback(callback);
+        callbacks.add(callback);
+    }
+
     /**
      * Remove all callbacks registered through this instance of property
      */
@@ -181,9 +190,26 @@ public abstract class PropertyWrapper<V> implements Property<V> {
         return prop;
     }
 
+    /**
+     * Get the usage metrics of the underlying DynamicProperty, see {@link DynamicProperty#setMetricsEnabled(boolean)}.
+     *
+     * @return the metrics, or null if metrics are disabled
+     */
+    public PropertyMetrics getMetrics() {
+        return prop.getMetrics();
+    }
+
+    /**
+     * Count a read of the property in its metrics. Reads through the underlying DynamicProperty are
+     * already counted, subclasses that cache the value themselves call this when it is read.
+     */
+    protected final void recordRead() {
+        prop.recordRead();
+    }
+
     @Override
     public String toString() {
         return "DynamicProperty: {name=" + prop.getName() + ", current value="
-                + prop.getString(String.valueOf(defaultValue)) + "}";
+                + (prop.peekString() == null ? String.valueOf(defaultValue) : prop.peekString()) + "}";
     }
 }
@@ -0,0 +1,222 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the periodic polls of many configuration sources on one small thread pool, instead of
+ * a thread per source.
+ * <p>
+ * The number of threads caps the number of polls that run at the same time. Every delay is randomized by
+ * the jitter ratio, so that the instances of an application that started together do not keep polling the
+ * configuration backend at the same moment. A poll that fails is retried after a delay that doubles with
+ * each consecutive failure, up to the maximum backoff, and the delay is back to normal after a successful poll.
+ * <p>
+ * The pool size, jitter and maximum backoff of the instance returned by {@link #getInstance()} are read from system properties
+ * {@value #MAX_CONCURRENT_POLLS_PROPERTY}, {@value #JITTER_PROPERTY} and {@value #MAX_BACKOFF_PROPERTY}.
+ *
+ * @see SharedPollingScheduler
+ */
+public class SharedPollingExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedPollingExecutor.class);
+
+    /**
+     * System property name to define the number of threads of the shared instance, which is the maximum number
+     * of polls that run at the same time.
+     */
+    public static final String MAX_CONCURRENT_POLLS_PROPERTY = "archaius.sharedPollingExecutor.maxConcurrentPolls";
+
+    /**
+     * System property name to define the jitter ratio of the shared instance, between 0 and 1.
+     */
+    public static final String JITTER_PROPERTY = "archaius.sharedPollingExecutor.jitter";
+
+    /**
+     * System property name to define the maximum delay in milliseconds between polls that keep failing
+     * for the shared instance.
+     */
+    public static final String MAX_BACKOFF_PROPERTY = "archaius.sharedPollingExecutor.maxBackoffMillis";
+
+    static final int DEFAULT_MAX_CONCURRENT_POLLS = 2;
+    static final double DEFAULT_JITTER = 0.1;
+    static final long DEFAULT_MAX_BACKOFF_MILLIS = 600000;
+
+    private static class InstanceHolder {
+        static final SharedPollingExecutor INSTANCE = new SharedPollingExecutor(
+                Integer.getInteger(MAX_CONCURRENT_POLLS_PROPERTY, DEFAULT_MAX_CONCURRENT_POLLS),
+                PrimitiveParsers.parseDouble(System.getProperty(JITTER_PROPERTY), DEFAULT_JITTER),
+                Long.getLong(MAX_BACKOFF_PROPERTY, DEFAULT_MAX_BACKOFF_MILLIS));
+    }
+
+    private static final AtomicInteger poolCount = new AtomicInteger();
+
+    private final ScheduledExecutorService executor;
+    private final double jitter;
+    private final long maxBackoffMillis;
+    private final Random random = new Random();
+
+    /**
+     * @param maxConcurrentPolls number of threads, which is the maximum number of polls that run at the same time
+     * @param jitter ratio by which the delays are randomized, between 0 and 1
+     * @param maxBackoffMillis maximum delay between polls that keep failing
+     */
+    public SharedPollingExecutor(int maxConcurrentPolls, double jitter, long maxBackoffMillis) {
+        if (maxConcurrentPolls < 1) {
+            throw new IllegalArgumentException("maxConcurrentPolls must be at least 1: " + maxConcurrentPolls);
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+        }
+        this.jitter = jitter;
+        this.maxBackoffMillis = maxBackoffMillis;
+        final int pool = poolCount.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(maxConcurrentPolls, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "sharedPollingExecutor-" + pool + "-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * @return the instance shared by default by all {@link SharedPollingScheduler}s
+     */
+    public static SharedPollingExecutor getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Schedule a poll to run repeatedly, each time after the delay from the end of the previous run.
+     *
+     * @param poll the poll, which returns false or throws an exception if it failed
+     * @param initialDelayMillis delay before the first run
+     * @param delayMillis delay between the end of a successful run and the start of the next one
+     * @return the handle to cancel the poll
+     */
+    public ScheduledPoll schedule(Callable<Boolean> poll, long initialDelayMillis, long delayMillis) {
+        ScheduledPoll scheduled = new ScheduledPoll(poll, delayMillis);
+        scheduled.scheduleNext(jittered(initialDelayMillis));
+        return scheduled;
+    }
+
+    /**
+     * Stop running all the polls scheduled with this instance.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return the delay before the next run after the given number of consecutive failures, with jitter
+     */
+    long nextDelay(long delayMillis, int failures) {
+        long delay = delayMillis;
+        if (failures > 0) {
+            long max = Math.max(maxBackoffMillis, delayMillis);
+            delay = (failures >= 62 || delayMillis > (max >> failures)) ? max : Math.min(max, delayMillis << failures);
+        }
+        return jittered(delay);
+    }
+
+    private long jittered(long delayMillis) {
+        if (jitter == 0 || delayMillis <= 0) {
+            return delayMillis;
+        }
+        double factor;
+        synchronized (random) {
+            factor = 1 + jitter * (2 * random.nextDouble() - 1);
+        }
+        return (long) (delayMillis * factor);
+    }
+
+    /**
+     * A poll scheduled with {@link SharedPollingExecutor#schedule(Callable, long, long)}.
+     */
+    public final class ScheduledPoll {
+        private final Callable<Boolean> poll;
+        private final long delayMillis;
+        private volatile int consecutiveFailures;
+        private volatile boolean cancelled;
+        private ScheduledFuture<?> future;
+
+        private ScheduledPoll(Callable<Boolean> poll, long delayMillis) {
+            this.poll = poll;
+            this.delayMillis = delayMillis;
+        }
+
+        private synchronized void scheduleNext(long delay) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                future = executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        runPoll();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("Polling executor is shut down, poll is not scheduled: " + poll);
+            }
+        }
+
+        private void runPoll() {
+            boolean success;
+            try {
+                success = Boolean.TRUE.equals(poll.call());
+            } catch (Throwable e) {
+                log.error("Error in poll " + poll, e);
+                success = false;
+            }
+            int failures = success ? 0 : consecutiveFailures + 1;
+            consecutiveFailures = failures;
+            scheduleNext(nextDelay(delayMillis, failures));
+        }
+
+        /**
+         * @return the number of polls that failed since the last successful one
+         */
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * Stop running the poll. A run that is in progress is not interrupted.
+         */
+        public synchronized void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
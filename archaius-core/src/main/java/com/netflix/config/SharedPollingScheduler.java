@@ -0,0 +1,111 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A polling scheduler that runs the polls on a {@link SharedPollingExecutor}, so that many polled sources
+ * share a few threads. The delays between polls are randomized, and grow exponentially while
+ * the polls fail.
+ * <p>
+ * Each polled source still needs its own scheduler, as the scheduler keeps the check point of its source.
+ */
+public class SharedPollingScheduler extends AbstractPollingScheduler {
+
+    private final SharedPollingExecutor executor;
+    private final int initialDelayMillis;
+    private final int delayMillis;
+    private volatile boolean lastPollFailed;
+    private SharedPollingExecutor.ScheduledPoll scheduledPoll;
+
+    /**
+     * Create an instance that runs on {@link SharedPollingExecutor#getInstance()}, with the initial delay and delay
+     * defined in system properties {@value FixedDelayPollingScheduler#INITIAL_DELAY_PROPERTY} and
+     * {@value FixedDelayPollingScheduler#DELAY_PROPERTY}, as for {@link FixedDelayPollingScheduler}.
+     */
+    public SharedPollingScheduler() {
+        this(Integer.getInteger(FixedDelayPollingScheduler.INITIAL_DELAY_PROPERTY, 30000),
+                Integer.getInteger(FixedDelayPollingScheduler.DELAY_PROPERTY, 60000), false);
+    }
+
+    /**
+     * Create an instance that runs on {@link SharedPollingExecutor#getInstance()}.
+     *
+     * @param initialDelayMillis initial delay in milliseconds
+     * @param delayMillis delay in milliseconds
+     * @param ignoreDeletesFromSource whether the scheduler should ignore deletes of properties from configuration source when
+     * applying the polling result to a configuration.
+     */
+    public SharedPollingScheduler(int initialDelayMillis, int delayMillis, boolean ignoreDeletesFromSource) {
+        this(SharedPollingExecutor.getInstance(), initialDelayMillis, delayMillis, ignoreDeletesFromSource);
+    }
+
+    /**
+     * @param executor the executor to run the polls on
+     * @param initialDelayMillis initial delay in milliseconds
+     * @param delayMillis delay in milliseconds
+     * @param ignoreDeletesFromSource whether the scheduler should ignore deletes of properties from configuration source when
+     * applying the polling result to a configuration.
+     */
+    public SharedPollingScheduler(SharedPollingExecutor executor, int initialDelayMillis, int delayMillis,
+            boolean ignoreDeletesFromSource) {
+        super(ignoreDeletesFromSource);
+        this.executor = executor;
+        this.initialDelayMillis = initialDelayMillis;
+        this.delayMillis = delayMillis;
+        // the polling runnable handles its own errors, failures are known from the event it fires
+        addPollListener(new PollListener() {
+            @Override
+            public void handleEvent(EventType eventType, PollResult lastResult, Throwable exception) {
+                if (eventType == EventType.POLL_FAILURE) {
+                    lastPollFailed = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * This method schedules the runnable with {@link SharedPollingExecutor#schedule(Callable, long, long)}
+     */
+    @Override
+    protected synchronized void schedule(final Runnable pollingRunnable) {
+        scheduledPoll = executor.schedule(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                // polls of one source never overlap
+                lastPollFailed = false;
+                pollingRunnable.run();
+                return !lastPollFailed;
+            }
+        }, initialDelayMillis, delayMillis);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduledPoll != null) {
+            scheduledPoll.cancel();
+            scheduledPoll = null;
+        }
+    }
+
+    /**
+     * @return the number of polls that failed since the last successful one
+     */
+    public synchronized int getConsecutiveFailures() {
+        return scheduledPoll == null ? 0 : scheduledPoll.getConsecutiveFailures();
+    }
+}
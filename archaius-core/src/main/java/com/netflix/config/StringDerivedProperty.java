@@ -42,7 +42,7 @@ public class StringDerivedProperty<T> extends PropertyWrapper<T> {
     }
 
     private final void propertyChangedInternal() {
-        String stringValue = prop.getString();
+        String stringValue = prop.peekString();
         if (stringValue == null) {
             derivedValue = defaultValue;
         } else {
@@ -53,11 +53,12 @@ public class StringDerivedProperty<T> extends PropertyWrapper<T> {
     @Override
     protected final void propertyChanged() {
         propertyChangedInternal();
-        propertyChanged(getValue());
+        propertyChanged(derivedValue);
     }
     
     @Override
     public T getValue() {
+        recordRead();
         return derivedValue;
     }
 }
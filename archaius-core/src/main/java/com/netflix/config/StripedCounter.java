@@ -0,0 +1,93 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A counter that is cheap to increment from many threads, like the LongAdder of later JDKs.
+ * <p>
+ * Increments go to a single value until two threads contend for it. The counter then switches to
+ * one cell per stripe, each on its own cache line, and a thread increments the cell of its stripe.
+ * A counter that is never contended thus takes no more memory than an AtomicLong.
+ */
+final class StripedCounter {
+
+    private static final int STRIPES = stripes();
+    // longs per cache line, so that the cells of different stripes do not share a line
+    private static final int PADDING = 8;
+
+    private static final AtomicLongFieldUpdater<StripedCounter> BASE_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(StripedCounter.class, "base");
+
+    private volatile long base;
+    private volatile AtomicLongArray cells;
+
+    private static int stripes() {
+        int n = 1;
+        while (n < Runtime.getRuntime().availableProcessors() && n < 64) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * Increment the counter.
+     *
+     * @return the value of the base or the cell that was incremented, which is the value of the counter only if
+     *         it is not striped. It can be used to sample the increments, as it goes through every value.
+     */
+    long increment() {
+        AtomicLongArray cs = cells;
+        if (cs == null) {
+            long b = base;
+            if (BASE_UPDATER.compareAndSet(this, b, b + 1)) {
+                return b + 1;
+            }
+            cs = stripe();
+        }
+        return cs.incrementAndGet(cellIndex());
+    }
+
+    /**
+     * @return the sum of the increments, which is exact when no increment is concurrent
+     */
+    long sum() {
+        long sum = base;
+        AtomicLongArray cs = cells;
+        if (cs != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cs.get(i * PADDING);
+            }
+        }
+        return sum;
+    }
+
+    private synchronized AtomicLongArray stripe() {
+        if (cells == null) {
+            cells = new AtomicLongArray(STRIPES * PADDING);
+        }
+        return cells;
+    }
+
+    private static int cellIndex() {
+        long id = Thread.currentThread().getId();
+        // spread the sequential thread ids over the stripes
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return (hash & (STRIPES - 1)) * PADDING;
+    }
+}
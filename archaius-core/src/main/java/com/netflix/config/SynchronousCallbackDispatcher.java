@@ -0,0 +1,30 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+/**
+ * A {@link CallbackDispatcher} that runs the callbacks on the thread that applied the update,
+ * before the update returns.
+ */
+public class SynchronousCallbackDispatcher implements CallbackDispatcher {
+
+    public static final SynchronousCallbackDispatcher INSTANCE = new SynchronousCallbackDispatcher();
+
+    @Override
+    public void dispatch(DynamicProperty property, Runnable notification) {
+        notification.run();
+    }
+}
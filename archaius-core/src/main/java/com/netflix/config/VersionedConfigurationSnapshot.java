@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import java.util.Iterator;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+
+/**
+ * An immutable view of the resolved properties of a {@link ConcurrentCompositeConfiguration} at one version,
+ * obtained with {@link ConcurrentCompositeConfiguration#getSnapshot()}.
+ * <p>
+ * A request that reads a number of related properties can pin a snapshot and read all of them from it,
+ * so that it never sees some values from before and some from after an update. Reads, including
+ * {@link #getKeys()}, do not lock and never throw {@link java.util.ConcurrentModificationException}.
+ * Variables in values are interpolated against the snapshot itself. Any attempt to modify the snapshot
+ * throws {@link UnsupportedOperationException}.
+ */
+public final class VersionedConfigurationSnapshot extends AbstractConfiguration {
+
+    private final PersistentHashMap<String, Object> properties;
+    private final long version;
+
+    VersionedConfigurationSnapshot(PersistentHashMap<String, Object> properties, long version,
+            AbstractConfiguration settings) {
+        this.properties = properties;
+        this.version = version;
+        super.setListDelimiter(settings.getListDelimiter());
+        super.setDelimiterParsingDisabled(settings.isDelimiterParsingDisabled());
+        super.setThrowExceptionOnMissing(settings.isThrowExceptionOnMissing());
+    }
+
+    /**
+     * @return the version of the configuration this snapshot was taken from,
+     *         see {@link ConcurrentCompositeConfiguration#getVersion()}
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    PersistentHashMap<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return the number of properties
+     */
+    public int size() {
+        return properties.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return properties.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        return properties.get(key);
+    }
+
+    @Override
+    public Iterator<String> getKeys() {
+        return properties.keyIterator();
+    }
+
+    @Override
+    protected void addPropertyDirect(String key, Object value) {
+        throw new UnsupportedOperationException("Configuration snapshots are immutable");
+    }
+
+    @Override
+    protected void clearPropertyDirect(String key) {
+        throw new UnsupportedOperationException("Configuration snapshots are immutable");
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        throw new UnsupportedOperationException("Configuration snapshots are immutable");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Configuration snapshots are immutable");
+    }
+
+    @Override
+    public void setListDelimiter(char listDelimiter) {
+        throw new UnsupportedOperationException("Configuration snapshots are immutable");
+    }
+
+    @Override
+    public void setDelimiterParsingDisabled(boolean delimiterParsingDisabled) {
+        throw new UnsupportedOperationException("Configuration snapshots are immutable");
+    }
+
+    @Override
+    public String toString() {
+        return "VersionedConfigurationSnapshot [version=" + version + ", size=" + properties.size() + "]";
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.jmx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.config.DynamicProperty;
+import com.netflix.config.PropertyMetrics;
+
+/**
+ * An implementation of {@link PropertyMetricsMBean} that reads the metrics from {@link DynamicProperty#getAllMetrics()}.
+ */
+public class BasePropertyMetricsMBean implements PropertyMetricsMBean {
+
+    /**
+     * Extracts the value that properties are ranked by
+     */
+    private interface Metric {
+        long get(PropertyMetrics metrics);
+    }
+
+    private static final Metric READS = new Metric() {
+        @Override
+        public long get(PropertyMetrics metrics) {
+            return metrics.getReadCount();
+        }
+    };
+
+    private static final Metric MAX_CALLBACK_MILLIS = new Metric() {
+        @Override
+        public long get(PropertyMetrics metrics) {
+            return TimeUnit.NANOSECONDS.toMillis(metrics.getMaxCallbackTimeNanos());
+        }
+    };
+
+    private static final Metric PARSE_FAILURES = new Metric() {
+        @Override
+        public long get(PropertyMetrics metrics) {
+            return metrics.getParseFailureCount();
+        }
+    };
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return DynamicProperty.isMetricsEnabled();
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean enabled) {
+        DynamicProperty.setMetricsEnabled(enabled);
+    }
+
+    @Override
+    public int getPropertyCount() {
+        return DynamicProperty.getAllMetrics().size();
+    }
+
+    @Override
+    public int getRegisteredPropertyCount() {
+        return DynamicProperty.getRegisteredPropertyCount();
+    }
+
+    @Override
+    public long getEvictedPropertyCount() {
+        return DynamicProperty.getEvictedPropertyCount();
+    }
+
+    @Override
+    public long getTotalReadCount() {
+        return sum(READS);
+    }
+
+    @Override
+    public long getTotalUpdateCount() {
+        long sum = 0;
+        for (PropertyMetrics metrics : DynamicProperty.getAllMetrics()) {
+            sum += metrics.getUpdateCount();
+        }
+        return sum;
+    }
+
+    @Override
+    public long getTotalParseFailureCount() {
+        return sum(PARSE_FAILURES);
+    }
+
+    @Override
+    public String[] getUnreadProperties() {
+        List<String> names = new ArrayList<String>();
+        for (PropertyMetrics metrics : DynamicProperty.getAllMetrics()) {
+            if (metrics.getReadCount() == 0) {
+                names.add(metrics.getName());
+            }
+        }
+        Collections.sort(names);
+        return names.toArray(new String[names.size()]);
+    }
+
+    @Override
+    public String[] getMostReadProperties(int count) {
+        return top(READS, count);
+    }
+
+    @Override
+    public String[] getSlowestCallbacks(int count) {
+        return top(MAX_CALLBACK_MILLIS, count);
+    }
+
+    @Override
+    public String[] getMostParseFailures(int count) {
+        return top(PARSE_FAILURES, count);
+    }
+
+    @Override
+    public String getPropertyMetrics(String name) {
+        for (PropertyMetrics metrics : DynamicProperty.getAllMetrics()) {
+            if (metrics.getName().equals(name)) {
+                return metrics.toString();
+            }
+        }
+        return null;
+    }
+
+    private static long sum(Metric metric) {
+        long sum = 0;
+        for (PropertyMetrics metrics : DynamicProperty.getAllMetrics()) {
+            sum += metric.get(metrics);
+        }
+        return sum;
+    }
+
+    /**
+     * @return "name=value" of the properties with the highest non zero values of the metric, highest first
+     */
+    private static String[] top(final Metric metric, int count) {
+        // the values are read once, as they change while sorting
+        List<Object[]> values = new ArrayList<Object[]>();
+        for (PropertyMetrics metrics : DynamicProperty.getAllMetrics()) {
+            long value = metric.get(metrics);
+            if (value > 0) {
+                values.add(new Object[] {metrics.getName(), value});
+            }
+        }
+        Collections.sort(values, new Comparator<Object[]>() {
+            @Override
+            public int compare(Object[] o1, Object[] o2) {
+                return ((Long) o2[1]).compareTo((Long) o1[1]);
+            }
+        });
+        int size = Math.min(Math.max(count, 0), values.size());
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = values.get(i)[0] + "=" + values.get(i)[1];
+        }
+        return result;
+    }
+}
@@ -85,11 +85,40 @@ public class ConfigJMXManager {
 	            
 	    }
 	
+	/**
+	 * Registers the MBean that exposes the usage metrics of the dynamic properties.
+	 */
+	public static PropertyMetricsMBean registerPropertyMetricsMBean() {
+		PropertyMetricsMBean bean = new BasePropertyMetricsMBean();
+		try {
+			MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+			mbs.registerMBean(new StandardMBean(bean, PropertyMetricsMBean.class), getJMXObjectName(bean));
+		} catch (Exception e) {
+			throw new RuntimeException("registerPropertyMetricsMBeanException", e);
+		}
+		return bean;
+	}
+
+	public static void unRegisterPropertyMetricsMBean(PropertyMetricsMBean mbean) {
+		if (mbean == null) {
+			throw new RuntimeException("Cannot unregister JMX Mbean. The object is null");
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(getJMXObjectName(mbean));
+		} catch (Exception e) {
+			throw new RuntimeException("unRegisterPropertyMetricsMBeanException", e);
+		}
+	}
+
 	private static ObjectName getJMXObjectName(
             AbstractConfiguration config, ConfigMBean bean)
             throws Exception {
+        return getJMXObjectName(bean);
+    }
+
+	private static ObjectName getJMXObjectName(Object bean) {
         try {
-            Class<? extends ConfigMBean> c = bean.getClass();
+            Class<?> c = bean.getClass();
             String className = c.getName();
             int lastDot = className.lastIndexOf('.');
             ObjectName name = new ObjectName("Config-"
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.jmx;
+
+/**
+ * MBean to inspect the usage metrics of the dynamic properties,
+ * see {@link com.netflix.config.DynamicProperty#setMetricsEnabled(boolean)}.
+ */
+public interface PropertyMetricsMBean {
+
+    public boolean isMetricsEnabled();
+
+    /**
+     * Enables or disables the collection of metrics. Disabling discards the metrics collected so far.
+     */
+    public void setMetricsEnabled(boolean enabled);
+
+    /**
+     * Returns the number of properties with metrics
+     */
+    public int getPropertyCount();
+
+    /**
+     * Returns the number of properties registered, whether metrics are enabled or not
+     */
+    public int getRegisteredPropertyCount();
+
+    /**
+     * Returns the number of unused properties evicted, see {@link com.netflix.config.DynamicProperty#setEvictUnused(boolean)}
+     */
+    public long getEvictedPropertyCount();
+
+    public long getTotalReadCount();
+
+    public long getTotalUpdateCount();
+
+    public long getTotalParseFailureCount();
+
+    /**
+     * Returns the names of the properties that were never read since metrics were enabled
+     */
+    public String[] getUnreadProperties();
+
+    /**
+     * Returns the most read properties with their read count
+     * @param count the maximum number of properties to return
+     */
+    public String[] getMostReadProperties(int count);
+
+    /**
+     * Returns the properties whose callbacks took the longest to run, with the longest time in milliseconds
+     * @param count the maximum number of properties to return
+     */
+    public String[] getSlowestCallbacks(int count);
+
+    /**
+     * Returns the properties with the most parse failures, with their number of failures
+     * @param count the maximum number of properties to return
+     */
+    public String[] getMostParseFailures(int count);
+
+    /**
+     * Returns all the metrics of a property
+     * @param name the name of the property
+     */
+    public String getPropertyMetrics(String name);
+}
@@ -0,0 +1,442 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.config.DynamicWatchedConfiguration;
+import com.netflix.config.WatchedConfigurationSource;
+import com.netflix.config.WatchedUpdateListener;
+import com.netflix.config.WatchedUpdateResult;
+import com.netflix.config.util.ConfigurationUtils;
+
+/**
+ * A watched configuration source for local properties files, to be used with a {@link DynamicWatchedConfiguration}.
+ * Each entry is either a file or a directory, which stands for all the files ending with <code>.properties</code> in it,
+ * in the order of their names. If a property is defined in more than one file, the value in the file later on the list
+ * overrides the previous one, as for {@link URLConfigurationSource}.
+ * <p>
+ * Once a listener is added, a daemon thread watches the directories of the files. On Java 7 and later it waits for
+ * events from a {@link java.nio.file.WatchService}, and checks the files every poll interval in case an event was lost.
+ * On Java 6, or if the watch service cannot be used, it checks the size and modification time of the files every poll
+ * interval. After a change, it waits until the files have not changed for the debounce delay, so that a file being
+ * written is read once complete, but no longer than ten times the debounce delay or the poll interval, whichever is
+ * shorter. Changes to other files in the same directories are ignored. Only the files that changed are read again,
+ * and the listeners receive the properties
+ * added, changed and deleted as an incremental {@link WatchedUpdateResult}. Files replaced by renaming a new file
+ * over them, or that are deleted and created again, are handled like any other change. A missing file has no
+ * properties.
+ */
+public class FileWatchedConfigurationSource implements WatchedConfigurationSource, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileWatchedConfigurationSource.class);
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 5000;
+
+    private static final String PROPERTIES_EXTENSION = ".properties";
+    private static final int MAX_DEBOUNCE_FACTOR = 10;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * Waits for changes to the files in a set of directories.
+     */
+    interface Watcher {
+        /**
+         * @return the files that changed within the timeout, empty if none is known to have changed
+         */
+        Set<File> await(long timeoutMillis) throws InterruptedException;
+
+        void close();
+    }
+
+    private final List<File> entries;
+    private final long debounceMillis;
+    private final long pollIntervalMillis;
+    private final boolean useWatchService;
+    private final List<WatchedUpdateListener> listeners = new CopyOnWriteArrayList<WatchedUpdateListener>();
+
+    // the files read and their content, guarded by this
+    private final Map<File, FileContent> contents = new HashMap<File, FileContent>();
+    private Map<String, Object> currentData;
+    private Thread watchThread;
+    private Watcher watcher;
+
+    /**
+     * Create an instance with the default debounce delay and poll interval, that uses a watch service when
+     * it is available.
+     *
+     * @param entries files and directories of properties files
+     */
+    public FileWatchedConfigurationSource(File... entries) {
+        this(DEFAULT_DEBOUNCE_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS, true, entries);
+    }
+
+    /**
+     * @param debounceMillis how long the files must stay unchanged after a change before they are read
+     * @param pollIntervalMillis how often the files are checked for changes when no event is received
+     * @param useWatchService false to only check the files every poll interval, even if a watch service is available
+     * @param entries files and directories of properties files
+     */
+    public FileWatchedConfigurationSource(long debounceMillis, long pollIntervalMillis, boolean useWatchService,
+            File... entries) {
+        if (entries == null || entries.length == 0) {
+            throw new IllegalArgumentException("No files to watch");
+        }
+        this.entries = Collections.unmodifiableList(new ArrayList<File>(Arrays.asList(entries)));
+        this.debounceMillis = debounceMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.useWatchService = useWatchService;
+    }
+
+    /**
+     * @return true if the {@link java.nio.file.WatchService} of Java 7 is available
+     */
+    public static boolean isWatchServiceAvailable() {
+        try {
+            Class.forName("java.nio.file.WatchService");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> getCurrentData() throws Exception {
+        if (currentData == null) {
+            refresh(Collections.<File>emptySet());
+        }
+        return new HashMap<String, Object>(currentData);
+    }
+
+    @Override
+    public synchronized void addUpdateListener(WatchedUpdateListener l) {
+        if (l == null) {
+            return;
+        }
+        listeners.add(l);
+        if (watchThread == null) {
+            start();
+        }
+    }
+
+    @Override
+    public synchronized void removeUpdateListener(WatchedUpdateListener l) {
+        if (l == null) {
+            return;
+        }
+        listeners.remove(l);
+        if (listeners.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * Stop watching the files. Listeners added later start watching them again.
+     */
+    @Override
+    public synchronized void close() {
+        listeners.clear();
+        stop();
+    }
+
+    private void start() {
+        final Watcher thisWatcher = createWatcher();
+        watcher = thisWatcher;
+        watchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch(thisWatcher);
+            }
+        }, "fileWatchedConfigurationSource-" + threadCount.incrementAndGet());
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void stop() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watcher.close();
+            watchThread = null;
+            watcher = null;
+        }
+    }
+
+    private Watcher createWatcher() {
+        Set<File> directories = new LinkedHashSet<File>();
+        for (File entry : entries) {
+            File file = entry.getAbsoluteFile();
+            directories.add(file.isDirectory() ? file : file.getParentFile());
+        }
+        if (useWatchService && isWatchServiceAvailable()) {
+            try {
+                return new NioFileWatcher(directories, pollIntervalMillis);
+            } catch (IOException e) {
+                log.warn("Cannot watch " + directories + " with a watch service, the files are polled instead", e);
+            }
+        }
+        return new PollingFileWatcher(directories);
+    }
+
+    private void watch(Watcher thisWatcher) {
+        // changes between getCurrentData() and the start of the watch are only seen by checking the files
+        Set<File> changed = Collections.emptySet();
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (watcher != thisWatcher) {
+                        return;
+                    }
+                    update(changed);
+                }
+                changed = watchedFiles(thisWatcher.await(pollIntervalMillis));
+                if (!changed.isEmpty()) {
+                    // files written continuously must not delay the update forever
+                    long deadline = System.currentTimeMillis()
+                            + Math.max(debounceMillis, Math.min(MAX_DEBOUNCE_FACTOR * debounceMillis, pollIntervalMillis));
+                    long remaining;
+                    while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                        Set<File> more = watchedFiles(thisWatcher.await(Math.min(debounceMillis, remaining)));
+                        if (more.isEmpty()) {
+                            break;
+                        }
+                        changed.addAll(more);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } catch (Throwable e) {
+            log.error("Stopped watching files " + entries, e);
+        }
+    }
+
+    /**
+     * @return a new set of the changed files that are read by this source, or were before they were deleted
+     */
+    private Set<File> watchedFiles(Set<File> changedFiles) {
+        Set<File> watched = new HashSet<File>();
+        for (File file : changedFiles) {
+            File parent = file.getParentFile();
+            for (File entry : entries) {
+                File absolute = entry.getAbsoluteFile();
+                // the files that listFiles() returns when they exist
+                if (absolute.equals(file)
+                        || (absolute.equals(parent) && file.getName().endsWith(PROPERTIES_EXTENSION))) {
+                    watched.add(file);
+                    break;
+                }
+            }
+        }
+        return watched;
+    }
+
+    /**
+     * Read the files that changed, and notify the listeners of the properties that changed. Must be called with
+     * the lock on this.
+     */
+    private void update(Set<File> changedFiles) {
+        Map<String, Object> previous = currentData;
+        if (!refresh(changedFiles) || previous == null) {
+            return;
+        }
+        Map<String, Object> added = new HashMap<String, Object>();
+        Map<String, Object> changed = new HashMap<String, Object>();
+        Map<String, Object> deleted = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : currentData.entrySet()) {
+            Object previousValue = previous.get(entry.getKey());
+            if (previousValue == null) {
+                added.put(entry.getKey(), entry.getValue());
+            } else if (!previousValue.equals(entry.getValue())) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Object> entry : previous.entrySet()) {
+            if (!currentData.containsKey(entry.getKey())) {
+                deleted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        WatchedUpdateResult result = WatchedUpdateResult.createIncremental(added, changed, deleted);
+        if (!result.hasChanges()) {
+            return;
+        }
+        for (WatchedUpdateListener l : listeners) {
+            try {
+                l.updateConfiguration(result);
+            } catch (Throwable e) {
+                log.error("Error in WatchedUpdateListener " + l, e);
+            }
+        }
+    }
+
+    /**
+     * Read the files that were reported as changed or whose size or modification time changed, and merge the
+     * content of all the files. Must be called with the lock on this.
+     *
+     * @return true if the merged content was computed again
+     */
+    private boolean refresh(Set<File> changedFiles) {
+        List<File> files = listFiles();
+        boolean modified = currentData == null || !contents.keySet().equals(new HashSet<File>(files));
+        Map<File, FileContent> newContents = new HashMap<File, FileContent>();
+        for (File file : files) {
+            FileContent content = contents.get(file);
+            long lastModified = file.lastModified();
+            long length = file.length();
+            if (content == null || changedFiles.contains(file)
+                    || content.lastModified != lastModified || content.length != length) {
+                content = read(file, lastModified, length);
+                modified = true;
+            }
+            newContents.put(file, content);
+        }
+        if (!modified) {
+            return false;
+        }
+        Map<String, Object> merged = new HashMap<String, Object>();
+        for (File file : files) {
+            merged.putAll(newContents.get(file).properties);
+        }
+        contents.clear();
+        contents.putAll(newContents);
+        currentData = merged;
+        return true;
+    }
+
+    private List<File> listFiles() {
+        List<File> files = new ArrayList<File>();
+        for (File entry : entries) {
+            File file = entry.getAbsoluteFile();
+            if (!file.isDirectory()) {
+                files.add(file);
+                continue;
+            }
+            File[] children = file.listFiles();
+            if (children == null) {
+                continue;
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.getName().endsWith(PROPERTIES_EXTENSION) && child.isFile()) {
+                    files.add(child);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static FileContent read(File file, long lastModified, long length) {
+        Map<String, Object> properties;
+        try {
+            properties = ConfigurationUtils.loadPropertiesMapFromInputStream(new FileInputStream(file));
+        } catch (FileNotFoundException e) {
+            // missing, or deleted since it was listed
+            properties = Collections.emptyMap();
+        } catch (IOException e) {
+            log.error("Cannot read " + file + ", its properties are removed", e);
+            properties = Collections.emptyMap();
+        }
+        return new FileContent(properties, lastModified, length);
+    }
+
+    private static final class FileContent {
+        private final Map<String, Object> properties;
+        private final long lastModified;
+        private final long length;
+
+        FileContent(Map<String, Object> properties, long lastModified, long length) {
+            this.properties = properties;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Finds the files that changed by comparing the size and modification time of the files in the directories
+     * with the previous check.
+     */
+    private static final class PollingFileWatcher implements Watcher {
+        private final Set<File> directories;
+        private Map<File, Long> lastModified;
+        private Map<File, Long> lengths;
+
+        PollingFileWatcher(Set<File> directories) {
+            this.directories = directories;
+            check();
+        }
+
+        @Override
+        public Set<File> await(long timeoutMillis) throws InterruptedException {
+            Thread.sleep(timeoutMillis);
+            return check();
+        }
+
+        private Set<File> check() {
+            Map<File, Long> newLastModified = new HashMap<File, Long>();
+            Map<File, Long> newLengths = new HashMap<File, Long>();
+            Set<File> changed = new HashSet<File>();
+            for (File directory : directories) {
+                File[] files = directory.listFiles();
+                if (files == null) {
+                    continue;
+                }
+                for (File file : files) {
+                    newLastModified.put(file, file.lastModified());
+                    newLengths.put(file, file.length());
+                }
+            }
+            if (lastModified != null) {
+                for (Map.Entry<File, Long> entry : newLastModified.entrySet()) {
+                    File file = entry.getKey();
+                    if (!entry.getValue().equals(lastModified.get(file))
+                            || !newLengths.get(file).equals(lengths.get(file))) {
+                        changed.add(file);
+                    }
+                }
+                for (File file : lastModified.keySet()) {
+                    if (!newLastModified.containsKey(file)) {
+                        changed.add(file);
+                    }
+                }
+            }
+            lastModified = newLastModified;
+            lengths = newLengths;
+            return changed;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +36,21 @@ import com.netflix.config.PolledConfigurationSource;
  * Simple JDBC source of config properties. Assuming you have a table with a
  * column that stores the keys and a column to store values, this class can be
  * used as your source of polled configuration.
+ * <p>
+ * By default every poll runs the query and returns the complete content of the table.
+ * If the table has a column that is increased whenever a row changes (a version number or a
+ * last modified time stamp), the source can be created in incremental mode with
+ * {@link #JDBCConfigurationSource(DataSource, String, String, String, String, String, String)}.
+ * In this mode the {@link PollResult} check point carries the highest version seen, and subsequent polls
+ * only query the rows with a higher version and return an incremental result. Deleted properties
+ * are handled in one of two ways:
+ * <ul>
+ * <li>If a deleted column is given, rows are soft deleted by setting this column, and such a tombstone
+ * is returned as a deleted property by the next incremental poll.
+ * <li>Otherwise rows are deleted from the table, which is only noticed by the next full reconcile.
+ * </ul>
+ * Every {@link #getFullReconcileIntervalMillis()} milliseconds a full poll is done instead, which also
+ * picks up deletes and any change that was missed because its version was not higher than the check point.
  * 
  * @author stonse
  * 
@@ -57,6 +73,20 @@ public class JDBCConfigurationSource implements PolledConfigurationSource {
 	/** The column containing the values. */
 	private String valueColumnName = "property_value";
 
+	/**
+	 * Default interval between two full reconciles in incremental mode, which is 10 minutes.
+	 */
+	public static final long DEFAULT_FULL_RECONCILE_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+	/** The JDBC query to obtain properties changed since a version, null if not in incremental mode. */
+	private String incrementalQuery;
+	/** The column containing the version of the row. */
+	private String versionColumnName;
+	/** The column marking a row as deleted, null if rows are deleted from the table. */
+	private String deletedColumnName;
+
+	private volatile long fullReconcileIntervalMillis = DEFAULT_FULL_RECONCILE_INTERVAL_MILLIS;
+
 	/**
 	 * Constructor
 	 * 
@@ -81,12 +111,72 @@ public class JDBCConfigurationSource implements PolledConfigurationSource {
 		this.valueColumnName = valueColumnName;
 	}
 
+	/**
+	 * Constructor for incremental mode
+	 * 
+	 * @param datasource
+	 *            The DataSource object for the JDBC
+	 * @param query
+	 *            The query statement to fetch all the properties, which must
+	 *            also select the version column and the deleted column if one is given; e.g.
+	 *            <code>"Select property_key, property_value, version from SITE_PROPERTIES"</code>
+	 * @param incrementalQuery
+	 *            The query statement to fetch the properties changed since a version,
+	 *            which is passed as the only parameter; e.g.
+	 *            <code>"Select property_key, property_value, version from SITE_PROPERTIES where version > ?"</code>
+	 * @param keyColumnName
+	 *            The column name which stores the property keys
+	 * @param valueColumnName
+	 *            The column name which stores the property values
+	 * @param versionColumnName
+	 *            The column name which stores the version of the row; it must be
+	 *            increased whenever the row changes, for example a sequence number or a time stamp
+	 * @param deletedColumnName
+	 *            The column name which marks a row as deleted, or null if rows are 
+	 *            deleted from the table, in which case deletes are only noticed on the next full reconcile
+	 */
+	public JDBCConfigurationSource(DataSource datasource, String query, String incrementalQuery,
+			String keyColumnName, String valueColumnName, String versionColumnName,
+			String deletedColumnName) {
+		this(datasource, query, keyColumnName, valueColumnName);
+		if (incrementalQuery == null || versionColumnName == null) {
+			throw new IllegalArgumentException("incrementalQuery and versionColumnName are required for incremental mode");
+		}
+		this.incrementalQuery = incrementalQuery;
+		this.versionColumnName = versionColumnName;
+		this.deletedColumnName = deletedColumnName;
+	}
+
 	// ...
 	@Override
 	public PollResult poll(boolean initial, Object checkPoint) throws Exception {
-		// implement logic to retrieve properties from DB
-		Map<String, Object> map = load();
-		return PollResult.createFull(map);
+		if (incrementalQuery == null) {
+			// implement logic to retrieve properties from DB
+			Map<String, Object> map = load();
+			return PollResult.createFull(map);
+		}
+		long now = System.currentTimeMillis();
+		if (initial || !(checkPoint instanceof VersionCheckPoint)) {
+			return loadFull(now);
+		}
+		VersionCheckPoint last = (VersionCheckPoint) checkPoint;
+		if (last.version == null || now - last.fullLoadTime >= fullReconcileIntervalMillis) {
+			return loadFull(now);
+		}
+		Map<String, Object> changed = new HashMap<String, Object>();
+		Map<String, Object> deleted = new HashMap<String, Object>();
+		Object version = query(incrementalQuery, last.version, changed, deleted);
+		if (changed.isEmpty() && deleted.isEmpty()) {
+			return PollResult.createUnchanged(checkPoint);
+		}
+		return PollResult.createIncremental(Collections.<String, Object>emptyMap(), changed, deleted,
+				new VersionCheckPoint(version, last.fullLoadTime));
+	}
+
+	private PollResult loadFull(long now) throws SQLException {
+		Map<String, Object> map = new HashMap<String, Object>();
+		Object version = query(query, null, map, null);
+		return PollResult.createFull(map, new VersionCheckPoint(version, now));
 	}
 
 	/**
@@ -95,28 +185,115 @@ public class JDBCConfigurationSource implements PolledConfigurationSource {
 	 * 
 	 * @throws Exception
 	 */
-	synchronized Map<String, Object> load() throws Exception {
+	Map<String, Object> load() throws Exception {
 		Map<String, Object> map = new HashMap<String, Object>();
+		query(query, null, map, null);
+		return map;
+	}
+
+	/**
+	 * Run the query and collect the properties into the map. Tombstones are skipped, or
+	 * collected into the deleted map if it is not null.
+	 * 
+	 * @param parameter
+	 *            parameter of the query, or null if the query has no parameter
+	 * @return the highest version seen, or the parameter if no row was returned
+	 */
+	private Object query(String sql, Object parameter, Map<String, Object> map,
+			Map<String, Object> deleted) throws SQLException {
+		Object maxVersion = parameter;
 		Connection conn = null;
 		PreparedStatement pstmt = null;
 		ResultSet rs = null;
 
 		try {
 			conn = getConnection();
-			pstmt = conn.prepareStatement(query.toString());
+			pstmt = conn.prepareStatement(sql);
+			if (parameter != null) {
+				pstmt.setObject(1, parameter);
+			}
 			rs = pstmt.executeQuery();
 			while (rs.next()) {
 				String key = (String) rs.getObject(keyColumnName);
 				Object value = rs.getObject(valueColumnName);
-				map.put(key, value);
+				if (versionColumnName != null) {
+					maxVersion = max(maxVersion, rs.getObject(versionColumnName));
+				}
+				if (deletedColumnName != null && isTombstone(rs.getObject(deletedColumnName))) {
+					if (deleted != null) {
+						deleted.put(key, value);
+					}
+					map.remove(key);
+				} else {
+					map.put(key, value);
+					if (deleted != null) {
+						deleted.remove(key);
+					}
+				}
 			}
 
-		} catch (SQLException e) {
-			throw e;
 		} finally {
 			close(conn, pstmt, rs);
 		}
-		return map;
+		return maxVersion;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object max(Object current, Object version) {
+		if (version == null) {
+			return current;
+		}
+		if (current == null || ((Comparable) version).compareTo(current) > 0) {
+			return version;
+		}
+		return current;
+	}
+
+	private static boolean isTombstone(Object deleted) {
+		if (deleted == null) {
+			return false;
+		} else if (deleted instanceof Boolean) {
+			return ((Boolean) deleted).booleanValue();
+		} else if (deleted instanceof Number) {
+			return ((Number) deleted).intValue() != 0;
+		}
+		String s = deleted.toString().trim();
+		return s.equalsIgnoreCase("true") || s.equalsIgnoreCase("y") || s.equalsIgnoreCase("yes") || s.equals("1");
+	}
+
+	/**
+	 * Returns the interval between two full reconciles in incremental mode.
+	 */
+	public long getFullReconcileIntervalMillis() {
+		return fullReconcileIntervalMillis;
+	}
+
+	/**
+	 * Sets the interval between two full reconciles in incremental mode. A full
+	 * reconcile picks up rows deleted from the table and any change missed by the
+	 * incremental queries. The default is {@value #DEFAULT_FULL_RECONCILE_INTERVAL_MILLIS}.
+	 */
+	public void setFullReconcileIntervalMillis(long fullReconcileIntervalMillis) {
+		this.fullReconcileIntervalMillis = fullReconcileIntervalMillis;
+	}
+
+	/**
+	 * Check point of the incremental mode: the highest version seen and the time of
+	 * the last full reconcile.
+	 */
+	private static final class VersionCheckPoint {
+		private final Object version;
+		private final long fullLoadTime;
+
+		VersionCheckPoint(Object version, long fullLoadTime) {
+			this.version = version;
+			this.fullLoadTime = fullLoadTime;
+		}
+
+		@Override
+		public String toString() {
+			return "VersionCheckPoint [version=" + version + ", fullLoadTime=" + fullLoadTime + "]";
+		}
 	}
 
 	/**
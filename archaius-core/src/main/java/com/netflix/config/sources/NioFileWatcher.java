@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches directories with a {@link WatchService}. This class uses Java 7 APIs and must only be loaded after
+ * checking that they are available, see {@link FileWatchedConfigurationSource#isWatchServiceAvailable()}.
+ * <p>
+ * A directory that does not exist when the watcher is created is not watched, and lost events are not reported,
+ * so the files are still checked every poll interval by {@link FileWatchedConfigurationSource}.
+ */
+class NioFileWatcher implements FileWatchedConfigurationSource.Watcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NioFileWatcher.class);
+
+    private final WatchService watchService;
+    private final Map<WatchKey, File> directories = new HashMap<WatchKey, File>();
+
+    NioFileWatcher(Set<File> directories, long pollIntervalMillis) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            for (File directory : directories) {
+                if (!directory.isDirectory()) {
+                    log.warn("Directory " + directory + " does not exist, it is checked every "
+                            + pollIntervalMillis + " ms");
+                    continue;
+                }
+                Path path = directory.toPath();
+                WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                this.directories.put(key, directory);
+            }
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<File> await(long timeoutMillis) throws InterruptedException {
+        WatchKey key;
+        try {
+            key = watchService.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ClosedWatchServiceException e) {
+            throw new InterruptedException("Watch service closed");
+        }
+        if (key == null) {
+            return Collections.emptySet();
+        }
+        Set<File> changed = new HashSet<File>();
+        // take the events that are already queued for the other directories too
+        while (key != null) {
+            File directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                // on overflow the events are lost, but the size and modification time of the files still differ
+                if (event.kind() != StandardWatchEventKinds.OVERFLOW && directory != null) {
+                    changed.add(new File(directory, event.context().toString()));
+                }
+            }
+            key.reset();
+            key = watchService.poll();
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Error closing the watch service", e);
+        }
+    }
+}
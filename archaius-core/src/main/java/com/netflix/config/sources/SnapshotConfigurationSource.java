@@ -0,0 +1,165 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.config.AbstractPollingScheduler;
+import com.netflix.config.ConfigurationSnapshot;
+import com.netflix.config.PollResult;
+import com.netflix.config.PolledConfigurationSource;
+
+/**
+ * A polled configuration source that keeps a {@link ConfigurationSnapshot} of the properties of another source,
+ * so that a slow source, or one that is unavailable, does not hold up or fail the start of the application.
+ * <p>
+ * The initial poll returns the content of the snapshot file if there is a valid one, without polling
+ * the underlying source. The next poll, which {@link AbstractPollingScheduler} runs in the background,
+ * then does a full poll of the underlying source, and the scheduler applies only the differences
+ * with the snapshot. If there is no valid snapshot, the initial poll goes to the underlying source as usual.
+ * <p>
+ * The snapshot is rewritten after each successful poll that changed the properties. Failures to write
+ * it are logged and do not fail the poll.
+ */
+public class SnapshotConfigurationSource implements PolledConfigurationSource {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotConfigurationSource.class);
+
+    private final PolledConfigurationSource source;
+    private final File snapshotFile;
+
+    // all polls are made by the scheduler thread, the lock only guards against concurrent schedulers
+    private final Object lock = new Object();
+    private Map<String, Object> properties;
+    private boolean fullPollPending;
+
+    /**
+     * @param source the source to poll
+     * @param snapshotFile the file to read the snapshot from at start up and to write it to after polls
+     */
+    public SnapshotConfigurationSource(PolledConfigurationSource source, File snapshotFile) {
+        this.source = source;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @Override
+    public PollResult poll(boolean initial, Object checkPoint) throws Exception {
+        synchronized (lock) {
+            if (initial && properties == null) {
+                Map<String, Object> snapshot = readSnapshot();
+                if (snapshot != null) {
+                    log.info("Loaded {} properties from snapshot {}, {} will be polled in the background",
+                            new Object[] {snapshot.size(), snapshotFile, source});
+                    properties = snapshot;
+                    fullPollPending = true;
+                    return PollResult.createFull(new HashMap<String, Object>(snapshot));
+                }
+            }
+            PollResult result;
+            if (fullPollPending) {
+                result = source.poll(true, null);
+                fullPollPending = false;
+            } else {
+                result = source.poll(initial, checkPoint);
+            }
+            if (apply(result)) {
+                writeSnapshot();
+            }
+            return result;
+        }
+    }
+
+    private Map<String, Object> readSnapshot() {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            return ConfigurationSnapshot.read(snapshotFile);
+        } catch (Exception e) {
+            log.warn("Ignoring configuration snapshot " + snapshotFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Apply the result to the properties tracked for the snapshot.
+     *
+     * @return true if the properties changed
+     */
+    private boolean apply(PollResult result) {
+        if (result == null || !result.hasChanges()) {
+            return false;
+        }
+        if (!result.isIncremental()) {
+            Map<String, Object> complete = result.getComplete();
+            if (complete == null || complete.equals(properties)) {
+                return false;
+            }
+            properties = new HashMap<String, Object>(complete);
+            return true;
+        }
+        if (properties == null) {
+            properties = new HashMap<String, Object>();
+        }
+        boolean changed = putAll(result.getAdded()) | putAll(result.getChanged());
+        Map<String, Object> deleted = result.getDeleted();
+        if (deleted != null) {
+            for (String key: deleted.keySet()) {
+                changed |= properties.remove(key) != null;
+            }
+        }
+        return changed;
+    }
+
+    private boolean putAll(Map<String, Object> props) {
+        boolean changed = false;
+        if (props != null) {
+            for (Map.Entry<String, Object> entry: props.entrySet()) {
+                Object value = entry.getValue();
+                if (value != null && !value.equals(properties.put(entry.getKey(), value))) {
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private void writeSnapshot() {
+        try {
+            ConfigurationSnapshot.write(snapshotFile, properties);
+        } catch (Exception e) {
+            log.warn("Unable to write configuration snapshot " + snapshotFile, e);
+        }
+    }
+
+    public final File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public final PolledConfigurationSource getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotConfigurationSource [source=" + source + ", snapshotFile=" + snapshotFile + "]";
+    }
+}
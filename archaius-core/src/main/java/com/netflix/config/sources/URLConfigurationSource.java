@@ -15,17 +15,18 @@
  */
 package com.netflix.config.sources;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +40,12 @@ import com.netflix.config.util.ConfigurationUtils;
  * it always returns the complete union of properties defined in all files. If one property
  * is defined in more than one URL, the value in file later on the list will override
  * the value in the previous one. The content of the URL should conform to the properties file format.
+ * <p>
+ * The check point of each {@link PollResult} carries the validators of the content that was read:
+ * the modification time and size for <code>file:</code> URLs, and the <code>ETag</code> and
+ * <code>Last-Modified</code> headers for HTTP URLs. When the check point is passed back on the next poll,
+ * the URLs are fetched conditionally and, if none of them has changed, an unchanged result
+ * (see {@link PollResult#createUnchanged(Object)}) is returned without downloading or parsing any content.
  * 
  * @author awang
  *
@@ -167,13 +174,14 @@ public class URLConfigurationSource implements PolledConfigurationSource {
     
     
     /**
-     * Retrieve the content of the property files. For each poll, it always
-     * returns the complete union of properties defined in all URLs. If one
+     * Retrieve the content of the property files. For each poll, it 
+     * returns the complete union of properties defined in all URLs, or an unchanged
+     * result if the check point from the previous poll shows that none of the URLs has changed. If one
      * property is defined in content of more than one URL, the value in file later on the
      * list will override the value in the previous one. 
      * 
-     * @param initial this parameter is ignored by the implementation
-     * @param checkPoint this parameter is ignored by the implementation
+     * @param initial if true, the content of all URLs is retrieved regardless of the check point
+     * @param checkPoint check point returned from the previous poll, used to fetch the URLs conditionally
      * @throws IOException IOException occurred in file operation
      */
     @Override
@@ -182,15 +190,164 @@ public class URLConfigurationSource implements PolledConfigurationSource {
         if (configUrls == null || configUrls.length == 0) {
             return PollResult.createFull(null);
         }
-        Map<String, Object> map = new HashMap<String, Object>();
-        for (URL url: configUrls) {
-            InputStream fin = url.openStream();
-            Properties props = ConfigurationUtils.loadPropertiesFromInputStream(fin);
-            for (Entry<Object, Object> entry: props.entrySet()) {
-                map.put((String) entry.getKey(), entry.getValue());
+        UrlValidator[] previous = null;
+        if (!initial && checkPoint instanceof UrlCheckPoint) {
+            previous = ((UrlCheckPoint) checkPoint).getValidators(configUrls);
+        }
+        List<Map<String, Object>> contents = new ArrayList<Map<String, Object>>(configUrls.length);
+        UrlValidator[] validators = new UrlValidator[configUrls.length];
+        boolean modified = false;
+        for (int i = 0; i < configUrls.length; i++) {
+            UrlContent content = fetch(configUrls[i], previous == null ? null : previous[i]);
+            if (content == null) {
+                contents.add(null);
+                validators[i] = previous[i];
+            } else {
+                contents.add(content.properties);
+                validators[i] = content.validator;
+                modified = true;
+            }
+        }
+        if (!modified) {
+            return PollResult.createUnchanged(checkPoint);
+        }
+        Map<String, Object> map = null;
+        for (int i = 0; i < configUrls.length; i++) {
+            Map<String, Object> properties = contents.get(i);
+            if (properties == null) {
+                // not modified, but the complete union is needed since another URL has changed
+                UrlContent content = fetch(configUrls[i], null);
+                properties = content.properties;
+                validators[i] = content.validator;
+            }
+            // every map was just parsed for this poll, so the first one is reused for the union
+            if (map == null) {
+                map = properties;
+            } else {
+                map.putAll(properties);
+            }
+        }
+        return PollResult.createFull(map, new UrlCheckPoint(configUrls, validators));
+    }
+
+    /**
+     * Read the content of the URL, unless the validator shows that it has not changed.
+     * 
+     * @return the content and its validator, or null if the content has not changed
+     */
+    private static UrlContent fetch(URL url, UrlValidator validator) throws IOException {
+        File file = toFile(url);
+        if (file != null) {
+            long lastModified = file.lastModified();
+            long length = file.length();
+            if (validator != null && lastModified != 0 
+                    && validator.lastModified == lastModified && validator.length == length) {
+                return null;
+            }
+            Map<String, Object> props = ConfigurationUtils.loadPropertiesMapFromInputStream(url.openStream());
+            return new UrlContent(props, new UrlValidator(null, lastModified, length));
+        }
+        URLConnection connection = url.openConnection();
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            if (validator != null) {
+                if (validator.eTag != null) {
+                    http.setRequestProperty("If-None-Match", validator.eTag);
+                }
+                if (validator.lastModified > 0) {
+                    http.setIfModifiedSince(validator.lastModified);
+                }
+            }
+            if (http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                InputStream in = http.getInputStream();
+                if (in != null) {
+                    in.close();
+                }
+                return null;
+            }
+            Map<String, Object> props = ConfigurationUtils.loadPropertiesMapFromInputStream(http.getInputStream());
+            return new UrlContent(props, new UrlValidator(http.getHeaderField("ETag"), http.getLastModified(), -1));
+        }
+        Map<String, Object> props = ConfigurationUtils.loadPropertiesMapFromInputStream(connection.getInputStream());
+        return new UrlContent(props, null);
+    }
+
+    private static File toFile(URL url) {
+        if (!"file".equalsIgnoreCase(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class UrlContent {
+        private final Map<String, Object> properties;
+        private final UrlValidator validator;
+
+        UrlContent(Map<String, Object> properties, UrlValidator validator) {
+            this.properties = properties;
+            this.validator = validator;
+        }
+    }
+
+    /**
+     * Validators of the content of one URL as of the last time it was read. A null validator 
+     * means the URL cannot be fetched conditionally.
+     */
+    private static final class UrlValidator {
+        private final String eTag;
+        private final long lastModified;
+        private final long length;
+
+        UrlValidator(String eTag, long lastModified, long length) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public String toString() {
+            return "UrlValidator [eTag=" + eTag + ", lastModified=" + lastModified + ", length=" + length + "]";
+        }
+    }
+
+    /**
+     * Check point returned by {@link URLConfigurationSource#poll(boolean, Object)}, which holds
+     * the validators of each URL.
+     */
+    static final class UrlCheckPoint {
+        private final URL[] urls;
+        private final UrlValidator[] validators;
+
+        UrlCheckPoint(URL[] urls, UrlValidator[] validators) {
+            this.urls = urls;
+            this.validators = validators;
+        }
+
+        /**
+         * @return the validators if this check point was created for the same URLs, otherwise null
+         */
+        UrlValidator[] getValidators(URL[] configUrls) {
+            if (urls != configUrls || validators.length != configUrls.length) {
+                return null;
+            }
+            for (UrlValidator validator: validators) {
+                if (validator == null) {
+                    return null;
+                }
             }
+            return validators;
+        }
+
+        @Override
+        public String toString() {
+            return "UrlCheckPoint [validators=" + Arrays.toString(validators) + "]";
         }
-        return PollResult.createFull(map);
     }
 
     @Override
@@ -269,6 +269,25 @@ public class ConfigurationUtils {
             }
         }
     }
+
+    /**
+     * Load properties from InputStream with utf-8 encoding into a map, with the same format and escaping as
+     * {@link #loadPropertiesFromInputStream(InputStream)}, and it will take care of closing the input stream.
+     * The properties are parsed as they are read with {@link PropertiesParser}, without going through a
+     * {@link Properties} object.
+     *
+     * @param fin
+     * @return a new mutable map of the properties
+     * @throws IOException
+     */
+    public static Map<String, Object> loadPropertiesMapFromInputStream(InputStream fin) throws IOException {
+        InputStreamReader reader = new InputStreamReader(fin, "UTF-8");
+        try {
+            return PropertiesParser.parseToMap(reader);
+        } finally {
+            reader.close();
+        }
+    }
 }
 
 class OverridingPropertiesConfiguration extends PropertiesConfiguration {
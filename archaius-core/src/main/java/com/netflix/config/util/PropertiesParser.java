@@ -0,0 +1,258 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses content in the format of {@link java.util.Properties#load(Reader)} and hands each key and value to a
+ * {@link Handler} as soon as it is read, instead of collecting them in a synchronized {@link java.util.Properties}
+ * first. Comments, line continuations, separators and escapes, including malformed <code>\\uxxxx</code> escapes,
+ * are handled as {@link java.util.Properties#load(Reader)} does. The one case where Java versions differ, a comment
+ * character right after a line that is only a continuation, starts a comment as in Java 9 and later. A key defined
+ * more than once is passed to the handler each time.
+ * <p>
+ * The parser reads the content in large blocks into buffers that are reused for every line, so apart from
+ * the buffers the only objects allocated are the key and value strings. The reader does not need to be buffered.
+ */
+public final class PropertiesParser {
+
+    /**
+     * Receives the properties in the order they are read.
+     */
+    public interface Handler {
+        void property(String key, String value);
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] inBuf = new char[BUFFER_SIZE];
+    private int inLimit;
+    private int inOff;
+    private char[] lineBuf = new char[256];
+    private char[] convBuf = new char[256];
+
+    private PropertiesParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Parse the content of the reader, which is not closed.
+     *
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the content has a malformed <code>\\uxxxx</code> escape
+     */
+    public static void parse(Reader reader, Handler handler) throws IOException {
+        new PropertiesParser(reader).parse(handler);
+    }
+
+    /**
+     * Parse the content of the reader into a map where the last value of a key wins. The reader is not closed.
+     *
+     * @return a new mutable map
+     */
+    public static Map<String, Object> parseToMap(Reader reader) throws IOException {
+        final Map<String, Object> map = new HashMap<String, Object>();
+        parse(reader, new Handler() {
+            @Override
+            public void property(String key, String value) {
+                map.put(key, value);
+            }
+        });
+        return map;
+    }
+
+    private void parse(Handler handler) throws IOException {
+        int limit;
+        while ((limit = readLine()) >= 0) {
+            char c;
+            int keyLen = 0;
+            int valueStart = limit;
+            boolean hasSep = false;
+            boolean precedingBackslash = false;
+            while (keyLen < limit) {
+                c = lineBuf[keyLen];
+                if ((c == '=' || c == ':') && !precedingBackslash) {
+                    valueStart = keyLen + 1;
+                    hasSep = true;
+                    break;
+                } else if ((c == ' ' || c == '\t' || c == '\f') && !precedingBackslash) {
+                    valueStart = keyLen + 1;
+                    break;
+                }
+                precedingBackslash = c == '\\' && !precedingBackslash;
+                keyLen++;
+            }
+            while (valueStart < limit) {
+                c = lineBuf[valueStart];
+                if (c != ' ' && c != '\t' && c != '\f') {
+                    if (!hasSep && (c == '=' || c == ':')) {
+                        hasSep = true;
+                    } else {
+                        break;
+                    }
+                }
+                valueStart++;
+            }
+            String key = unescape(0, keyLen);
+            String value = unescape(valueStart, limit - valueStart);
+            handler.property(key, value);
+        }
+    }
+
+    /**
+     * Read the next logical line into lineBuf, without the comments, blank lines, leading white space and
+     * line continuations.
+     *
+     * @return the length of the line, or -1 at the end of the content
+     */
+    private int readLine() throws IOException {
+        int len = 0;
+        boolean skipWhiteSpace = true;
+        boolean appendedLineBegin = false;
+        boolean precedingBackslash = false;
+        boolean isCommentLine = false;
+        boolean skipLF = false;
+
+        while (true) {
+            if (inOff >= inLimit && !fill()) {
+                if (len == 0 || isCommentLine) {
+                    return -1;
+                }
+                return precedingBackslash ? len - 1 : len;
+            }
+            char c = inBuf[inOff++];
+            if (skipLF) {
+                skipLF = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            if (skipWhiteSpace) {
+                if (c == ' ' || c == '\t' || c == '\f') {
+                    continue;
+                }
+                if (!appendedLineBegin && (c == '\r' || c == '\n')) {
+                    continue;
+                }
+                skipWhiteSpace = false;
+                appendedLineBegin = false;
+            }
+            if (len == 0 && !isCommentLine && (c == '#' || c == '!')) {
+                // still at the start of the logical line
+                isCommentLine = true;
+                continue;
+            }
+
+            if (c != '\n' && c != '\r') {
+                if (isCommentLine) {
+                    continue;
+                }
+                if (len == lineBuf.length) {
+                    lineBuf = grow(lineBuf);
+                }
+                lineBuf[len++] = c;
+                precedingBackslash = c == '\\' && !precedingBackslash;
+            } else if (isCommentLine || len == 0) {
+                // end of a comment or blank line
+                isCommentLine = false;
+                skipWhiteSpace = true;
+            } else if (inOff >= inLimit && !fill()) {
+                return precedingBackslash ? len - 1 : len;
+            } else if (precedingBackslash) {
+                // the line continues on the next one, whose leading white space is skipped
+                len--;
+                skipWhiteSpace = true;
+                appendedLineBegin = true;
+                precedingBackslash = false;
+                if (c == '\r') {
+                    skipLF = true;
+                }
+            } else {
+                return len;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        inOff = 0;
+        inLimit = reader.read(inBuf);
+        if (inLimit <= 0) {
+            inLimit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private String unescape(int off, int len) {
+        if (convBuf.length < len) {
+            convBuf = new char[Math.max(len, convBuf.length * 2)];
+        }
+        char[] in = lineBuf;
+        char[] out = convBuf;
+        int outLen = 0;
+        int end = off + len;
+        while (off < end) {
+            char c = in[off++];
+            if (c != '\\') {
+                out[outLen++] = c;
+                continue;
+            }
+            // the line never ends with a single backslash, which would have continued it
+            c = in[off++];
+            if (c == 'u') {
+                if (end - off < 4) {
+                    throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                }
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    c = in[off++];
+                    if (c >= '0' && c <= '9') {
+                        value = (value << 4) + c - '0';
+                    } else if (c >= 'a' && c <= 'f') {
+                        value = (value << 4) + 10 + c - 'a';
+                    } else if (c >= 'A' && c <= 'F') {
+                        value = (value << 4) + 10 + c - 'A';
+                    } else {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                }
+                out[outLen++] = (char) value;
+            } else if (c == 't') {
+                out[outLen++] = '\t';
+            } else if (c == 'r') {
+                out[outLen++] = '\r';
+            } else if (c == 'n') {
+                out[outLen++] = '\n';
+            } else if (c == 'f') {
+                out[outLen++] = '\f';
+            } else {
+                out[outLen++] = c;
+            }
+        }
+        return new String(out, 0, outLen);
+    }
+
+    private static char[] grow(char[] buf) {
+        char[] newBuf = new char[buf.length * 2];
+        System.arraycopy(buf, 0, newBuf, 0, buf.length);
+        return newBuf;
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.junit.Test;
+
+import com.netflix.config.validation.PropertyChangeValidator;
+import com.netflix.config.validation.ValidationException;
+
+public class BatchUpdateTest {
+
+    static class RecordingListener extends AbstractDynamicPropertyListener implements BatchPropertyListener {
+        final List<Map<String, Object>> batches = new ArrayList<Map<String, Object>>();
+        int propertyEvents;
+
+        @Override
+        public void updateProperties(Object source, Map<String, Object> changes, boolean beforeUpdate) {
+            if (!beforeUpdate) {
+                batches.add(changes);
+            }
+        }
+
+        @Override
+        public void handlePropertyEvent(String name, Object value, EventType eventType) {
+            propertyEvents++;
+        }
+    }
+
+    static class PropertyEventCounter implements ConfigurationListener {
+        final List<String> names = new ArrayList<String>();
+
+        @Override
+        public void configurationChanged(ConfigurationEvent event) {
+            if (!event.isBeforeUpdate()) {
+                names.add(event.getType() + ":" + event.getPropertyName());
+            }
+        }
+    }
+
+    private static Map<String, Object> map(Object... keyValues) {
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    @Test
+    public void testUpdateProperties() {
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        config.setProperty("c", "old");
+        RecordingListener listener = new RecordingListener();
+        config.addConfigurationListener(new ExpandedConfigurationListenerAdapter(listener));
+        PropertyEventCounter counter = new PropertyEventCounter();
+        config.addConfigurationListener(counter);
+
+        config.updateProperties(map("a", "1", "b", "x,y"), Arrays.asList("c"));
+        assertEquals("1", config.getProperty("a"));
+        assertEquals(Arrays.asList("x", "y"), config.getList("b"));
+        assertFalse(config.containsKey("c"));
+
+        assertEquals(1, listener.batches.size());
+        assertEquals(map("a", "1", "b", "x,y", "c", null), listener.batches.get(0));
+        assertEquals(0, listener.propertyEvents);
+        // a listener that does not handle batches gets an event per property
+        Collections.sort(counter.names);
+        assertEquals(Arrays.asList(ConcurrentMapConfiguration.EVENT_CLEAR_PROPERTY + ":c",
+                ConcurrentMapConfiguration.EVENT_SET_PROPERTY + ":a",
+                ConcurrentMapConfiguration.EVENT_SET_PROPERTY + ":b"), counter.names);
+    }
+
+    @Test
+    public void testCompositeResolvesBatch() {
+        ConcurrentCompositeConfiguration composite = new ConcurrentCompositeConfiguration();
+        ConcurrentMapConfiguration high = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration low = new ConcurrentMapConfiguration();
+        high.setProperty("shadowed", "high");
+        low.setProperty("cleared", "low");
+        composite.addConfiguration(high, "high");
+        composite.addConfiguration(low, "low");
+        RecordingListener listener = new RecordingListener();
+        composite.addConfigurationListener(new ExpandedConfigurationListenerAdapter(listener));
+
+        high.updateProperties(map("new", "1", "cleared", "high"), null);
+        high.updateProperties(null, Arrays.asList("cleared"));
+        low.updateProperties(map("shadowed", "low", "other", "2"), null);
+        assertEquals(3, listener.batches.size());
+        assertEquals(map("new", "1", "cleared", "high"), listener.batches.get(0));
+        // the value of the cleared property is now the one from the lower configuration
+        assertEquals(map("cleared", "low"), listener.batches.get(1));
+        // the property still overridden by the higher configuration is left out
+        assertEquals(map("other", "2"), listener.batches.get(2));
+
+        composite.updateProperties(map("container", "3"), null);
+        assertEquals("3", composite.getProperty("container"));
+        assertEquals(map("container", "3"), listener.batches.get(3));
+    }
+
+    /**
+     * @return the configuration of the dynamic properties, installed by the first test that needs it
+     */
+    private static ConcurrentCompositeConfiguration dynamicPropertyConfig() {
+        synchronized (ConfigurationManager.class) {
+            if (!ConfigurationManager.isConfigurationInstalled()) {
+                DynamicPropertyFactory.initWithConfigurationSource(new ConcurrentCompositeConfiguration());
+            }
+            return (ConcurrentCompositeConfiguration) ConfigurationManager.getConfigInstance();
+        }
+    }
+
+    @Test
+    public void testDynamicPropertiesUpdatedTogether() {
+        ConcurrentCompositeConfiguration config = dynamicPropertyConfig();
+        config.setProperty("batch.host", "host1");
+        config.setProperty("batch.port", "80");
+        final DynamicStringProperty host = DynamicPropertyFactory.getInstance().getStringProperty("batch.host", null);
+        final DynamicIntProperty port = DynamicPropertyFactory.getInstance().getIntProperty("batch.port", 0);
+        final List<String> seen = new ArrayList<String>();
+        Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                seen.add(host.get() + ":" + port.get());
+            }
+        };
+        host.addCallback(callback);
+        port.addCallback(callback);
+
+        config.updateProperties(map("batch.host", "host2", "batch.port", "8080"), null);
+        // the callback of the first property already sees the new value of the second one
+        assertEquals(Arrays.asList("host2:8080", "host2:8080"), seen);
+
+        DynamicProperty.getInstance("batch.port").addValidator(new PropertyChangeValidator() {
+            @Override
+            public void validate(String newValue) throws ValidationException {
+                if (newValue.startsWith("-")) {
+                    throw new ValidationException("negative port");
+                }
+            }
+        });
+        try {
+            config.updateProperties(map("batch.host", "host3", "batch.port", "-1"), null);
+            fail("ValidationException expected");
+        } catch (ValidationException expected) {
+        }
+        // nothing changed
+        assertEquals("host2", host.get());
+        assertEquals(8080, port.get());
+        assertEquals("host2", config.getProperty("batch.host"));
+    }
+
+    @Test
+    public void testReadersSeeWholeBatch() throws Exception {
+        final ConcurrentCompositeConfiguration config = dynamicPropertyConfig();
+        final String[] names = new String[32];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "atomic.prop" + i;
+        }
+        final DynamicLongProperty[] props = new DynamicLongProperty[names.length];
+        for (int i = 0; i < names.length; i++) {
+            config.setProperty(names[i], "0");
+            props[i] = DynamicPropertyFactory.getInstance().getLongProperty(names[i], -1);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    // read in the order of the update, in which a partial update would show as a value
+                    // older than the one read before it
+                    long last = props[0].get();
+                    for (int i = 1; i < names.length; i++) {
+                        long value = props[i].get();
+                        if (value < last) {
+                            failure.compareAndSet(null, names[i] + "=" + value + " after " + last);
+                        }
+                        last = value;
+                    }
+                }
+            }
+        };
+        reader.start();
+        try {
+            for (int version = 1; version <= 5000 && failure.get() == null; version++) {
+                Map<String, Object> batch = new LinkedHashMap<String, Object>();
+                for (String name : names) {
+                    batch.put(name, String.valueOf(version));
+                }
+                config.updateProperties(batch, null);
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        assertNull(failure.get());
+        for (DynamicLongProperty prop : props) {
+            assertEquals(5000, prop.get());
+        }
+    }
+}
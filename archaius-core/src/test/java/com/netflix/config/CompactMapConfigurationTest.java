@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Runs the tests of {@link ConcurrentMapConfigurationTest} against {@link CompactMapConfiguration},
+ * plus tests of the compact map itself.
+ */
+public class CompactMapConfigurationTest extends ConcurrentMapConfigurationTest {
+
+    @Override
+    protected ConcurrentMapConfiguration createConfiguration() {
+        return new CompactMapConfiguration();
+    }
+
+    @Test
+    public void testNonAsciiRoundTrip() {
+        ConcurrentMapConfiguration conf = createConfiguration();
+        String[] keys = { "plain.key", "caf\u00e9", "\u65e5\u672c\u8a9e", "emoji.\ud83d\ude00", "lone.\ud800.surrogate", "" };
+        for (String key: keys) {
+            conf.setProperty(key, "value of " + key);
+        }
+        for (String key: keys) {
+            assertEquals("value of " + key, conf.getProperty(key));
+        }
+        Set<String> iterated = new HashSet<String>();
+        for (Iterator<?> i = conf.getKeys(); i.hasNext();) {
+            iterated.add((String) i.next());
+        }
+        assertEquals(new HashSet<String>(Arrays.asList(keys)), iterated);
+        assertNull(conf.getProperty("caf"));
+        assertNull(conf.getProperty("caf\u00e9s"));
+    }
+
+    @Test
+    public void testMapOperations() {
+        CompactConcurrentMap map = new CompactConcurrentMap();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (int i = 0; i < 10000; i++) {
+            map.put("key" + i, "value" + i);
+            expected.put("key" + i, "value" + i);
+        }
+        // remove and add again to leave removed slots behind
+        for (int i = 0; i < 10000; i += 3) {
+            assertEquals("value" + i, map.remove("key" + i));
+            expected.remove("key" + i);
+        }
+        for (int i = 0; i < 10000; i += 6) {
+            assertNull(map.putIfAbsent("key" + i, Integer.valueOf(i)));
+            expected.put("key" + i, Integer.valueOf(i));
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, new HashMap<String, Object>(map));
+        assertEquals("value1", map.putIfAbsent("key1", "other"));
+        assertTrue(map.replace("key1", "value1", "replaced"));
+        assertFalse(map.replace("key1", "value1", "again"));
+        assertEquals("replaced", map.get("key1"));
+        assertFalse(map.remove("key1", "value1"));
+        assertTrue(map.remove("key1", "replaced"));
+        assertNull(map.replace("key1", "absent"));
+        assertFalse(map.containsKey("key1"));
+
+        byte[] bytes = new byte[] { 1, 2 };
+        map.put("bytes", bytes);
+        assertSame(bytes, map.get("bytes"));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("key2"));
+    }
+
+    @Test
+    public void testConcurrentReadsOfCollidingKeys() throws Exception {
+        final CompactConcurrentMap map = new CompactConcurrentMap();
+        // "Aa" and "BB" have the same hash code and probe the same slots
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        final long end = System.currentTimeMillis() + 1000;
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                while (System.currentTimeMillis() < end && failure.get() == null) {
+                    map.remove("Aa");
+                    map.put("BB", "b");
+                    map.remove("BB");
+                    map.put("Aa", "a");
+                }
+            }
+        };
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread() {
+                @Override
+                public void run() {
+                    while (System.currentTimeMillis() < end && failure.get() == null) {
+                        Object a = map.get("Aa");
+                        if (a != null && !"a".equals(a)) {
+                            failure.compareAndSet(null, "Aa read " + a);
+                        }
+                        Object b = map.get("BB");
+                        if (b != null && !"b".equals(b)) {
+                            failure.compareAndSet(null, "BB read " + b);
+                        }
+                    }
+                }
+            };
+            readers[r].start();
+        }
+        writer.start();
+        writer.join();
+        for (Thread reader: readers) {
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+    }
+}
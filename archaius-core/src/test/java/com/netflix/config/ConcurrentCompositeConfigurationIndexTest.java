@@ -0,0 +1,126 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.junit.Test;
+
+public class ConcurrentCompositeConfigurationIndexTest {
+    @Test
+    public void testResolvedValueIndex() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        AbstractConfiguration first = new ConcurrentMapConfiguration();
+        first.setProperty("prop1", "first");
+        AbstractConfiguration second = new ConcurrentMapConfiguration();
+        second.setProperty("prop1", "second");
+        second.setProperty("prop2", "second");
+        config.addConfiguration(first, "first");
+        config.addConfiguration(second, "second");
+        config.setResolvedValueIndexEnabled(true);
+        assertTrue(config.isResolvedValueIndexEnabled());
+        assertEquals("first", config.getProperty("prop1"));
+        assertEquals("second", config.getProperty("prop2"));
+        assertSame(first, config.getSource("prop1"));
+        assertNull(config.getProperty("prop3"));
+        assertFalse(config.containsKey("prop3"));
+
+        // changes in the child configurations
+        second.setProperty("prop3", "second");
+        assertEquals("second", config.getProperty("prop3"));
+        first.clearProperty("prop1");
+        assertEquals("second", config.getProperty("prop1"));
+        assertSame(second, config.getSource("prop1"));
+        first.setProperty("prop1", "first again");
+        assertEquals("first again", config.getProperty("prop1"));
+        second.clear();
+        assertNull(config.getProperty("prop2"));
+        assertFalse(config.containsKey("prop3"));
+        second.setProperty("prop2", "second");
+
+        // override and container properties
+        config.setOverrideProperty("prop2", "overridden");
+        assertEquals("overridden", config.getProperty("prop2"));
+        config.clearOverrideProperty("prop2");
+        assertEquals("second", config.getProperty("prop2"));
+        config.setProperty("prop4", "container");
+        assertEquals("container", config.getProperty("prop4"));
+
+        // add, remove and reorder configurations
+        AbstractConfiguration front = new ConcurrentMapConfiguration();
+        front.setProperty("prop2", "front");
+        config.addConfigurationAtFront(front, "front");
+        assertEquals("front", config.getProperty("prop2"));
+        config.removeConfiguration(front);
+        assertEquals("second", config.getProperty("prop2"));
+        config.setProperty("prop2", "container");
+        assertEquals("second", config.getProperty("prop2"));
+        config.setContainerConfigurationIndex(0);
+        assertEquals("container", config.getProperty("prop2"));
+        config.removeConfiguration("second");
+        config.setContainerConfigurationIndex(1);
+        assertEquals("container", config.getProperty("prop2"));
+        assertEquals("first again", config.getProperty("prop1"));
+
+        config.setResolvedValueIndexEnabled(false);
+        assertFalse(config.isResolvedValueIndexEnabled());
+        assertEquals("container", config.getProperty("prop2"));
+    }
+
+    @Test
+    public void testResolvedValueIndexWithDynamicProperties() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        config.setResolvedValueIndexEnabled(true);
+        DynamicPropertyFactory factory = DynamicPropertyFactory.initWithConfigurationSource(config);
+        DynamicStringProperty prop = factory.getStringProperty("indexed.prop", null);
+        AbstractConfiguration first = new ConcurrentMapConfiguration();
+        AbstractConfiguration second = new ConcurrentMapConfiguration();
+        config.addConfiguration(first, "first");
+        config.addConfiguration(second, "second");
+        second.setProperty("indexed.prop", "second");
+        assertEquals("second", prop.get());
+        first.setProperty("indexed.prop", "first");
+        assertEquals("first", prop.get());
+        second.setProperty("indexed.prop", "second changed");
+        assertEquals("first", prop.get());
+        first.clearProperty("indexed.prop");
+        assertEquals("second changed", prop.get());
+    }
+
+    @Test
+    public void testResolvedValueIndexEnabledBySystemProperty() {
+        System.setProperty(ConcurrentCompositeConfiguration.ENABLE_RESOLVED_VALUE_INDEX, "true");
+        try {
+            ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+            assertTrue(config.isResolvedValueIndexEnabled());
+            config.setOverrideProperty("prop1", "overridden");
+            assertEquals("overridden", config.getProperty("prop1"));
+
+            ConcurrentMapConfiguration container = new ConcurrentMapConfiguration();
+            container.setProperty("prop1", "container");
+            config = new ConcurrentCompositeConfiguration(container);
+            assertTrue(config.isResolvedValueIndexEnabled());
+            assertEquals("container", config.getProperty("prop1"));
+            config.setOverrideProperty("prop1", "overridden");
+            assertEquals("overridden", config.getProperty("prop1"));
+            config.clearOverrideProperty("prop1");
+            assertEquals("container", config.getProperty("prop1"));
+        } finally {
+            System.clearProperty(ConcurrentCompositeConfiguration.ENABLE_RESOLVED_VALUE_INDEX);
+        }
+    }
+}
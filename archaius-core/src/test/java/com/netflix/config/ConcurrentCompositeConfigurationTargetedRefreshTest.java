@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.junit.Test;
+
+public class ConcurrentCompositeConfigurationTargetedRefreshTest {
+
+    private static class EventRecorder implements ConfigurationListener {
+        final List<ConfigurationEvent> events = new CopyOnWriteArrayList<ConfigurationEvent>();
+
+        @Override
+        public void configurationChanged(ConfigurationEvent event) {
+            if (!event.isBeforeUpdate()) {
+                events.add(event);
+            }
+        }
+
+        int count(int type) {
+            int count = 0;
+            for (ConfigurationEvent event : events) {
+                if (event.getType() == type) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    @Test
+    public void testTargetedRefresh() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        config.setTargetedRefreshEnabled(true);
+        DynamicPropertyFactory factory = DynamicPropertyFactory.initWithConfigurationSource(config);
+        DynamicStringProperty prop1 = factory.getStringProperty("prop1", null);
+        DynamicStringProperty prop2 = factory.getStringProperty("prop2", null);
+        DynamicStringProperty prop3 = factory.getStringProperty("prop3", null);
+        config.setProperty("prop1", "container");
+        config.setProperty("prop2", "container");
+        EventRecorder recorder = new EventRecorder();
+        config.addConfigurationListener(recorder);
+
+        AbstractConfiguration source = new ConcurrentMapConfiguration();
+        source.setProperty("prop1", "source");
+        source.setProperty("prop2", "container");
+        source.setProperty("prop3", "a,b");
+        config.addConfigurationAtFront(source, "source");
+        assertEquals("source", prop1.get());
+        assertEquals("container", prop2.get());
+        assertEquals("a,b", prop3.get());
+        assertEquals(0, recorder.count(ConcurrentCompositeConfiguration.EVENT_CONFIGURATION_SOURCE_CHANGED));
+        // prop2 resolves to the same value, so no event for it
+        assertEquals(2, recorder.count(AbstractConfiguration.EVENT_SET_PROPERTY));
+
+        recorder.events.clear();
+        source.clear();
+        assertEquals("container", prop1.get());
+        assertEquals("container", prop2.get());
+        assertNull(prop3.get());
+        assertEquals(0, recorder.count(AbstractConfiguration.EVENT_CLEAR));
+        assertEquals(1, recorder.count(AbstractConfiguration.EVENT_SET_PROPERTY));
+        assertEquals(1, recorder.count(AbstractConfiguration.EVENT_CLEAR_PROPERTY));
+
+        source.setProperty("prop1", "source again");
+        assertEquals("source again", prop1.get());
+        recorder.events.clear();
+        config.removeConfiguration("source");
+        assertEquals("container", prop1.get());
+        assertEquals(1, recorder.count(AbstractConfiguration.EVENT_SET_PROPERTY));
+
+        AbstractConfiguration base = new ConcurrentMapConfiguration();
+        base.setProperty("prop2", "base");
+        config.addConfiguration(base, "base");
+        assertEquals("base", prop2.get());
+        config.setContainerConfigurationIndex(0);
+        assertEquals("container", prop2.get());
+        config.clearProperty("prop2");
+        assertEquals("base", prop2.get());
+        config.removeConfigurationAt(1);
+        assertNull(prop2.get());
+    }
+}
@@ -55,9 +55,16 @@ public class ConcurrentMapConfigurationTest {
         System.setProperty(ConcurrentMapConfiguration.DISABLE_DELIMITER_PARSING, "false");
     }
 
+    /**
+     * Create the configuration under test, overridden to run these tests against subclasses.
+     */
+    protected ConcurrentMapConfiguration createConfiguration() {
+        return new ConcurrentMapConfiguration();
+    }
+
     @Test
     public void testSetGet() {
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         conf.addProperty("key1", "xyz");
         assertEquals("xyz", conf.getProperty("key1"));
         conf.setProperty("key1", "newProp");
@@ -81,7 +88,7 @@ public class ConcurrentMapConfigurationTest {
     
     @Test
     public void testDelimiterParsingDisabled() {
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         conf.setDelimiterParsingDisabled(true);
         conf.setProperty("listProperty", "0,1,2,3");
         assertEquals("0,1,2,3", conf.getProperty("listProperty"));
@@ -99,7 +106,7 @@ public class ConcurrentMapConfigurationTest {
     
     @Test
     public void testConcurrency() {
-        final ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        final ConcurrentMapConfiguration conf = createConfiguration();
         ExecutorService exectuor = Executors.newFixedThreadPool(20);
         final CountDownLatch doneSignal = new CountDownLatch(1000);
         for (int i = 0; i < 1000; i++) {
@@ -127,7 +134,7 @@ public class ConcurrentMapConfigurationTest {
     
     @Test
     public void testListeners() {
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         final AtomicReference<ConfigurationEvent> eventRef = new AtomicReference<ConfigurationEvent>();
         conf.addConfigurationListener(new ConfigurationListener() {
             @Override
@@ -164,7 +171,7 @@ public class ConcurrentMapConfigurationTest {
     
     @Test
     public void testInterpolate() {
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         conf.setProperty("key1", "value1");
         conf.setProperty("key2", "${key1}");
         assertEquals("${key1}", conf.getProperty("key2"));
@@ -177,7 +184,7 @@ public class ConcurrentMapConfigurationTest {
         properties.put("a", "x.y.a");
         properties.put("b", "x.y.b");
         properties.put("c", "x.y.c");
-        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration config = createConfiguration();
         for (String prop: properties.values()) {
             config.addProperty(prop, prop);                
         }
@@ -242,7 +249,7 @@ public class ConcurrentMapConfigurationTest {
         baseConfig.addConfigurationListener(listener);
         HierarchicalConfiguration hConfig = new HierarchicalConfiguration();
         hConfig.addConfigurationListener(listener);
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         conf.addConfigurationListener(listener);
         testConfigurationSet(baseConfig);
         testConfigurationSet(hConfig);
@@ -257,7 +264,7 @@ public class ConcurrentMapConfigurationTest {
     
     @Test
     public void testNullValue() {
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         try {
             conf.setProperty("xyz", null);
         } catch (NullPointerException e) {
@@ -273,7 +280,7 @@ public class ConcurrentMapConfigurationTest {
     @Test
     public void testDelimiterParsingSystemProperty() {
         //Default behavior of enabling Delimiter parsing
-        ConcurrentMapConfiguration conf = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf = createConfiguration();
         conf.setProperty("anotherList", "0,1,2,3");
         List<String> props = (List<String>) conf.getProperty("anotherList");
         for (int i = 0; i < 4; i++) {
@@ -281,7 +288,7 @@ public class ConcurrentMapConfigurationTest {
         }
         //Set the system property to turn off delimiter parsing
         System.setProperty(ConcurrentMapConfiguration.DISABLE_DELIMITER_PARSING, "true");
-        ConcurrentMapConfiguration conf_delimiter_parsing_off = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration conf_delimiter_parsing_off = createConfiguration();
         conf_delimiter_parsing_off.setProperty("listProperty", "0,1,2,3");
         assertEquals("0,1,2,3", conf_delimiter_parsing_off.getProperty("listProperty"));
         conf_delimiter_parsing_off.addProperty("listProperty2", "0,1,2,3");
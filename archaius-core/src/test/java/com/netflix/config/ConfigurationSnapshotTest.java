@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigurationSnapshotTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("archaius", ".snapshot");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("a", "1");
+        props.put("unicode", "caf\u00e9 \u6f22\u5b57");
+        props.put("empty", "");
+        props.put("number", 42);
+        props.put("list", Arrays.asList("x", "y"));
+        props.put("single", Collections.singletonList("z"));
+        props.put("none", Collections.emptyList());
+        ConfigurationSnapshot.write(file, props);
+
+        Map<String, Object> read = ConfigurationSnapshot.read(file);
+        assertEquals(7, read.size());
+        assertEquals("1", read.get("a"));
+        assertEquals("caf\u00e9 \u6f22\u5b57", read.get("unicode"));
+        assertEquals("", read.get("empty"));
+        assertEquals("42", read.get("number"));
+        assertEquals(Arrays.asList("x", "y"), read.get("list"));
+        assertEquals(Arrays.asList("z"), read.get("single"));
+        assertEquals(Collections.emptyList(), read.get("none"));
+
+        // replaced, not appended to
+        ConfigurationSnapshot.write(file, new HashMap<String, Object>());
+        assertTrue(ConfigurationSnapshot.read(file).isEmpty());
+    }
+
+    @Test
+    public void testResolvedComposite() throws IOException {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        ConcurrentMapConfiguration first = new ConcurrentMapConfiguration();
+        first.setProperty("a", "first");
+        ConcurrentMapConfiguration second = new ConcurrentMapConfiguration();
+        second.setProperty("a", "second");
+        second.setProperty("b", "second");
+        config.addConfiguration(first);
+        config.addConfiguration(second);
+        ConfigurationSnapshot.write(file, config);
+
+        Map<String, Object> read = ConfigurationSnapshot.read(file);
+        assertEquals(2, read.size());
+        assertEquals("first", read.get("a"));
+        assertEquals("second", read.get("b"));
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws IOException {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("key", "value");
+        ConfigurationSnapshot.write(file, props);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(raf.length() - 12);
+            raf.write('x');
+        } finally {
+            raf.close();
+        }
+        try {
+            ConfigurationSnapshot.read(file);
+            fail("corrupt snapshot was read");
+        } catch (IOException expected) {
+        }
+
+        ConfigurationSnapshot.write(file, props);
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 4);
+        } finally {
+            raf.close();
+        }
+        try {
+            ConfigurationSnapshot.read(file);
+            fail("truncated snapshot was read");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.netflix.config.DynamicContextualProperty.Value;
@@ -152,4 +153,45 @@ public class DynamicContextualPropertyTest {
         assertEquals(7, ref.get().intValue());
         assertEquals(7, prop.getValue().intValue());
     }
+
+    @Test
+    public void testResolvedValueFollowsDimensions() {
+        String json = "[{\"value\":1,\"if\":{\"@compiledEnv\":[\"prod\"],\"@compiledRegion\":[\"east\"]}},"
+                + "{\"value\":2,\"if\":{\"@compiledEnv\":[\"prod\"]}},{\"value\":3}]";
+        ConfigurationManager.getConfigInstance().setProperty("@compiledEnv", "prod");
+        ConfigurationManager.getConfigInstance().setProperty("@compiledRegion", "east");
+        ConfigurationManager.getConfigInstance().setProperty("compiledProp", json);
+        DynamicContextualProperty<Integer> prop = new DynamicContextualProperty<Integer>("compiledProp", 0);
+        assertEquals(1, prop.getValue().intValue());
+
+        ConfigurationManager.getConfigInstance().setProperty("@compiledRegion", "west");
+        assertEquals(2, prop.getValue().intValue());
+        ConfigurationManager.getConfigInstance().clearProperty("@compiledEnv");
+        assertEquals(3, prop.getValue().intValue());
+
+        // dimensions no longer referenced by the rules do not change the value
+        ConfigurationManager.getConfigInstance().setProperty("compiledProp", "[{\"value\":4,\"if\":{\"@compiledRegion\":[\"east\"]}}]");
+        assertEquals(0, prop.getValue().intValue());
+        ConfigurationManager.getConfigInstance().setProperty("@compiledEnv", "prod");
+        assertEquals(0, prop.getValue().intValue());
+        ConfigurationManager.getConfigInstance().setProperty("@compiledRegion", "east");
+        assertEquals(4, prop.getValue().intValue());
+    }
+
+    @Test
+    public void testCustomPredicateEvaluatedOnEveryCall() {
+        final Map<String, String> context = Maps.newHashMap();
+        context.put("user", "a");
+        DefaultContextualPredicate predicate = new DefaultContextualPredicate(new Function<String, String>() {
+            @Override
+            public String apply(String input) {
+                return context.get(input);
+            }
+        });
+        ConfigurationManager.getConfigInstance().setProperty("customPredicateProp", "[{\"value\":1,\"if\":{\"user\":[\"a\"]}},{\"value\":2}]");
+        DynamicContextualProperty<Integer> prop = new DynamicContextualProperty<Integer>("customPredicateProp", 0, predicate);
+        assertEquals(1, prop.getValue().intValue());
+        context.put("user", "b");
+        assertEquals(2, prop.getValue().intValue());
+    }
 }
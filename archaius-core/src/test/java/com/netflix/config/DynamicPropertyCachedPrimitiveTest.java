@@ -1,5 +1,7 @@
 package com.netflix.config;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -128,4 +130,74 @@ public class DynamicPropertyCachedPrimitiveTest
         assertEquals(0.5f, prop.get());
         assertEquals(0.5f, prop.getValue().floatValue());
     }
+
+    @Test
+    public void testCachedPrimitivesFallBackToDefaultOnBadValue() {
+        String propName = "testprop5";
+        ConfigurationManager.getConfigInstance().setProperty(propName, "12");
+        CachedDynamicIntProperty intProp = new CachedDynamicIntProperty(propName, 7);
+        CachedDynamicLongProperty longProp = new CachedDynamicLongProperty(propName, 7L);
+        CachedDynamicDoubleProperty doubleProp = new CachedDynamicDoubleProperty(propName, 7d);
+        CachedDynamicFloatProperty floatProp = new CachedDynamicFloatProperty(propName, 7f);
+        CachedDynamicBooleanProperty booleanProp = new CachedDynamicBooleanProperty(propName, true);
+        assertEquals(12, intProp.get());
+        assertEquals(12L, longProp.get());
+        assertEquals(12d, doubleProp.get());
+        assertEquals(12f, floatProp.get());
+        assertTrue(booleanProp.get());
+
+        ConfigurationManager.getConfigInstance().setProperty(propName, "not a number");
+        assertEquals(7, intProp.get());
+        assertEquals(7L, longProp.get());
+        assertEquals(7d, doubleProp.get());
+        assertEquals(7f, floatProp.get());
+
+        ConfigurationManager.getConfigInstance().setProperty(propName, "-1.5e2");
+        assertEquals(7, intProp.get());
+        assertEquals(-150d, doubleProp.get());
+        assertEquals(-150f, floatProp.get());
+
+        ConfigurationManager.getConfigInstance().setProperty(propName, "off");
+        assertFalse(booleanProp.get());
+    }
+
+    @Test
+    public void testDurationProperty() {
+        String propName = "testprop6";
+        DynamicDurationProperty prop = new DynamicDurationProperty(propName, 30, TimeUnit.SECONDS);
+        assertEquals(30L, prop.get());
+        assertEquals(30000L, prop.get(TimeUnit.MILLISECONDS));
+
+        ConfigurationManager.getConfigInstance().setProperty(propName, "2m");
+        assertEquals(120L, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "1500ms");
+        assertEquals(1L, prop.get());
+        assertEquals(1000L, prop.get(TimeUnit.MILLISECONDS));
+        ConfigurationManager.getConfigInstance().setProperty(propName, "45");
+        assertEquals(45L, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "1 d");
+        assertEquals(86400L, prop.getValue().longValue());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "10 fortnights");
+        assertEquals(30L, prop.get());
+    }
+
+    @Test
+    public void testByteSizeProperty() {
+        String propName = "testprop7";
+        DynamicByteSizeProperty prop = new DynamicByteSizeProperty(propName, 1024);
+        assertEquals(1024L, prop.get());
+
+        ConfigurationManager.getConfigInstance().setProperty(propName, "64k");
+        assertEquals(64L * 1024, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "10MB");
+        assertEquals(10L * 1024 * 1024, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "2GiB");
+        assertEquals(2L * 1024 * 1024 * 1024, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "512b");
+        assertEquals(512L, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "9999999999p");
+        assertEquals(1024L, prop.get());
+        ConfigurationManager.getConfigInstance().setProperty(propName, "-1k");
+        assertEquals(1024L, prop.getValue().longValue());
+    }
 }
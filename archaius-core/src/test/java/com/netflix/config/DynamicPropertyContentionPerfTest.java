@@ -0,0 +1,85 @@
+package com.netflix.config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple benchmark that measures the read throughput of the typed getters of {@link DynamicProperty}
+ * from many threads while another thread keeps updating the property value, which forces
+ * the typed values to be re-parsed after every update.
+ *
+ * Usage: DynamicPropertyContentionPerfTest [readerThreads] [durationMillis] [updateIntervalMicros]
+ */
+public class DynamicPropertyContentionPerfTest
+{
+    public static void main(String[] args)
+    {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long durationMillis = args.length > 1 ? Long.parseLong(args[1]) : 10000;
+        long updateIntervalMicros = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        try {
+            // Run twice, the first run is the warmup.
+            runTest(readers, durationMillis, updateIntervalMicros);
+            runTest(readers, durationMillis, updateIntervalMicros);
+        }
+        catch(Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void runTest(int readers, long durationMillis, final long updateIntervalMicros) throws Exception
+    {
+        final DynamicProperty prop = DynamicProperty.getInstance("archaius.test.contention.prop");
+        prop.updateValue("0");
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong totalReads = new AtomicLong();
+        final AtomicLong totalUpdates = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(readers + 1);
+
+        Thread updater = new Thread(new Runnable() {
+            public void run() {
+                long i = 0;
+                while (running.get()) {
+                    prop.updateValue(String.valueOf(++i));
+                    if (updateIntervalMicros > 0) {
+                        long deadline = System.nanoTime() + updateIntervalMicros * 1000;
+                        while (System.nanoTime() < deadline) {
+                            // spin
+                        }
+                    }
+                }
+                totalUpdates.set(i);
+                done.countDown();
+            }
+        });
+        for (int t = 0; t < readers; t++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    long reads = 0;
+                    long sink = 0;
+                    while (running.get()) {
+                        sink += prop.getInteger(-1).intValue();
+                        sink += prop.getLong(-1L).longValue();
+                        sink += prop.getBoolean(Boolean.FALSE).booleanValue() ? 1 : 0;
+                        sink += prop.getString("").length();
+                        reads += 4;
+                    }
+                    totalReads.addAndGet(reads + (sink == 42 ? 1 : 0));
+                    done.countDown();
+                }
+            }).start();
+        }
+        updater.start();
+        Thread.sleep(durationMillis);
+        running.set(false);
+        done.await();
+
+        double readsPerSecond = totalReads.get() * 1000d / durationMillis;
+        System.out.println("#####################");
+        System.out.println("Readers = " + readers + ", duration = " + durationMillis + " ms, updates = " + totalUpdates.get());
+        System.out.println("Total reads = " + totalReads.get() + ". Throughput = " + (long) readsPerSecond + " reads/s ("
+                + (long) (readsPerSecond / readers) + " reads/s per thread).");
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+
+public class DynamicPropertyEvictionTest {
+
+    @BeforeClass
+    public static void init() {
+        DynamicPropertyFactory.getInstance();
+        DynamicProperty.setEvictUnused(true);
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        DynamicProperty.setEvictUnused(false);
+    }
+
+    private static void collect(long expectedEvicted) throws InterruptedException {
+        for (int i = 0; i < 50 && DynamicProperty.getEvictedPropertyCount() < expectedEvicted; i++) {
+            System.gc();
+            Thread.sleep(20);
+            DynamicProperty.getRegisteredPropertyCount();
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        AbstractConfiguration config = ConfigurationManager.getConfigInstance();
+        config.setProperty("tenant.kept", "kept");
+        int initialCount = DynamicProperty.getRegisteredPropertyCount();
+        long initialEvicted = DynamicProperty.getEvictedPropertyCount();
+
+        DynamicStringProperty kept = DynamicPropertyFactory.getInstance().getStringProperty("tenant.kept", null);
+        final String[] seen = new String[1];
+        DynamicPropertyFactory.getInstance().getStringProperty("tenant.withCallback", null).addCallback(new Runnable() {
+            @Override
+            public void run() {
+                seen[0] = DynamicProperty.getInstance("tenant.withCallback").getString();
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            assertNull(DynamicPropertyFactory.getInstance().getStringProperty("tenant." + i, null).get());
+        }
+        assertEquals(initialCount + 102, DynamicProperty.getRegisteredPropertyCount());
+
+        collect(initialEvicted + 100);
+        assertEquals(initialEvicted + 100, DynamicProperty.getEvictedPropertyCount());
+        assertEquals(initialCount + 2, DynamicProperty.getRegisteredPropertyCount());
+
+        // the remaining properties are still updated
+        config.setProperty("tenant.kept", "changed");
+        config.setProperty("tenant.withCallback", "called");
+        assertEquals("changed", kept.get());
+        assertEquals("called", seen[0]);
+
+        // an evicted property is created again with the current value
+        config.setProperty("tenant.5", "five");
+        assertEquals("five", DynamicPropertyFactory.getInstance().getStringProperty("tenant.5", null).get());
+    }
+
+    @Test
+    public void testEvictionWithDerivedWrappers() throws Exception {
+        AbstractConfiguration config = ConfigurationManager.getConfigInstance();
+        config.setProperty("derived.kept", "2s");
+        // evict what other tests left behind before counting
+        long evicted;
+        do {
+            evicted = DynamicProperty.getEvictedPropertyCount();
+            collect(evicted + 1);
+        } while (DynamicProperty.getEvictedPropertyCount() != evicted);
+        int initialCount = DynamicProperty.getRegisteredPropertyCount();
+        long initialEvicted = DynamicProperty.getEvictedPropertyCount();
+
+        // wrappers that register a callback to maintain their own value
+        DynamicDurationProperty kept = new DynamicDurationProperty("derived.kept", 0, TimeUnit.MILLISECONDS);
+        Function<String, Integer> length = new Function<String, Integer>() {
+            @Override
+            public Integer apply(String input) {
+                return input.length();
+            }
+        };
+        for (int i = 0; i < 20; i++) {
+            new DynamicDurationProperty("derived.duration." + i, 1, TimeUnit.SECONDS).get();
+            new DynamicByteSizeProperty("derived.size." + i, 1).get();
+            new StringDerivedProperty<Integer>("derived.string." + i, 0, length).getValue();
+            new DynamicStringListProperty("derived.list." + i, "a,b").get();
+            new DynamicContextualProperty<String>("derived.contextual." + i, "default").getValue();
+        }
+        assertEquals(initialCount + 101, DynamicProperty.getRegisteredPropertyCount());
+
+        collect(initialEvicted + 100);
+        assertEquals(initialEvicted + 100, DynamicProperty.getEvictedPropertyCount());
+        assertEquals(initialCount + 1, DynamicProperty.getRegisteredPropertyCount());
+
+        // the wrapper that is still referenced keeps its property and is still updated
+        config.setProperty("derived.kept", "3s");
+        assertEquals(3000, kept.get());
+
+        kept = null;
+        collect(initialEvicted + 101);
+        assertEquals(initialEvicted + 101, DynamicProperty.getEvictedPropertyCount());
+    }
+}
@@ -315,5 +315,30 @@ public class DynamicPropertyTest {
         assertTrue(prop.prop.getCallbacks().contains(r));
     }
 
+    @Test
+    public void testTypedValuesReparsedAfterUpdate() {
+        config.stopLoading();
+        DynamicProperty prop = DynamicProperty.getInstance("com.netflix.testing.typed");
+        config.setProperty("com.netflix.testing.typed", "12");
+        assertEquals(Integer.valueOf(12), prop.getInteger());
+        assertEquals(Long.valueOf(12), prop.getLong());
+        assertEquals(Boolean.FALSE, prop.getBoolean(Boolean.FALSE));
+        // the parsed value is cached until the next update
+        assertSame(prop.getInteger(), prop.getInteger());
+        config.setProperty("com.netflix.testing.typed", "true");
+        assertEquals(Integer.valueOf(-1), prop.getInteger(-1));
+        assertEquals(Boolean.TRUE, prop.getBoolean());
+        try {
+            prop.getInteger();
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getCause());
+        }
+        config.clearProperty("com.netflix.testing.typed");
+        assertNull(prop.getString());
+        assertNull(prop.getInteger());
+        assertEquals("default", prop.getString("default"));
+    }
+
 
 }
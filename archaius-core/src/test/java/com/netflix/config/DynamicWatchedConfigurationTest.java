@@ -0,0 +1,177 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.junit.Test;
+
+public class DynamicWatchedConfigurationTest {
+
+    static class TestSource implements WatchedConfigurationSource {
+        final List<WatchedUpdateListener> listeners = new CopyOnWriteArrayList<WatchedUpdateListener>();
+        final Map<String, Object> data = new HashMap<String, Object>();
+
+        @Override
+        public void addUpdateListener(WatchedUpdateListener l) {
+            listeners.add(l);
+        }
+
+        @Override
+        public void removeUpdateListener(WatchedUpdateListener l) {
+            listeners.remove(l);
+        }
+
+        @Override
+        public Map<String, Object> getCurrentData() throws Exception {
+            return data;
+        }
+
+        void fire(WatchedUpdateResult result) {
+            for (WatchedUpdateListener l: listeners) {
+                l.updateConfiguration(result);
+            }
+        }
+
+        void set(String key, Object value) {
+            fire(WatchedUpdateResult.createIncremental(null, Collections.singletonMap(key, value), null));
+        }
+
+        void delete(String key) {
+            fire(WatchedUpdateResult.createIncremental(null, null, Collections.<String, Object>singletonMap(key, "")));
+        }
+    }
+
+    static class EventCounter implements ConfigurationListener {
+        final List<String> updated = new CopyOnWriteArrayList<String>();
+
+        @Override
+        public void configurationChanged(ConfigurationEvent event) {
+            if (!event.isBeforeUpdate()) {
+                updated.add(event.getPropertyName());
+            }
+        }
+    }
+
+    @Test
+    public void testUnbatched() {
+        TestSource source = new TestSource();
+        source.data.put("a", "1");
+        DynamicWatchedConfiguration config = new DynamicWatchedConfiguration(source);
+        assertEquals("1", config.getProperty("a"));
+        source.set("a", "2");
+        assertEquals("2", config.getProperty("a"));
+    }
+
+    @Test
+    public void testCoalescedBatch() throws Exception {
+        TestSource source = new TestSource();
+        source.data.put("a", "1");
+        source.data.put("b", "1");
+        DynamicWatchedConfiguration config = new DynamicWatchedConfiguration(source, false,
+                new DynamicPropertyUpdater(), 60000, 1000);
+        // the initial content is not batched
+        assertEquals("1", config.getProperty("a"));
+        EventCounter counter = new EventCounter();
+        config.addConfigurationListener(counter);
+
+        for (int i = 2; i <= 100; i++) {
+            source.set("a", String.valueOf(i));
+        }
+        source.set("c", "1");
+        source.delete("c");
+        source.delete("b");
+        source.set("b", "2");
+        assertEquals("1", config.getProperty("a"));
+        assertTrue(counter.updated.isEmpty());
+
+        config.flush();
+        assertEquals("100", config.getProperty("a"));
+        assertEquals("2", config.getProperty("b"));
+        assertNull(config.getProperty("c"));
+        List<String> updated = new ArrayList<String>(counter.updated);
+        Collections.sort(updated);
+        // one event per property, "c" was added and deleted within the batch
+        assertEquals(2, updated.size());
+        assertEquals("a", updated.get(0));
+        assertEquals("b", updated.get(1));
+    }
+
+    @Test
+    public void testWindowAndSize() throws Exception {
+        TestSource source = new TestSource();
+        DynamicWatchedConfiguration config = new DynamicWatchedConfiguration(source, false,
+                new DynamicPropertyUpdater(), 100, 3);
+        source.set("a", "1");
+        assertNull(config.getProperty("a"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (config.getProperty("a") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("1", config.getProperty("a"));
+
+        source.set("x", "1");
+        source.set("y", "1");
+        assertNull(config.getProperty("x"));
+        // the third property fills the batch
+        source.set("z", "1");
+        assertEquals("1", config.getProperty("x"));
+        assertEquals("1", config.getProperty("z"));
+    }
+
+    @Test
+    public void testInvalidBatchSize() {
+        TestSource source = new TestSource();
+        try {
+            new DynamicWatchedConfiguration(source, false, new DynamicPropertyUpdater(), 100, 0);
+            fail("batch size of 0 was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertTrue(source.listeners.isEmpty());
+        // the batch size is not used without a batch window
+        new DynamicWatchedConfiguration(source, false, new DynamicPropertyUpdater(), 0, 0);
+    }
+
+    @Test
+    public void testFullResultInBatch() {
+        TestSource source = new TestSource();
+        source.data.put("a", "1");
+        source.data.put("b", "1");
+        DynamicWatchedConfiguration config = new DynamicWatchedConfiguration(source, false,
+                new DynamicPropertyUpdater(), 60000, 1000);
+        source.set("a", "2");
+        Map<String, Object> full = new HashMap<String, Object>();
+        full.put("a", "3");
+        full.put("c", "3");
+        source.fire(WatchedUpdateResult.createFull(full));
+        source.set("d", "4");
+        source.delete("c");
+        config.flush();
+        assertEquals("3", config.getProperty("a"));
+        assertNull(config.getProperty("b"));
+        assertNull(config.getProperty("c"));
+        assertEquals("4", config.getProperty("d"));
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ExecutorCallbackDispatcherTest {
+
+    /**
+     * Executor that queues the tasks until they are run explicitly by the test.
+     */
+    private static class ManualExecutor implements Executor {
+        final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        synchronized Runnable next() {
+            return tasks.poll();
+        }
+    }
+
+    @Test
+    public void testChangesAreCoalesced() {
+        ManualExecutor executor = new ManualExecutor();
+        ExecutorCallbackDispatcher dispatcher = new ExecutorCallbackDispatcher(executor);
+        DynamicProperty property = DynamicProperty.getInstance("dispatcher.coalesced");
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable notification = new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        dispatcher.dispatch(property, notification);
+        dispatcher.dispatch(property, notification);
+        dispatcher.dispatch(property, notification);
+        assertEquals(1, executor.tasks.size());
+        assertEquals(1, dispatcher.getQueueDepth());
+        assertEquals(2, dispatcher.getCoalescedCount());
+        executor.next().run();
+        assertEquals(1, runs.get());
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(1, dispatcher.getDispatchCount());
+        // the property is no longer held once its callbacks ran
+        assertEquals(0, dispatcher.getDispatchingPropertyCount());
+        // a new change after the run is dispatched again
+        dispatcher.dispatch(property, notification);
+        assertEquals(1, dispatcher.getDispatchingPropertyCount());
+        executor.next().run();
+        assertEquals(2, runs.get());
+        assertEquals(0, dispatcher.getDispatchingPropertyCount());
+    }
+
+    @Test
+    public void testChangeWhileRunningIsDispatchedAfterwards() {
+        ManualExecutor executor = new ManualExecutor();
+        final ExecutorCallbackDispatcher dispatcher = new ExecutorCallbackDispatcher(executor);
+        final DynamicProperty property = DynamicProperty.getInstance("dispatcher.running");
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable notification = new Runnable() {
+            public void run() {
+                if (runs.incrementAndGet() == 1) {
+                    // the property changes again while its callbacks run
+                    dispatcher.dispatch(property, this);
+                }
+            }
+        };
+        dispatcher.dispatch(property, notification);
+        executor.next().run();
+        assertEquals(1, runs.get());
+        // not run concurrently, but scheduled again once the first run completed
+        assertEquals(1, executor.tasks.size());
+        assertEquals(1, dispatcher.getDispatchingPropertyCount());
+        executor.next().run();
+        assertEquals(2, runs.get());
+        assertNull(executor.next());
+        assertEquals(0, dispatcher.getDispatchingPropertyCount());
+    }
+
+    @Test
+    public void testDynamicPropertyCallbacksRunOnExecutor() throws Exception {
+        CallbackDispatcher original = DynamicProperty.getCallbackDispatcher();
+        ExecutorCallbackDispatcher dispatcher = new ExecutorCallbackDispatcher(1);
+        DynamicProperty.setCallbackDispatcher(dispatcher);
+        try {
+            final DynamicStringProperty prop = DynamicPropertyFactory.getInstance().getStringProperty("dispatcher.async", "default");
+            final CountDownLatch latch = new CountDownLatch(1);
+            final Thread updatingThread = Thread.currentThread();
+            prop.addCallback(new Runnable() {
+                public void run() {
+                    if (Thread.currentThread() != updatingThread && "changed".equals(prop.get())) {
+                        latch.countDown();
+                    }
+                }
+            });
+            ConfigurationManager.getConfigInstance().setProperty("dispatcher.async", "changed");
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            DynamicProperty.setCallbackDispatcher(original);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.configuration.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyIndexedConfigurationTest {
+
+    @Before
+    public void enableIndex() {
+        System.setProperty(ConcurrentMapConfiguration.ENABLE_KEY_INDEX, "true");
+    }
+
+    @After
+    public void disableIndex() {
+        System.clearProperty(ConcurrentMapConfiguration.ENABLE_KEY_INDEX);
+    }
+
+    private static List<String> toList(Iterator<?> iterator) {
+        List<String> list = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            list.add((String) iterator.next());
+        }
+        return list;
+    }
+
+    private static void addKeys(Configuration config, String... keys) {
+        for (String key: keys) {
+            config.addProperty(key, "value-" + key);
+        }
+    }
+
+    @Test
+    public void testPrefixKeys() {
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        assertTrue(config.isKeyIndexEnabled());
+        addKeys(config, "a.b.c", "a", "a-x", "a.a", "ab", "b.a", "a.b");
+        assertEquals(Arrays.asList("a", "a.a", "a.b", "a.b.c"), toList(config.getKeys("a")));
+        assertEquals(Arrays.asList("a.b", "a.b.c"), toList(config.getKeys("a.b")));
+        assertEquals(Arrays.asList("a-x"), toList(config.getKeys("a-x")));
+        assertTrue(toList(config.getKeys("c")).isEmpty());
+
+        config.clearProperty("a.a");
+        config.setProperty("a.d", "d");
+        assertEquals(Arrays.asList("a", "a.b", "a.b.c", "a.d"), toList(config.getKeys("a")));
+
+        Iterator<?> keys = config.getKeys();
+        while (keys.hasNext()) {
+            if (((String) keys.next()).startsWith("a.b")) {
+                keys.remove();
+            }
+        }
+        assertEquals(Arrays.asList("a", "a.d"), toList(config.getKeys("a")));
+        config.clear();
+        assertTrue(toList(config.getKeys("a")).isEmpty());
+    }
+
+    @Test
+    public void testSubset() {
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        addKeys(config, "a.x", "a.y", "ab.z", "b.x");
+        Configuration subset = config.subset("a");
+        assertEquals(Arrays.asList("x", "y"), toList(subset.getKeys()));
+        assertEquals("value-a.x", subset.getString("x"));
+    }
+
+    @Test
+    public void testIndexDisabledByDefault() {
+        System.clearProperty(ConcurrentMapConfiguration.ENABLE_KEY_INDEX);
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        assertFalse(config.isKeyIndexEnabled());
+        addKeys(config, "a.x", "a-x");
+        assertEquals(Arrays.asList("a.x"), toList(config.getKeys("a")));
+    }
+
+    @Test
+    public void testCompactConfiguration() {
+        CompactMapConfiguration config = new CompactMapConfiguration();
+        assertTrue(config.isKeyIndexEnabled());
+        addKeys(config, "a.y", "a.x", "b");
+        assertEquals(Arrays.asList("a.x", "a.y"), toList(config.getKeys("a")));
+    }
+
+    @Test
+    public void testCompositePrefixKeys() {
+        ConcurrentCompositeConfiguration composite = new ConcurrentCompositeConfiguration();
+        ConcurrentMapConfiguration first = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration second = new ConcurrentMapConfiguration();
+        addKeys(first, "a.c", "a.a", "b.a");
+        addKeys(second, "a.b", "a.c", "a", "a-b");
+        composite.addConfiguration(first);
+        composite.addConfiguration(second);
+        composite.setOverrideProperty("a.d", "override");
+        composite.setOverrideProperty("a.a", "override");
+        assertTrue(composite.hasSortedPrefixKeys());
+        assertEquals(Arrays.asList("a", "a.a", "a.b", "a.c", "a.d"), toList(composite.getKeys("a")));
+        assertEquals("override", composite.subset("a").getString("a"));
+
+        // a child without sorted keys makes the composite fall back to collecting the keys
+        System.clearProperty(ConcurrentMapConfiguration.ENABLE_KEY_INDEX);
+        ConcurrentMapConfiguration unindexed = new ConcurrentMapConfiguration();
+        addKeys(unindexed, "a.e");
+        composite.addConfiguration(unindexed);
+        assertFalse(composite.hasSortedPrefixKeys());
+        List<String> keys = toList(composite.getKeys("a"));
+        assertEquals(6, keys.size());
+        assertTrue(keys.containsAll(Arrays.asList("a", "a.a", "a.b", "a.c", "a.d", "a.e")));
+    }
+}
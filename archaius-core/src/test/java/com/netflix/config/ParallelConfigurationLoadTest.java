@@ -0,0 +1,142 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.junit.Test;
+
+public class ParallelConfigurationLoadTest {
+
+    private static Callable<AbstractConfiguration> loader(final String value, final long delayMillis) {
+        return new Callable<AbstractConfiguration>() {
+            @Override
+            public AbstractConfiguration call() throws Exception {
+                Thread.sleep(delayMillis);
+                ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+                config.setProperty("prop", value);
+                config.setProperty(value, "true");
+                return config;
+            }
+        };
+    }
+
+    @Test
+    public void testLoadInParallel() {
+        final CountDownLatch started = new CountDownLatch(3);
+        Map<String, Callable<AbstractConfiguration>> loaders = new LinkedHashMap<String, Callable<AbstractConfiguration>>();
+        for (final String name: Arrays.asList("first", "second", "third")) {
+            // every loader waits until all have started, so they can only complete if run concurrently
+            final Callable<AbstractConfiguration> loader = loader(name, 200);
+            loaders.put(name, new Callable<AbstractConfiguration>() {
+                @Override
+                public AbstractConfiguration call() throws Exception {
+                    started.countDown();
+                    assertTrue(started.await(5, TimeUnit.SECONDS));
+                    return loader.call();
+                }
+            });
+        }
+        ConcurrentCompositeConfiguration composite = new ConcurrentCompositeConfiguration();
+        List<ConfigurationLoadResult> results = ConfigurationManager.loadConfigurationsInParallel(
+                composite, loaders, 10, TimeUnit.SECONDS);
+        assertEquals(3, results.size());
+        for (ConfigurationLoadResult result: results) {
+            assertEquals(ConfigurationLoadResult.Status.LOADED, result.getStatus());
+            assertTrue(result.getLoadTimeMillis() >= 150);
+        }
+        assertEquals(Arrays.asList("first", "second", "third"), composite.getConfigurationNameList().subList(0, 3));
+        assertEquals("first", composite.getString("prop"));
+        assertTrue(composite.getBoolean("third"));
+    }
+
+    @Test
+    public void testFailureAndTimeout() {
+        Map<String, Callable<AbstractConfiguration>> loaders = new LinkedHashMap<String, Callable<AbstractConfiguration>>();
+        loaders.put("slow", loader("slow", 60000));
+        loaders.put("failing", new Callable<AbstractConfiguration>() {
+            @Override
+            public AbstractConfiguration call() throws Exception {
+                throw new IllegalStateException("source unavailable");
+            }
+        });
+        loaders.put("fast", loader("fast", 0));
+        ConcurrentCompositeConfiguration composite = new ConcurrentCompositeConfiguration();
+        long start = System.currentTimeMillis();
+        List<ConfigurationLoadResult> results = ConfigurationManager.loadConfigurationsInParallel(
+                composite, loaders, 500, TimeUnit.MILLISECONDS);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+
+        assertEquals("slow", results.get(0).getName());
+        assertEquals(ConfigurationLoadResult.Status.TIMED_OUT, results.get(0).getStatus());
+        assertNull(results.get(0).getConfiguration());
+        assertEquals(ConfigurationLoadResult.Status.FAILED, results.get(1).getStatus());
+        assertTrue(results.get(1).getException() instanceof IllegalStateException);
+        assertEquals(ConfigurationLoadResult.Status.LOADED, results.get(2).getStatus());
+        assertNull(composite.getConfiguration("slow"));
+        assertNull(composite.getConfiguration("failing"));
+        assertNotNull(composite.getConfiguration("fast"));
+        assertEquals("fast", composite.getString("prop"));
+    }
+
+    static class CloseableConfiguration extends ConcurrentMapConfiguration implements Closeable {
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    @Test
+    public void testLateConfigurationIsClosed() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CloseableConfiguration late = new CloseableConfiguration();
+        Map<String, Callable<AbstractConfiguration>> loaders = new LinkedHashMap<String, Callable<AbstractConfiguration>>();
+        loaders.put("late", new Callable<AbstractConfiguration>() {
+            @Override
+            public AbstractConfiguration call() throws Exception {
+                // a loader that does not stop when interrupted
+                while (true) {
+                    try {
+                        release.await();
+                        return late;
+                    } catch (InterruptedException e) {
+                        // keep loading
+                    }
+                }
+            }
+        });
+        ConcurrentCompositeConfiguration composite = new ConcurrentCompositeConfiguration();
+        List<ConfigurationLoadResult> results = ConfigurationManager.loadConfigurationsInParallel(
+                composite, loaders, 200, TimeUnit.MILLISECONDS);
+        assertEquals(ConfigurationLoadResult.Status.TIMED_OUT, results.get(0).getStatus());
+        assertEquals(1, late.closed.getCount());
+        release.countDown();
+        assertTrue(late.closed.await(5, TimeUnit.SECONDS));
+        assertNull(composite.getConfiguration("late"));
+    }
+}
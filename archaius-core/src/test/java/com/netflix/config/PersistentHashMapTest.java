@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+
+    /**
+     * A key with a chosen hash code, to create collisions
+     */
+    static class Key {
+        final String name;
+        final int hash;
+
+        Key(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).name.equals(name);
+        }
+    }
+
+    private static <K> void assertSameContent(Map<K, Integer> expected, PersistentHashMap<K, Integer> map) {
+        assertEquals(expected.size(), map.size());
+        Set<K> keys = new HashSet<K>();
+        for (Iterator<K> it = map.keyIterator(); it.hasNext();) {
+            K key = it.next();
+            assertTrue(keys.add(key));
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.keySet(), keys);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            String key = "key" + random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+                assertFalse(map.containsKey(key));
+            } else {
+                Integer value = random.nextInt(10);
+                expected.put(key, value);
+                map = map.plus(key, value);
+                assertEquals(value, map.get(key));
+            }
+            if (i % 1000 == 0) {
+                assertSameContent(expected, map);
+            }
+        }
+        assertSameContent(expected, map);
+        for (String key: new HashSet<String>(expected.keySet())) {
+            map = map.minus(key);
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.keyIterator().hasNext());
+    }
+
+    @Test
+    public void testImmutable() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> one = empty.plus("a", 1);
+        PersistentHashMap<String, Integer> two = one.plus("b", 2);
+        PersistentHashMap<String, Integer> changed = two.plus("a", 3);
+        assertSame(two, two.plus("b", 2));
+        assertSame(two, two.minus("c"));
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertNull(one.get("b"));
+        assertEquals(Integer.valueOf(1), two.get("a"));
+        assertEquals(Integer.valueOf(3), changed.get("a"));
+        assertEquals(2, changed.size());
+        assertEquals(1, changed.minus("a").size());
+        assertEquals(Integer.valueOf(3), changed.get("a"));
+    }
+
+    @Test
+    public void testCollisions() {
+        Map<Key, Integer> expected = new HashMap<Key, Integer>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        // keys with the same hash, and hashes that only differ in the high bits
+        int[] hashes = {7, 7, 7 | (1 << 31), 7 | (1 << 30), 7 | (1 << 5), 39};
+        for (int i = 0; i < hashes.length; i++) {
+            Key key = new Key("k" + i, hashes[i]);
+            expected.put(key, i);
+            map = map.plus(key, i);
+        }
+        assertSameContent(expected, map);
+        map = map.plus(new Key("k1", 7), 10);
+        expected.put(new Key("k1", 7), 10);
+        assertSameContent(expected, map);
+        for (int i = 0; i < hashes.length; i++) {
+            Key key = new Key("k" + i, hashes[i]);
+            expected.remove(key);
+            map = map.minus(key);
+            assertSameContent(expected, map);
+        }
+        assertTrue(map.isEmpty());
+    }
+}
@@ -17,9 +17,12 @@ package com.netflix.config;
 
 import static org.junit.Assert.*;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.configuration.BaseConfiguration;
 import org.junit.Test;
@@ -159,5 +162,61 @@ public class PollingSourceTest {
         assertEquals("changed", prop2.get());
     }
 
-}
+    @Test
+    public void testFullResultAppliedAsDelta() throws Exception {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("prop1", "original");
+        config.addProperty("prop4", "notInSource");
+        DummyPollingSource source = new DummyPollingSource(false);
+        source.setFull("prop1=original,prop2=new");
+        AbstractPollingScheduler scheduler = new AbstractPollingScheduler() {
+            @Override
+            protected void schedule(Runnable pollingRunnable) {
+            }
+            @Override
+            public void stop() {
+            }
+        };
+        final List<PollResult> applied = new CopyOnWriteArrayList<PollResult>();
+        scheduler.addPollListener(new PollListener() {
+            @Override
+            public void handleEvent(EventType eventType, PollResult lastResult, Throwable exception) {
+                if (eventType == EventType.POLL_APPLIED) {
+                    applied.add(lastResult);
+                }
+            }
+        });
+        scheduler.startPolling(source, config);
+        assertEquals(1, applied.size());
+        PollResult delta = applied.get(0);
+        assertTrue(delta.isIncremental());
+        assertEquals(Collections.singleton("prop2"), delta.getAdded().keySet());
+        assertTrue(delta.getChanged().isEmpty());
+        assertEquals(Collections.singleton("prop4"), delta.getDeleted().keySet());
+        assertFalse(config.containsKey("prop4"));
+
+        // unchanged poll
+        scheduler.populateProperties(source.poll(false, null), config);
+        delta = applied.get(1);
+        assertFalse(delta.hasChanges());
 
+        source.setFull("prop1=changed,prop3=new");
+        scheduler.populateProperties(source.poll(false, null), config);
+        delta = applied.get(2);
+        assertEquals(Collections.singleton("prop3"), delta.getAdded().keySet());
+        assertEquals(Collections.singleton("prop1"), delta.getChanged().keySet());
+        assertEquals(Collections.singleton("prop2"), delta.getDeleted().keySet());
+        assertEquals("changed", config.getProperty("prop1"));
+        assertFalse(config.containsKey("prop2"));
+        assertEquals("new", config.getProperty("prop3"));
+
+        // incremental results are reflected in the snapshot used to diff the next full result
+        scheduler.populateProperties(PollResult.createIncremental(Collections.<String, Object>singletonMap("prop5", "inc"),
+                null, Collections.<String, Object>singletonMap("prop3", "new"), null), config);
+        source.setFull("prop1=changed,prop5=inc");
+        scheduler.populateProperties(source.poll(false, null), config);
+        delta = applied.get(4);
+        assertFalse(delta.hasChanges());
+        assertEquals("inc", config.getProperty("prop5"));
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PrimitiveParsersTest {
+
+    @Test
+    public void testIntegers() {
+        assertEquals(42, PrimitiveParsers.parseInt("42", -1));
+        assertEquals(-42, PrimitiveParsers.parseInt("-42", -1));
+        assertEquals(42, PrimitiveParsers.parseInt("+42", -1));
+        assertEquals(Integer.MAX_VALUE, PrimitiveParsers.parseInt(String.valueOf(Integer.MAX_VALUE), -1));
+        assertEquals(Integer.MIN_VALUE, PrimitiveParsers.parseInt(String.valueOf(Integer.MIN_VALUE), -1));
+        assertEquals(-1, PrimitiveParsers.parseInt("2147483648", -1));
+        assertEquals(-1, PrimitiveParsers.parseInt(" 42", -1));
+        assertEquals(-1, PrimitiveParsers.parseInt("4.2", -1));
+        assertEquals(-1, PrimitiveParsers.parseInt("-", -1));
+        assertEquals(-1, PrimitiveParsers.parseInt("", -1));
+        assertEquals(-1, PrimitiveParsers.parseInt(null, -1));
+
+        assertEquals(Long.MAX_VALUE, PrimitiveParsers.parseLong(String.valueOf(Long.MAX_VALUE), -1));
+        assertEquals(Long.MIN_VALUE, PrimitiveParsers.parseLong(String.valueOf(Long.MIN_VALUE), -1));
+        assertEquals(-1, PrimitiveParsers.parseLong("9223372036854775808", -1));
+        assertEquals(-1, PrimitiveParsers.parseLong("-9223372036854775809", -1));
+    }
+
+    @Test
+    public void testFloatingPoint() {
+        String[] valid = { "1", "1.5", "-1.5", ".5", "5.", "1e10", "1.5E-3", " 2.5 ", "3f", "3.0D", "NaN", "-Infinity" };
+        for (String s: valid) {
+            assertEquals(s, Double.parseDouble(s), PrimitiveParsers.parseDouble(s, -1d), 0d);
+            assertEquals(s, Float.parseFloat(s), PrimitiveParsers.parseFloat(s, -1f), 0f);
+        }
+        String[] invalid = { "", ".", "e5", "1e", "1.5.3", "abc", "1,5", "- 1", null };
+        for (String s: invalid) {
+            assertEquals(s, -1d, PrimitiveParsers.parseDouble(s, -1d), 0d);
+            assertEquals(s, -1f, PrimitiveParsers.parseFloat(s, -1f), 0f);
+        }
+    }
+
+    @Test
+    public void testBooleans() {
+        assertTrue(PrimitiveParsers.parseBoolean("YES", false));
+        assertFalse(PrimitiveParsers.parseBoolean("f", true));
+        assertTrue(PrimitiveParsers.parseBoolean("maybe", true));
+        assertFalse(PrimitiveParsers.parseBoolean(null, false));
+    }
+
+    @Test
+    public void testDurations() {
+        assertEquals(5, PrimitiveParsers.parseDuration("5", TimeUnit.SECONDS, -1));
+        assertEquals(5000, PrimitiveParsers.parseDuration("5s", TimeUnit.MILLISECONDS, -1));
+        assertEquals(90, PrimitiveParsers.parseDuration("90 MIN", TimeUnit.MINUTES, -1));
+        assertEquals(2, PrimitiveParsers.parseDuration("2d", TimeUnit.DAYS, -1));
+        assertEquals(3000, PrimitiveParsers.parseDuration("3ms", TimeUnit.MICROSECONDS, -1));
+        assertEquals(-1, PrimitiveParsers.parseDuration("-5s", TimeUnit.SECONDS, -1));
+        assertEquals(-1, PrimitiveParsers.parseDuration("5 weeks", TimeUnit.SECONDS, -1));
+        assertEquals(-1, PrimitiveParsers.parseDuration("s", TimeUnit.SECONDS, -1));
+        assertEquals(-1, PrimitiveParsers.parseDuration("99999999999999999999", TimeUnit.SECONDS, -1));
+    }
+
+    @Test
+    public void testByteSizes() {
+        assertEquals(100, PrimitiveParsers.parseByteSize("100", -1));
+        assertEquals(100, PrimitiveParsers.parseByteSize("100B", -1));
+        assertEquals(2048, PrimitiveParsers.parseByteSize("2k", -1));
+        assertEquals(2048, PrimitiveParsers.parseByteSize("2 KiB", -1));
+        assertEquals(3L << 30, PrimitiveParsers.parseByteSize("3gb", -1));
+        assertEquals(1L << 50, PrimitiveParsers.parseByteSize("1P", -1));
+        assertEquals(-1, PrimitiveParsers.parseByteSize("2ki", -1));
+        assertEquals(-1, PrimitiveParsers.parseByteSize("2x", -1));
+        assertEquals(-1, PrimitiveParsers.parseByteSize("8193p", -1));
+        assertEquals(-1, PrimitiveParsers.parseByteSize("kb", -1));
+    }
+}
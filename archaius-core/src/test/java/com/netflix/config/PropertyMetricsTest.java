@@ -0,0 +1,144 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import com.netflix.config.jmx.BasePropertyMetricsMBean;
+import com.netflix.config.jmx.PropertyMetricsMBean;
+
+public class PropertyMetricsTest {
+
+    static class RecordingRegistry implements PropertyMetricsRegistry {
+        final Set<String> registered = new HashSet<String>();
+
+        @Override
+        public void register(PropertyMetrics metrics) {
+            registered.add(metrics.getName());
+        }
+
+        @Override
+        public void unregister(PropertyMetrics metrics) {
+            registered.remove(metrics.getName());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        DynamicProperty.setMetricsRegistry(null);
+        DynamicProperty.setMetricsEnabled(false);
+    }
+
+    @Test
+    public void testMetrics() {
+        AbstractConfiguration config = ConfigurationManager.getConfigInstance();
+        config.setProperty("metrics.int", "1");
+        DynamicIntProperty intProp = DynamicPropertyFactory.getInstance().getIntProperty("metrics.int", 0);
+        assertNull(intProp.getMetrics());
+
+        RecordingRegistry registry = new RecordingRegistry();
+        DynamicProperty.setMetricsRegistry(registry);
+        DynamicProperty.setMetricsEnabled(true);
+        CachedDynamicLongProperty cachedProp = new CachedDynamicLongProperty("metrics.cached", 5);
+        DynamicStringProperty unread = DynamicPropertyFactory.getInstance().getStringProperty("metrics.unread", null);
+        assertTrue(registry.registered.containsAll(Arrays.asList("metrics.int", "metrics.cached", "metrics.unread")));
+
+        PropertyMetrics metrics = intProp.getMetrics();
+        assertSame(metrics, DynamicProperty.getInstance("metrics.int").getMetrics());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, intProp.get());
+            assertEquals(5, cachedProp.get());
+        }
+        assertEquals(100, metrics.getReadCount());
+        assertEquals(100, cachedProp.getMetrics().getReadCount());
+        assertTrue(metrics.getLastReadTime() > 0);
+        assertEquals(0, unread.getMetrics().getReadCount());
+
+        // parsed values are cached like those of the cached properties
+        config.setProperty("metrics.duration", "2s");
+        config.setProperty("metrics.size", "1k");
+        DynamicDurationProperty durationProp = new DynamicDurationProperty("metrics.duration", 0, TimeUnit.MILLISECONDS);
+        DynamicByteSizeProperty sizeProp = new DynamicByteSizeProperty("metrics.size", 0);
+        assertEquals(0, durationProp.getMetrics().getReadCount());
+        assertEquals(0, sizeProp.getMetrics().getReadCount());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(2000, durationProp.get());
+            assertEquals(2, durationProp.get(TimeUnit.SECONDS));
+            assertEquals(1024, sizeProp.get());
+        }
+        assertEquals(100, durationProp.getMetrics().getReadCount());
+        assertEquals(50, sizeProp.getMetrics().getReadCount());
+
+        final long[] seen = new long[1];
+        intProp.addCallback(new Runnable() {
+            @Override
+            public void run() {
+                seen[0]++;
+            }
+        });
+        config.setProperty("metrics.int", "x");
+        assertEquals(1, seen[0]);
+        assertEquals(1, metrics.getUpdateCount());
+        assertEquals(1, metrics.getCallbackRunCount());
+        assertTrue(metrics.getMaxCallbackTimeNanos() > 0);
+        assertEquals(0, intProp.get());
+        assertEquals(0, intProp.get());
+        // the failed parse is cached with the value
+        assertEquals(1, metrics.getParseFailureCount());
+
+        PropertyMetricsMBean mbean = new BasePropertyMetricsMBean();
+        assertTrue(Arrays.asList(mbean.getUnreadProperties()).contains("metrics.unread"));
+        assertFalse(Arrays.asList(mbean.getUnreadProperties()).contains("metrics.int"));
+        assertEquals("metrics.int=102", mbean.getMostReadProperties(1)[0]);
+        assertEquals(Arrays.asList("metrics.int=1"), Arrays.asList(mbean.getMostParseFailures(10)));
+        assertEquals(metrics.toString(), mbean.getPropertyMetrics("metrics.int"));
+
+        mbean.setMetricsEnabled(false);
+        assertNull(intProp.getMetrics());
+        assertTrue(registry.registered.isEmpty());
+        assertEquals(0, mbean.getPropertyCount());
+    }
+
+    @Test
+    public void testStripedCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(800000, counter.sum());
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SharedPollingSchedulerTest {
+
+    private SharedPollingExecutor executor;
+
+    @After
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    static class CountingSource implements PolledConfigurationSource {
+        final AtomicInteger polls = new AtomicInteger();
+        final String name;
+        volatile boolean failing;
+        volatile String value = "1";
+
+        CountingSource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public PollResult poll(boolean initial, Object checkPoint) throws Exception {
+            polls.incrementAndGet();
+            if (failing && !initial) {
+                throw new Exception("failing");
+            }
+            Map<String, Object> props = new HashMap<String, Object>();
+            props.put(name, value);
+            return PollResult.createFull(props);
+        }
+    }
+
+    @Test
+    public void testBackoff() {
+        executor = new SharedPollingExecutor(1, 0, 1000);
+        assertEquals(100, executor.nextDelay(100, 0));
+        assertEquals(200, executor.nextDelay(100, 1));
+        assertEquals(800, executor.nextDelay(100, 3));
+        assertEquals(1000, executor.nextDelay(100, 4));
+        assertEquals(1000, executor.nextDelay(100, 100));
+        // the maximum backoff never shortens the normal delay
+        assertEquals(5000, executor.nextDelay(5000, 2));
+    }
+
+    @Test
+    public void testJitter() {
+        executor = new SharedPollingExecutor(1, 0.2, 1000);
+        boolean varied = false;
+        for (int i = 0; i < 100; i++) {
+            long delay = executor.nextDelay(1000, 0);
+            assertTrue(delay >= 800 && delay <= 1200);
+            varied |= delay != 1000;
+        }
+        assertTrue(varied);
+    }
+
+    @Test
+    public void testSourcesShareThreads() throws Exception {
+        executor = new SharedPollingExecutor(1, 0.1, 1000);
+        CountingSource[] sources = new CountingSource[5];
+        DynamicConfiguration[] configs = new DynamicConfiguration[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = new CountingSource("prop" + i);
+            configs[i] = new DynamicConfiguration(sources[i], new SharedPollingScheduler(executor, 10, 10, false));
+            assertEquals("1", configs[i].getProperty("prop" + i));
+        }
+        for (CountingSource source: sources) {
+            source.value = "2";
+        }
+        Thread.sleep(300);
+        for (int i = 0; i < sources.length; i++) {
+            assertTrue(sources[i].polls.get() > 2);
+            assertEquals("2", configs[i].getProperty("prop" + i));
+            configs[i].stopLoading();
+        }
+        int polls = sources[0].polls.get();
+        Thread.sleep(100);
+        assertEquals(polls, sources[0].polls.get());
+    }
+
+    @Test
+    public void testBackoffOnFailure() throws Exception {
+        executor = new SharedPollingExecutor(1, 0, 100000);
+        CountingSource source = new CountingSource("prop");
+        source.failing = true;
+        SharedPollingScheduler scheduler = new SharedPollingScheduler(executor, 10, 10, false);
+        DynamicConfiguration config = new DynamicConfiguration(source, scheduler);
+        Thread.sleep(400);
+        // delays of 10, 20, 40, 80, 160 ms after the first poll at 10 ms
+        int polls = source.polls.get();
+        assertTrue("polls: " + polls, polls >= 4 && polls <= 7);
+        assertTrue(scheduler.getConsecutiveFailures() >= 3);
+
+        source.failing = false;
+        source.value = "2";
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getConsecutiveFailures() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, scheduler.getConsecutiveFailures());
+        assertEquals("2", config.getProperty("prop"));
+        config.stopLoading();
+    }
+}
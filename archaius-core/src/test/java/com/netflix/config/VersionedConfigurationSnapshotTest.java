@@ -0,0 +1,164 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class VersionedConfigurationSnapshotTest {
+
+    private static Set<String> keysOf(VersionedConfigurationSnapshot snapshot) {
+        Set<String> keys = new HashSet<String>();
+        for (Iterator<String> it = snapshot.getKeys(); it.hasNext();) {
+            keys.add(it.next());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testSnapshot() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        ConcurrentMapConfiguration high = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration low = new ConcurrentMapConfiguration();
+        high.setProperty("a", "high");
+        low.setProperty("a", "low");
+        low.setProperty("b", "${a}-b");
+        config.addConfiguration(high, "high");
+        config.addConfiguration(low, "low");
+        config.setProperty("list", "x,y");
+
+        VersionedConfigurationSnapshot first = config.getSnapshot();
+        assertSame(first, config.getSnapshot());
+        assertEquals(config.getVersion(), first.getVersion());
+        assertEquals("high", first.getString("a"));
+        assertEquals("high-b", first.getString("b"));
+        assertEquals(Arrays.asList("x", "y"), first.getList("list"));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "list")), keysOf(first));
+
+        high.setProperty("c", "1");
+        high.clearProperty("a");
+        VersionedConfigurationSnapshot second = config.getSnapshot();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(config.getVersion(), second.getVersion());
+        assertEquals("low", second.getString("a"));
+        assertEquals("low-b", second.getString("b"));
+        assertEquals("1", second.getString("c"));
+        // the first snapshot is unchanged
+        assertEquals("high", first.getString("a"));
+        assertFalse(first.containsKey("c"));
+        assertEquals(3, first.size());
+
+        config.setOverrideProperty("b", "override");
+        assertEquals("override", config.getSnapshot().getString("b"));
+        config.removeConfiguration("high");
+        assertFalse(config.getSnapshot().containsKey("c"));
+        low.clear();
+        assertEquals(new HashSet<String>(Arrays.asList("b", "list")), keysOf(config.getSnapshot()));
+    }
+
+    @Test
+    public void testVersion() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        long version = config.getVersion();
+        config.setProperty("a", "1");
+        assertTrue(config.getVersion() > version);
+        version = config.getVersion();
+        config.addConfiguration(new ConcurrentMapConfiguration(), "other");
+        assertTrue(config.getVersion() > version);
+        version = config.getVersion();
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("b", "2");
+        props.put("c", "3");
+        config.updateProperties(props, null);
+        assertEquals(version + 1, config.getVersion());
+    }
+
+    @Test
+    public void testListValuesAreCopied() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        ConcurrentMapConfiguration child = new ConcurrentMapConfiguration();
+        child.setProperty("k", "a,b");
+        config.addConfiguration(child, "child");
+        VersionedConfigurationSnapshot first = config.getSnapshot();
+        assertEquals(Arrays.asList("a", "b"), first.getList("k"));
+
+        // adding a value changes the list of the child configuration in place
+        child.addProperty("k", "c");
+        assertEquals(Arrays.asList("a", "b", "c"), config.getSnapshot().getList("k"));
+        assertEquals(Arrays.asList("a", "b"), first.getList("k"));
+        assertEquals(Arrays.asList("a", "b"), first.getProperty("k"));
+        try {
+            ((List<?>) first.getProperty("k")).clear();
+            fail("UnsupportedOperationException expected");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        config.getSnapshot().setProperty("a", "1");
+    }
+
+    @Test
+    public void testConsistentReads() throws Exception {
+        final ConcurrentCompositeConfiguration config = new ConcurrentCompositeConfiguration();
+        final ConcurrentMapConfiguration source = new ConcurrentMapConfiguration();
+        config.addConfiguration(source, "source");
+        // start tracking the snapshot before the updates
+        config.getSnapshot();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    VersionedConfigurationSnapshot snapshot = config.getSnapshot();
+                    String first = snapshot.getString("p0");
+                    for (int i = 1; i < 20; i++) {
+                        String value = snapshot.getString("p" + i);
+                        if (first == null ? value != null : !first.equals(value)) {
+                            failure.set("p" + i + "=" + value + " but p0=" + first);
+                        }
+                    }
+                }
+            }
+        };
+        reader.start();
+        Map<String, Object> props = new HashMap<String, Object>();
+        for (int generation = 0; generation < 2000; generation++) {
+            for (int i = 0; i < 20; i++) {
+                props.put("p" + i, String.valueOf(generation));
+            }
+            source.updateProperties(props, null);
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals("1999", config.getSnapshot().getString("p19"));
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.config.DynamicWatchedConfiguration;
+import com.netflix.config.WatchedUpdateListener;
+import com.netflix.config.WatchedUpdateResult;
+
+public class FileWatchedConfigurationSourceTest {
+
+    static class RecordingListener implements WatchedUpdateListener {
+        final BlockingQueue<WatchedUpdateResult> results = new LinkedBlockingQueue<WatchedUpdateResult>();
+
+        @Override
+        public void updateConfiguration(WatchedUpdateResult result) {
+            results.add(result);
+        }
+
+        WatchedUpdateResult next() throws InterruptedException {
+            WatchedUpdateResult result = results.poll(10, TimeUnit.SECONDS);
+            assertNotNull("No update received", result);
+            return result;
+        }
+    }
+
+    private File dir;
+    private FileWatchedConfigurationSource source;
+
+    @Before
+    public void setup() throws IOException {
+        dir = File.createTempFile("archaius", ".watched");
+        dir.delete();
+        assertTrue(dir.mkdir());
+    }
+
+    @After
+    public void cleanup() {
+        if (source != null) {
+            source.close();
+        }
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testUpdatesWithWatchService() throws Exception {
+        testUpdates(true);
+    }
+
+    @Test
+    public void testUpdatesWithPolling() throws Exception {
+        testUpdates(false);
+    }
+
+    private void testUpdates(boolean useWatchService) throws Exception {
+        File file = new File(dir, "app.properties");
+        write(file, "a=1\nb=2\nc=3");
+        source = new FileWatchedConfigurationSource(50, useWatchService ? 60000 : 100, useWatchService, file);
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("a", "1");
+        expected.put("b", "2");
+        expected.put("c", "3");
+        assertEquals(expected, source.getCurrentData());
+
+        RecordingListener listener = new RecordingListener();
+        source.addUpdateListener(listener);
+        // give the watcher time to start before the file changes
+        Thread.sleep(200);
+
+        write(file, "a=10\nc=3\nd=4");
+        WatchedUpdateResult result = listener.next();
+        assertTrue(result.isIncremental());
+        assertEquals(singleton("d", "4"), result.getAdded());
+        assertEquals(singleton("a", "10"), result.getChanged());
+        assertEquals(singleton("b", "2"), result.getDeleted());
+
+        // deploys that write a new file and rename it over the old one
+        File tmp = new File(dir, "app.properties.tmp");
+        write(tmp, "a=100\nc=3\nd=4");
+        assertTrue(tmp.renameTo(file) || (file.delete() && tmp.renameTo(file)));
+        result = listener.next();
+        assertEquals(singleton("a", "100"), result.getChanged());
+        assertTrue(result.getAdded().isEmpty());
+        assertTrue(result.getDeleted().isEmpty());
+
+        assertTrue(file.delete());
+        result = listener.next();
+        assertTrue(result.getAdded().isEmpty());
+        assertTrue(result.getChanged().isEmpty());
+        assertEquals(3, result.getDeleted().size());
+        assertTrue(source.getCurrentData().isEmpty());
+        assertNull(listener.results.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Writes to a file every few milliseconds until stopped.
+     */
+    static class ContinuousWriter extends Thread {
+        private final File file;
+        private final String key;
+        volatile boolean stopped;
+
+        ContinuousWriter(File file, String key) {
+            this.file = file;
+            this.key = key;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; !stopped; i++) {
+                    write(file, key + "=" + i);
+                    Thread.sleep(10);
+                }
+            } catch (Exception e) {
+                // stopped
+            }
+        }
+    }
+
+    @Test
+    public void testContinuousWritesDoNotDelayUpdates() throws Exception {
+        File file = new File(dir, "app.properties");
+        write(file, "a=1");
+        source = new FileWatchedConfigurationSource(50, 60000, true, file);
+        RecordingListener listener = new RecordingListener();
+        source.addUpdateListener(listener);
+        Thread.sleep(200);
+
+        // another file in the same directory
+        ContinuousWriter log = new ContinuousWriter(new File(dir, "app.log"), "line");
+        log.start();
+        try {
+            Thread.sleep(100);
+            long start = System.currentTimeMillis();
+            write(file, "a=22");
+            assertEquals(singleton("a", "22"), listener.next().getChanged());
+            assertTrue(System.currentTimeMillis() - start < 2000);
+        } finally {
+            log.stopped = true;
+            log.join();
+        }
+
+        // the watched file itself, which is read after at most ten times the debounce delay
+        ContinuousWriter writer = new ContinuousWriter(file, "b");
+        writer.start();
+        try {
+            WatchedUpdateResult result = listener.next();
+            assertTrue(result.getChanged().containsKey("b") || result.getAdded().containsKey("b"));
+            assertTrue(writer.isAlive());
+        } finally {
+            writer.stopped = true;
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testDirectoryWithDynamicWatchedConfiguration() throws Exception {
+        write(new File(dir, "a.properties"), "x=a\ny=a");
+        write(new File(dir, "b.properties"), "y=b");
+        write(new File(dir, "ignored.txt"), "z=ignored");
+        source = new FileWatchedConfigurationSource(50, 100, true, dir);
+        DynamicWatchedConfiguration config = new DynamicWatchedConfiguration(source);
+        assertEquals("a", config.getString("x"));
+        assertEquals("b", config.getString("y"));
+        assertNull(config.getString("z"));
+        Thread.sleep(200);
+
+        write(new File(dir, "c.properties"), "x=c");
+        long end = System.currentTimeMillis() + 10000;
+        while (!"c".equals(config.getString("x")) && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+        }
+        assertEquals("c", config.getString("x"));
+        assertEquals("b", config.getString("y"));
+
+        assertTrue(new File(dir, "b.properties").delete());
+        end = System.currentTimeMillis() + 10000;
+        while (!"a".equals(config.getString("y")) && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+        }
+        assertEquals("a", config.getString("y"));
+    }
+
+    @Test
+    public void testStopsWithLastListener() throws Exception {
+        File file = new File(dir, "app.properties");
+        write(file, "a=1");
+        source = new FileWatchedConfigurationSource(50, 100, true, file);
+        RecordingListener listener = new RecordingListener();
+        source.addUpdateListener(listener);
+        Thread.sleep(200);
+        source.removeUpdateListener(listener);
+        write(file, "a=22");
+        assertNull(listener.results.poll(500, TimeUnit.MILLISECONDS));
+        // the changes made while nobody listened are reported once watching starts again
+        source.addUpdateListener(listener);
+        assertEquals(singleton("a", "22"), listener.next().getChanged());
+    }
+
+    private static Map<String, Object> singleton(String key, Object value) {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put(key, value);
+        return map;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
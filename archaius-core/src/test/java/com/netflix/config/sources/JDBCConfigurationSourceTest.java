@@ -16,6 +16,8 @@
 package com.netflix.config.sources;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.sql.Connection;
@@ -33,6 +35,7 @@ import com.netflix.config.DynamicConfiguration;
 import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.config.DynamicStringProperty;
 import com.netflix.config.FixedDelayPollingScheduler;
+import com.netflix.config.PollResult;
 import com.netflix.config.sources.JDBCConfigurationSource;
 
 /**
@@ -144,5 +147,73 @@ public class JDBCConfigurationSourceTest {
 
 	}
 
-}
+	private static void execute(DataSource ds, String sql) throws Exception {
+		Connection con = ds.getConnection();
+		try {
+			Statement sta = con.createStatement();
+			try {
+				sta.executeUpdate(sql);
+			} finally {
+				sta.close();
+			}
+		} finally {
+			con.close();
+		}
+	}
+
+	@Test
+	public void testIncrementalPolling() throws Throwable {
+		final String dbName = "MyVersionedSiteConfiguration";
+		EmbeddedDataSource40 ds = new EmbeddedDataSource40();
+		ds.setDatabaseName(dbName);
+		ds.setCreateDatabase("create");
+		try {
+			try {
+				execute(ds, "DROP TABLE MyVersionedProperties");
+			} catch (Exception e) {
+				log.info("Table did not exist.");
+			}
+			execute(ds, "CREATE TABLE MyVersionedProperties (property_key VARCHAR(20),"
+					+ " property_value VARCHAR(100), version BIGINT, deleted SMALLINT)");
+			execute(ds, "insert into MyVersionedProperties values ('prop1', 'value1', 1, 0)");
+			execute(ds, "insert into MyVersionedProperties values ('prop2', 'value2', 2, 0)");
+			execute(ds, "insert into MyVersionedProperties values ('prop3', 'value3', 3, 1)");
+
+			JDBCConfigurationSource source = new JDBCConfigurationSource(ds,
+					"select property_key, property_value, version, deleted from MyVersionedProperties",
+					"select property_key, property_value, version, deleted from MyVersionedProperties where version > ?",
+					"property_key", "property_value", "version", "deleted");
+
+			PollResult result = source.poll(true, null);
+			assertFalse(result.isIncremental());
+			assertEquals(2, result.getComplete().size());
+			assertEquals("value1", result.getComplete().get("prop1"));
+
+			PollResult unchanged = source.poll(false, result.getCheckPoint());
+			assertFalse(unchanged.hasChanges());
 
+			execute(ds, "update MyVersionedProperties set property_value = 'changed', version = 4 where property_key = 'prop1'");
+			execute(ds, "update MyVersionedProperties set deleted = 1, version = 5 where property_key = 'prop2'");
+			execute(ds, "insert into MyVersionedProperties values ('prop4', 'value4', 6, 0)");
+			PollResult incremental = source.poll(false, unchanged.getCheckPoint());
+			assertTrue(incremental.isIncremental());
+			assertEquals(2, incremental.getChanged().size());
+			assertEquals("changed", incremental.getChanged().get("prop1"));
+			assertEquals("value4", incremental.getChanged().get("prop4"));
+			assertEquals(1, incremental.getDeleted().size());
+			assertTrue(incremental.getDeleted().containsKey("prop2"));
+
+			// hard deletes are only picked up by the full reconcile
+			execute(ds, "delete from MyVersionedProperties where property_key = 'prop4'");
+			assertFalse(source.poll(false, incremental.getCheckPoint()).hasChanges());
+			source.setFullReconcileIntervalMillis(0);
+			PollResult full = source.poll(false, incremental.getCheckPoint());
+			assertFalse(full.isIncremental());
+			assertEquals(1, full.getComplete().size());
+			assertEquals("changed", full.getComplete().get("prop1"));
+		} finally {
+			FileUtils.deleteDirectory(new File(".", dbName));
+		}
+	}
+
+}
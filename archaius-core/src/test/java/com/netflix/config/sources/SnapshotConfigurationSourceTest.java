@@ -0,0 +1,150 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.config.AbstractPollingScheduler;
+import com.netflix.config.ConcurrentMapConfiguration;
+import com.netflix.config.ConfigurationSnapshot;
+import com.netflix.config.PollResult;
+import com.netflix.config.PolledConfigurationSource;
+
+public class SnapshotConfigurationSourceTest {
+
+    static class TestSource implements PolledConfigurationSource {
+        volatile Map<String, Object> properties = new HashMap<String, Object>();
+        volatile boolean available = true;
+        int polls;
+
+        @Override
+        public PollResult poll(boolean initial, Object checkPoint) throws Exception {
+            polls++;
+            if (!available) {
+                throw new IOException("unavailable");
+            }
+            return PollResult.createFull(new HashMap<String, Object>(properties));
+        }
+    }
+
+    static class ManualScheduler extends AbstractPollingScheduler {
+        Runnable runnable;
+
+        @Override
+        protected void schedule(Runnable pollingRunnable) {
+            runnable = pollingRunnable;
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("archaius", ".snapshot");
+        file.delete();
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testWithoutSnapshot() throws Exception {
+        TestSource source = new TestSource();
+        source.properties.put("a", "1");
+        SnapshotConfigurationSource snapshotSource = new SnapshotConfigurationSource(source, file);
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        ManualScheduler scheduler = new ManualScheduler();
+        scheduler.startPolling(snapshotSource, config);
+        assertEquals(1, source.polls);
+        assertEquals("1", config.getProperty("a"));
+        assertEquals("1", ConfigurationSnapshot.read(file).get("a"));
+
+        long modified = file.lastModified();
+        scheduler.runnable.run();
+        // unchanged, not rewritten
+        assertEquals(modified, file.lastModified());
+        assertEquals(2, source.polls);
+    }
+
+    @Test
+    public void testStartFromSnapshot() throws Exception {
+        Map<String, Object> snapshot = new HashMap<String, Object>();
+        snapshot.put("a", "old");
+        snapshot.put("b", "old");
+        ConfigurationSnapshot.write(file, snapshot);
+
+        TestSource source = new TestSource();
+        source.available = false;
+        SnapshotConfigurationSource snapshotSource = new SnapshotConfigurationSource(source, file);
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        ManualScheduler scheduler = new ManualScheduler();
+        // the source is not polled and does not fail the start
+        scheduler.startPolling(snapshotSource, config);
+        assertEquals(0, source.polls);
+        assertEquals("old", config.getProperty("a"));
+        assertEquals("old", config.getProperty("b"));
+
+        // still unavailable: the snapshot is kept
+        scheduler.runnable.run();
+        assertEquals(1, source.polls);
+        assertEquals("old", config.getProperty("a"));
+
+        source.available = true;
+        source.properties.put("a", "new");
+        source.properties.put("c", "new");
+        scheduler.runnable.run();
+        assertEquals("new", config.getProperty("a"));
+        assertNull(config.getProperty("b"));
+        assertEquals("new", config.getProperty("c"));
+        Map<String, Object> written = ConfigurationSnapshot.read(file);
+        assertEquals(source.properties, written);
+    }
+
+    @Test
+    public void testCorruptSnapshotIgnored() throws Exception {
+        Map<String, Object> snapshot = new HashMap<String, Object>();
+        snapshot.put("a", "old");
+        ConfigurationSnapshot.write(file, snapshot);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 1);
+        } finally {
+            raf.close();
+        }
+        TestSource source = new TestSource();
+        source.properties.put("a", "1");
+        ConcurrentMapConfiguration config = new ConcurrentMapConfiguration();
+        new ManualScheduler().startPolling(new SnapshotConfigurationSource(source, file), config);
+        assertEquals(1, source.polls);
+        assertEquals("1", config.getProperty("a"));
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.sources;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.config.PollResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class URLConfigurationSourceTest {
+
+    private HttpServer server;
+    private volatile String content = "loaded=true";
+    private volatile String eTag = "\"v1\"";
+    private final AtomicInteger fullResponses = new AtomicInteger();
+
+    @Before
+    public void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/config.properties", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                    exchange.close();
+                    return;
+                }
+                // counted before responding, as the client may check the count as soon as it has the response
+                fullResponses.incrementAndGet();
+                byte[] response = content.getBytes("UTF-8");
+                exchange.getResponseHeaders().set("ETag", eTag);
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+    }
+
+    private String serverUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/config.properties";
+    }
+
+    @Test
+    public void testHttpConditionalFetch() throws Exception {
+        URLConfigurationSource source = new URLConfigurationSource(serverUrl());
+        PollResult result = source.poll(true, null);
+        assertEquals("true", result.getComplete().get("loaded"));
+        assertNotNull(result.getCheckPoint());
+        assertEquals(1, fullResponses.get());
+
+        PollResult unchanged = source.poll(false, result.getCheckPoint());
+        assertTrue(unchanged.isIncremental());
+        assertFalse(unchanged.hasChanges());
+        assertSame(result.getCheckPoint(), unchanged.getCheckPoint());
+        assertEquals(1, fullResponses.get());
+
+        content = "loaded=false";
+        eTag = "\"v2\"";
+        PollResult changed = source.poll(false, unchanged.getCheckPoint());
+        assertFalse(changed.isIncremental());
+        assertEquals("false", changed.getComplete().get("loaded"));
+        assertEquals(2, fullResponses.get());
+
+        // the initial poll always fetches the content
+        source.poll(true, changed.getCheckPoint());
+        assertEquals(3, fullResponses.get());
+    }
+
+    @Test
+    public void testFileConditionalFetch() throws Exception {
+        File file = File.createTempFile("urlConfigurationSourceTest", ".properties");
+        file.deleteOnExit();
+        write(file, "a=1\nb=2");
+        File other = File.createTempFile("urlConfigurationSourceTest", ".properties");
+        other.deleteOnExit();
+        write(other, "b=3");
+
+        URLConfigurationSource source = new URLConfigurationSource(file.toURI().toURL(), other.toURI().toURL());
+        PollResult result = source.poll(true, null);
+        assertEquals("1", result.getComplete().get("a"));
+        assertEquals("3", result.getComplete().get("b"));
+
+        PollResult unchanged = source.poll(false, result.getCheckPoint());
+        assertFalse(unchanged.hasChanges());
+
+        // a change in one file returns the complete union again
+        write(file, "a=10\nb=20");
+        PollResult changed = source.poll(false, unchanged.getCheckPoint());
+        assertFalse(changed.isIncremental());
+        assertEquals("10", changed.getComplete().get("a"));
+        assertEquals("3", changed.getComplete().get("b"));
+
+        assertFalse(source.poll(false, changed.getCheckPoint()).hasChanges());
+    }
+
+    @Test
+    public void testMixedSourcesFetchedConditionally() throws Exception {
+        File file = File.createTempFile("urlConfigurationSourceTest", ".properties");
+        file.deleteOnExit();
+        write(file, "loaded=fromFile\nfile=true");
+
+        URLConfigurationSource source = new URLConfigurationSource(file.toURI().toURL().toString(), serverUrl());
+        PollResult result = source.poll(true, null);
+        assertEquals("true", result.getComplete().get("loaded"));
+        assertEquals("true", result.getComplete().get("file"));
+        assertFalse(source.poll(false, result.getCheckPoint()).hasChanges());
+
+        // a foreign check point results in a full poll
+        PollResult full = source.poll(false, "foreign");
+        assertFalse(full.isIncremental());
+        assertEquals("true", full.getComplete().get("file"));
+    }
+
+    private static void write(File file, String text) throws IOException {
+        long previous = file.lastModified();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        if (file.lastModified() == previous) {
+            // make sure the change is visible on file systems with coarse timestamps
+            file.setLastModified(previous + 1000);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.config.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class PropertiesParserTest {
+
+    private static final Pattern COMMENT_AFTER_EMPTY_CONTINUATION =
+            Pattern.compile("(^|[\\r\\n])[ \\t\\f]*(\\\\(\\r\\n|\\r|\\n)[ \\t\\f]*)+[#!]");
+
+    private static final String[] CONTENTS = {
+        "",
+        "a=1",
+        "a=1\nb=2\r\nc=3\rd=4",
+        "  a = 1  \n\tb:2\n c 3\n d\n e=\n f= =x\n g::y",
+        "# comment\n! other comment\na=1\n  # indented comment\n#comment \\\nb=2",
+        "a=first \\\n    second \\\r\n\tthird\\\r  fourth",
+        "a=ends with backslash\\",
+        "a=escaped backslash\\\\\nb=three\\\\\\\n c",
+        "key\\ with\\ spaces=v\\=al\\:ue\nk\\:1=\\ leading",
+        "a=\\t\\r\\n\\f\\x\\\\\\u0041\\u00e9\\uD83D\\uDE00",
+        "a=b\\\n#not a comment\n\n\n   \n=empty key\n:also",
+        "unicode=h\u00e9llo w\u00f6rld \u4e2d\u6587",
+        "a=1\na=2\na=3",
+        "a\\\n=b",
+        "\\\n\\\n",
+        "a=\\\n",
+    };
+
+    @Test
+    public void testSameAsPropertiesLoad() throws Exception {
+        for (String content : CONTENTS) {
+            assertEquals(content, load(content), PropertiesParser.parseToMap(new StringReader(content)));
+        }
+    }
+
+    @Test
+    public void testRandomContent() throws Exception {
+        Random random = new Random(42);
+        char[] alphabet = {'a', 'b', ' ', '\t', '\f', '=', ':', '\\', '\n', '\r', '#', '!', 'u', '0', 'F', 't', 'n', '\u00e9'};
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                sb.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String content = sb.toString();
+            if (COMMENT_AFTER_EMPTY_CONTINUATION.matcher(content).find()) {
+                // parsed differently by Java 8 and later versions
+                continue;
+            }
+            Map<String, Object> expected;
+            try {
+                expected = load(content);
+            } catch (RuntimeException e) {
+                // malformed escapes, which the parser has to reject as well
+                expected = null;
+            }
+            try {
+                Map<String, Object> actual = PropertiesParser.parseToMap(new StringReader(content));
+                assertEquals(escape(content), expected, actual);
+            } catch (IllegalArgumentException e) {
+                assertEquals(escape(content), null, expected);
+            }
+        }
+    }
+
+    @Test
+    public void testLongLinesAcrossBuffers() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("key").append(i).append('=');
+            for (int j = 0; j < i % 50; j++) {
+                sb.append("value").append(j).append(" \\\n  ");
+            }
+            sb.append(i).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        String content = sb.toString();
+        assertEquals(load(content), PropertiesParser.parseToMap(new StringReader(content)));
+        // a reader that returns a few characters at a time
+        assertEquals(load(content), PropertiesParser.parseToMap(new TrickleReader(content)));
+    }
+
+    @Test
+    public void testHandlerGetsEveryPairInOrder() throws Exception {
+        final List<String> pairs = new ArrayList<String>();
+        PropertiesParser.parse(new StringReader("a=1\nb=2\na=3"), new PropertiesParser.Handler() {
+            @Override
+            public void property(String key, String value) {
+                pairs.add(key + "=" + value);
+            }
+        });
+        List<String> expected = new ArrayList<String>();
+        expected.add("a=1");
+        expected.add("b=2");
+        expected.add("a=3");
+        assertEquals(expected, pairs);
+    }
+
+    @Test
+    public void testMalformedUnicodeEscape() throws Exception {
+        for (String content : new String[] {"a=\\u12", "a=\\u12g4", "a=\\u"}) {
+            try {
+                PropertiesParser.parseToMap(new StringReader(content));
+                fail("Malformed escape accepted: " + content);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Malformed \\uxxxx encoding.", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testLoadPropertiesMapFromInputStream() throws Exception {
+        String content = "a=h\u00e9llo\nb=\\u00e9";
+        Map<String, Object> map = ConfigurationUtils.loadPropertiesMapFromInputStream(
+                new ByteArrayInputStream(content.getBytes("UTF-8")));
+        assertEquals(ConfigurationUtils.loadPropertiesFromInputStream(
+                new ByteArrayInputStream(content.getBytes("UTF-8"))), map);
+        assertEquals("h\u00e9llo", map.get("a"));
+        assertEquals("\u00e9", map.get("b"));
+    }
+
+    private static Map<String, Object> load(String content) throws Exception {
+        Properties props = new Properties();
+        props.load(new StringReader(content));
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (Map.Entry<Object, Object> entry : props.entrySet()) {
+            map.put((String) entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    private static String escape(String content) {
+        return content.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t")
+                .replace("\f", "\\f");
+    }
+
+    private static class TrickleReader extends Reader {
+        private final String content;
+        private int position;
+
+        TrickleReader(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (position == content.length()) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, 3), content.length() - position);
+            content.getChars(position, position + n, cbuf, off);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}